@@ -0,0 +1,326 @@
+package data;
+
+import database.ExampleBatch;
+import database.ExampleStream;
+import database.TableSchema;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Accumulates the examples read from a table into primitive columns, growing
+ * them as needed. The values of the non numerical columns are encoded while
+ * they are read, and the dictionaries of the discrete attributes are collected
+ * in the same pass, so that the table is read only once.
+ * The class is internal to the package, used by the sources to hand their
+ * examples to Data.
+ * 
+ * @author Fabio
+ *
+ */
+class ColumnBuilder {
+  /**
+   * Number of examples the columns can hold before they first need to grow.
+   */
+  private static final int INITIAL_CAPACITY = 1024;
+  /**
+   * Schema of the table. The last column is the class attribute.
+   */
+  private final TableSchema schema;
+  /**
+   * Values of the numerical columns, indexed by column and row.
+   */
+  private final double[][] continuousValues;
+  /**
+   * Codes of the values of the non numerical columns, indexed by column and
+   * row. Until buildExplanatorySet is called each value is coded by the order
+   * in which it was first read.
+   */
+  private final int[][] discreteCodes;
+  /**
+   * Code of each value read from the non numerical columns, indexed by column.
+   */
+  private final List<Map<String, Integer>> dictionaries;
+  /**
+   * Values of the class attribute, indexed by row.
+   */
+  private double[] classValues;
+  /**
+   * Number of examples the columns can hold.
+   */
+  private int capacity;
+  /**
+   * Number of examples appended to the columns.
+   */
+  private int size = 0;
+
+  /**
+   * Initializes empty columns for the input schema.
+   * 
+   * @param schema   schema of the table, whose last column is numerical.
+   * @param capacity number of examples the columns can hold before they need
+   *                 to grow.
+   */
+  ColumnBuilder(TableSchema schema, int capacity) {
+    this.schema = schema;
+    this.capacity = capacity;
+    int numberOfAttributes = schema.getNumberOfAttributes() - 1;
+    continuousValues = new double[numberOfAttributes][];
+    discreteCodes = new int[numberOfAttributes][];
+    dictionaries = new ArrayList<>(numberOfAttributes);
+    for (int i = 0; i < numberOfAttributes; i++) {
+      if (schema.getColumn(i).isNumber()) {
+        continuousValues[i] = new double[capacity];
+        dictionaries.add(null);
+      } else {
+        discreteCodes[i] = new int[capacity];
+        dictionaries.add(new HashMap<>());
+      }
+    }
+    classValues = new double[capacity];
+  }
+
+  /**
+   * Initializes empty columns for the input schema.
+   * 
+   * @param schema schema of the table, whose last column is numerical.
+   */
+  ColumnBuilder(TableSchema schema) {
+    this(schema, INITIAL_CAPACITY);
+  }
+
+  /**
+   * Appends all the examples of the stream to the columns.
+   * 
+   * @param stream stream of examples.
+   * @throws SQLException          If there are problems reading the stream.
+   * @throws TrainingDataException If an example contains a null discrete value.
+   */
+  void appendAll(ExampleStream stream) throws SQLException, TrainingDataException {
+    ExampleBatch batch;
+    while ((batch = stream.nextBatch()) != null) {
+      append(batch);
+    }
+  }
+
+  /**
+   * Appends the examples of the batch to the columns, encoding the discrete
+   * values.
+   * 
+   * @param batch batch of examples.
+   * @throws TrainingDataException If an example contains a null discrete value.
+   */
+  void append(ExampleBatch batch) throws TrainingDataException {
+    ensureCapacity(size + batch.size());
+    for (int i = 0; i < continuousValues.length; i++) {
+      if (discreteCodes[i] != null) {
+        int[] codes = discreteCodes[i];
+        for (int k = 0; k < batch.size(); k++) {
+          String value = batch.getString(k, i);
+          if (value == null) {
+            throw new TrainingDataException("The table contains a null tuple");
+          }
+          codes[size + k] = encode(i, value);
+        }
+      } else {
+        double[] values = continuousValues[i];
+        for (int k = 0; k < batch.size(); k++) {
+          values[size + k] = batch.getNumber(k, i);
+        }
+      }
+    }
+    for (int k = 0; k < batch.size(); k++) {
+      classValues[size + k] = batch.getNumber(k, continuousValues.length);
+    }
+    size += batch.size();
+  }
+
+  /**
+   * Returns the code of a value of a non numerical column, assigning it the
+   * next code if it's read for the first time.
+   * 
+   * @param column index of the column.
+   * @param value  value of the column.
+   * @return The code of the value, valid until buildExplanatorySet is called.
+   */
+  int encode(int column, String value) {
+    Map<String, Integer> dictionary = dictionaries.get(column);
+    Integer code = dictionary.get(value);
+    if (code == null) {
+      code = dictionary.size();
+      dictionary.put(value, code);
+    }
+    return code;
+  }
+
+  /**
+   * Appends an example to the columns.
+   * 
+   * @param numbers values of the numerical columns of the example, indexed by
+   *                column.
+   * @param codes   codes returned by encode for the values of the non numerical
+   *                columns of the example, indexed by column.
+   */
+  void append(double[] numbers, int[] codes) {
+    ensureCapacity(size + 1);
+    for (int i = 0; i < continuousValues.length; i++) {
+      if (discreteCodes[i] != null) {
+        discreteCodes[i][size] = codes[i];
+      } else {
+        continuousValues[i][size] = numbers[i];
+      }
+    }
+    classValues[size] = numbers[continuousValues.length];
+    size++;
+  }
+
+  /**
+   * Appends all the examples of another builder with the same schema to the
+   * columns, and releases the columns of the other builder. The discrete values
+   * of the other builder are coded again with the dictionaries of this one.
+   * 
+   * @param other builder to append.
+   */
+  void append(ColumnBuilder other) {
+    ensureCapacity(size + other.size);
+    for (int i = 0; i < continuousValues.length; i++) {
+      if (discreteCodes[i] != null) {
+        Map<String, Integer> otherDictionary = other.dictionaries.get(i);
+        int[] recode = new int[otherDictionary.size()];
+        for (Map.Entry<String, Integer> entry : otherDictionary.entrySet()) {
+          recode[entry.getValue()] = encode(i, entry.getKey());
+        }
+        int[] codes = discreteCodes[i];
+        int[] otherCodes = other.discreteCodes[i];
+        for (int k = 0; k < other.size; k++) {
+          codes[size + k] = recode[otherCodes[k]];
+        }
+        other.discreteCodes[i] = null;
+      } else {
+        System.arraycopy(other.continuousValues[i], 0, continuousValues[i], size, other.size);
+        other.continuousValues[i] = null;
+      }
+    }
+    System.arraycopy(other.classValues, 0, classValues, size, other.size);
+    other.classValues = null;
+    size += other.size;
+  }
+
+  /**
+   * Grows the columns, at least doubling them, so that they can hold the given
+   * number of examples.
+   * 
+   * @param minimumCapacity number of examples the columns must be able to hold.
+   */
+  private void ensureCapacity(int minimumCapacity) {
+    if (minimumCapacity > capacity) {
+      resize(Math.max(2 * capacity, minimumCapacity));
+    }
+  }
+
+  /**
+   * Reallocates the columns with the given capacity.
+   * 
+   * @param newCapacity number of examples the columns will be able to hold.
+   */
+  private void resize(int newCapacity) {
+    for (int i = 0; i < continuousValues.length; i++) {
+      if (discreteCodes[i] != null) {
+        discreteCodes[i] = Arrays.copyOf(discreteCodes[i], newCapacity);
+      } else {
+        continuousValues[i] = Arrays.copyOf(continuousValues[i], newCapacity);
+      }
+    }
+    classValues = Arrays.copyOf(classValues, newCapacity);
+    capacity = newCapacity;
+  }
+
+  /**
+   * Shrinks the columns to the number of examples appended.
+   */
+  void trim() {
+    if (size != capacity) {
+      resize(size);
+    }
+  }
+
+  /**
+   * Creates the explanatory attributes of the table, with the values read for
+   * each discrete attribute, and codes the discrete values again by their
+   * position in the ordered set of values of the attribute. It must be called
+   * once, after all the examples have been appended.
+   * 
+   * @return The explanatory attributes, in the order of the columns.
+   */
+  List<Attribute> buildExplanatorySet() {
+    List<Attribute> explanatorySet = new ArrayList<>(continuousValues.length);
+    for (int i = 0; i < continuousValues.length; i++) {
+      String name = schema.getColumn(i).getColumnName();
+      if (discreteCodes[i] != null) {
+        Map<String, Integer> dictionary = dictionaries.get(i);
+        DiscreteAttribute attribute = new DiscreteAttribute(name, i, dictionary.keySet());
+        int[] recode = new int[dictionary.size()];
+        for (Map.Entry<String, Integer> entry : dictionary.entrySet()) {
+          recode[entry.getValue()] = attribute.getCode(entry.getKey());
+        }
+        int[] codes = discreteCodes[i];
+        for (int k = 0; k < size; k++) {
+          codes[k] = recode[codes[k]];
+        }
+        explanatorySet.add(attribute);
+      } else {
+        explanatorySet.add(new ContinuousAttribute(name, i));
+      }
+    }
+    return explanatorySet;
+  }
+
+  /**
+   * Returns the number of examples appended to the columns.
+   * 
+   * @return Value of size.
+   */
+  int size() {
+    return size;
+  }
+
+  /**
+   * Returns the schema of the table.
+   * 
+   * @return Value of schema.
+   */
+  TableSchema getSchema() {
+    return schema;
+  }
+
+  /**
+   * Returns the columns of the continuous attributes.
+   * 
+   * @return Value of continuousValues.
+   */
+  double[][] getContinuousValues() {
+    return continuousValues;
+  }
+
+  /**
+   * Returns the columns of the discrete attributes.
+   * 
+   * @return Value of discreteCodes.
+   */
+  int[][] getDiscreteCodes() {
+    return discreteCodes;
+  }
+
+  /**
+   * Returns the column of the class attribute.
+   * 
+   * @return Value of classValues.
+   */
+  double[] getClassValues() {
+    return classValues;
+  }
+
+}
@@ -1,22 +1,16 @@
 package data;
 
-import database.Column;
-import database.DatabaseConnectionException;
-import database.DbAccess;
-import database.EmptySetException;
-import database.Example;
-import database.NullTupleException;
-import database.TableData;
-import database.TableSchema;
-import java.sql.SQLException;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Set;
-import java.util.TreeSet;
 
 /**
- * Models the set of the training examples.
+ * Models the set of the training examples. The examples are stored column by
+ * column in primitive arrays: a double array for every continuous attribute and
+ * for the class attribute, and an array of codes for every discrete attribute,
+ * where each code is the position of the value in the ordered set of values of
+ * the attribute. Sorting only permutes an array of row indexes, the columns are
+ * never moved.
  * 
  * 
  * @author Fabio
@@ -24,9 +18,86 @@ import java.util.TreeSet;
  */
 public class Data {
   /**
-   * List of Example containing all the training data.
+   * Values of the continuous attributes, indexed by attribute index and row. The
+   * entries of the discrete attributes are null.
    */
-  private final List<Example> data;
+  private final double[][] continuousValues;
+  /**
+   * Codes of the values of the discrete attributes, indexed by attribute index
+   * and row. The entries of the continuous attributes are null.
+   */
+  private final int[][] discreteCodes;
+  /**
+   * Values of the class attribute, indexed by row.
+   */
+  private final double[] classValues;
+  /**
+   * Number of examples grouped in each row, indexed by row. Null unless the
+   * training set has been aggregated, in which case every row is a group of
+   * examples with the same explanatory values.
+   */
+  private final double[] weights;
+  /**
+   * Sum of the class values of the examples grouped in each row, indexed by row.
+   * Null unless the training set has been aggregated.
+   */
+  private final double[] classSums;
+  /**
+   * Sum of the squares of the class values of the examples grouped in each row,
+   * indexed by row. Null unless the training set has been aggregated.
+   */
+  private final double[] classSumsOfSquares;
+  /**
+   * Weight of each row, indexed by row, multiplying the examples it groups and
+   * their class sums, so that a row counts as that many examples in every
+   * statistic. Null unless setWeights has been called, in which case every row
+   * weighs 1. The array is shared by the views and overwritten in place by
+   * setWeights.
+   */
+  private double[] exampleWeights;
+  /**
+   * Row stored at each position of the training set, permuted by sort.
+   */
+  private final int[] examples;
+  /**
+   * Position of the training set stored at index 0 of examples. It is 0 unless
+   * the object is a view over a range of the training set.
+   */
+  private final int firstExampleIndex;
+  /**
+   * Attribute the examples are known to be sorted by, so that sorting them
+   * again is not needed. Null unless the object is a view.
+   */
+  private final Attribute sortedBy;
+  /**
+   * Rows of the training set sorted by each explanatory attribute, indexed by
+   * attribute index and position. Every range of positions covered by a node
+   * holds the same rows in each list, so that sorting the range only requires
+   * copying the list of the attribute. Null until presort is called.
+   */
+  private int[][] sortedExamples;
+  /**
+   * Child of the last split each row was assigned to, used by split.
+   */
+  private int[] exampleChildren;
+  /**
+   * Support buffer used by split to partition the sorted lists.
+   */
+  private int[] splitBuffer;
+  /**
+   * Bin of the value of each continuous attribute, indexed by attribute index
+   * and row, read as an unsigned byte. Null until discretize is called.
+   */
+  private byte[][] continuousBins;
+  /**
+   * Greatest value falling in each bin of each continuous attribute, indexed by
+   * attribute index and bin, in ascending order.
+   */
+  private double[][] binUpperBounds;
+  /**
+   * Maximum number of bins a continuous attribute can be discretized into.
+   */
+  public static final int MAX_BINS = 256;
   /**
    * Number of Examples in the training set.
    */
@@ -42,7 +113,11 @@ public class Data {
 
   /**
    * Initializes an object of class Data. It connects to the database and
-   * retrieves all the information needed to create the regression tree.
+   * retrieves all the information needed to create the regression tree with a
+   * single query: the schema of the table is taken from its result set, and the
+   * values of the discrete attributes are collected while the examples are
+   * streamed from the database and appended to the columns batch by batch,
+   * without being held anywhere else.
    * 
    * @param tableName Name of the SQL table we want to acquire our training set
    *                  from.
@@ -52,67 +127,185 @@ public class Data {
    *                               informations or when it's impossible to connect
    *                               to the database.
    */
-  @SuppressWarnings("unchecked")
   public Data(String tableName) throws TrainingDataException {
-    explanatorySet = new ArrayList<>();
-    try {
-      TableSchema ts;
-      DbAccess db = new DbAccess();
-
-      try {
-        db.initConnection();
-      } catch (DatabaseConnectionException e) {
-        throw new TrainingDataException("Could not connect to the database");
-      }
-      try {
-        ts = new TableSchema(db, tableName);
-      } catch (SQLException e) {
-        throw new TrainingDataException(e);
-      }
-      if (ts.getNumberOfAttributes() == 0) {
-        throw new TrainingDataException("The table does not exist");
-      } else if (ts.getNumberOfAttributes() < 2) {
-        throw new TrainingDataException("The table has less than two columns");
-      }
+    this(tableName, null, 1);
+  }
 
-      TableData td = new TableData(db);
+  /**
+   * Initializes an object of class Data like Data(String), but reading the
+   * table over numberOfConnections connections at the same time. The table is
+   * split into as many disjoint ranges, over the values of keyColumn if given,
+   * else into windows of rows, and each range is read into its own columns by a
+   * separate thread. The columns are then merged in the order of the ranges.
+   * 
+   * @param tableName           Name of the SQL table we want to acquire our
+   *                            training set from.
+   * @param keyColumn           Name of a numerical column used to split the
+   *                            table, or null to split it into windows of rows.
+   * @param numberOfConnections Number of ranges read at the same time.
+   * @throws TrainingDataException If it's not possible to acquire the training
+   *                               set. This happens when the table does not
+   *                               exist, when it's empty or with missing
+   *                               informations or when it's impossible to connect
+   *                               to the database.
+   */
+  public Data(String tableName, String keyColumn, int numberOfConnections)
+      throws TrainingDataException {
+    this(new JdbcSource(tableName, keyColumn, numberOfConnections));
+  }
 
-      try {
-        data = td.getTransitions(tableName);
-      } catch (EmptySetException e) {
-        throw new TrainingDataException("There are no examples in this table");
-      }
+  /**
+   * Initializes an object of class Data with the examples read from the input
+   * source.
+   * 
+   * @param source Source of the training examples.
+   * @throws TrainingDataException If it's not possible to acquire the training
+   *                               set from the source, or the source is empty.
+   */
+  public Data(TrainingSource source) throws TrainingDataException {
+    ColumnBuilder columns = source.read();
+    if (columns.size() == 0) {
+      throw new TrainingDataException("There are no examples in this table");
+    }
 
-      int i;
-      Column column;
-      Set<String> discreteValues;
-      for (i = 0; i < ts.getNumberOfAttributes() - 1; i++) {
-        column = ts.getColumn(i);
-
-        if (column.isNumber()) {
-          explanatorySet.add(new ContinuousAttribute(column.getColumnName(), i));
-        } else {
-          try {
-            discreteValues = (TreeSet<String>) (TreeSet<?>) td.getDistinctColumnValues(tableName,
-                column);
-          } catch (NullTupleException e) {
-            throw new TrainingDataException("The table contains a null tuple");
+    columns.trim();
+    explanatorySet = columns.buildExplanatorySet();
+    int i = explanatorySet.size();
+    classAttribute = new ContinuousAttribute(columns.getSchema().getColumn(i).getColumnName(), i);
+    numberOfExamples = columns.size();
+    continuousValues = columns.getContinuousValues();
+    discreteCodes = columns.getDiscreteCodes();
+    classValues = columns.getClassValues();
+    weights = null;
+    classSums = null;
+    classSumsOfSquares = null;
+    examples = new int[numberOfExamples];
+    for (int row = 0; row < numberOfExamples; row++) {
+      examples[row] = row;
+    }
+    firstExampleIndex = 0;
+    sortedBy = null;
+  }
 
-          }
-          explanatorySet.add(new DiscreteAttribute(column.getColumnName(), i, discreteValues));
-        }
-      }
-      column = ts.getColumn(i);
-      if (!column.isNumber()) {
-        throw new TrainingDataException(
-            "The attribute corresponding to the last column is not numerical");
-      }
-      classAttribute = new ContinuousAttribute(column.getColumnName(), i);
-      numberOfExamples = data.size();
-      db.closeConnection();
-    } catch (SQLException e) {
-      throw new TrainingDataException(e);
+  /**
+   * Initializes an object of class Data over columns that have already been
+   * read, such as the ones of a snapshot of a table.
+   * 
+   * @param explanatorySet   explanatory attributes of the training set.
+   * @param classAttribute   class attribute of the training set.
+   * @param continuousValues values of the continuous attributes, indexed by
+   *                         attribute index and row.
+   * @param discreteCodes    codes of the values of the discrete attributes,
+   *                         indexed by attribute index and row.
+   * @param classValues      values of the class attribute, indexed by row.
+   * @param sortedExamples   rows sorted by each explanatory attribute, or null
+   *                         if the training set is not presorted.
+   */
+  Data(List<Attribute> explanatorySet, ContinuousAttribute classAttribute,
+      double[][] continuousValues, int[][] discreteCodes, double[] classValues,
+      int[][] sortedExamples) {
+    this(explanatorySet, classAttribute, continuousValues, discreteCodes, classValues, null, null,
+        null, sortedExamples);
+  }
+
+  /**
+   * Initializes an object of class Data over columns that have already been
+   * read, whose rows may be groups of examples.
+   * 
+   * @param explanatorySet     explanatory attributes of the training set.
+   * @param classAttribute     class attribute of the training set.
+   * @param continuousValues   values of the continuous attributes, indexed by
+   *                           attribute index and row.
+   * @param discreteCodes      codes of the values of the discrete attributes,
+   *                           indexed by attribute index and row.
+   * @param classValues        values of the class attribute, indexed by row.
+   * @param weights            number of examples grouped in each row, or null
+   *                           if every row is a single example.
+   * @param classSums          sum of the class values of each row, or null.
+   * @param classSumsOfSquares sum of the squares of the class values of each
+   *                           row, or null.
+   * @param sortedExamples     rows sorted by each explanatory attribute, or null
+   *                           if the training set is not presorted.
+   */
+  private Data(List<Attribute> explanatorySet, ContinuousAttribute classAttribute,
+      double[][] continuousValues, int[][] discreteCodes, double[] classValues,
+      double[] weights, double[] classSums, double[] classSumsOfSquares,
+      int[][] sortedExamples) {
+    this.explanatorySet = explanatorySet;
+    this.classAttribute = classAttribute;
+    this.continuousValues = continuousValues;
+    this.discreteCodes = discreteCodes;
+    this.classValues = classValues;
+    this.weights = weights;
+    this.classSums = classSums;
+    this.classSumsOfSquares = classSumsOfSquares;
+    numberOfExamples = classValues.length;
+    examples = new int[numberOfExamples];
+    for (int row = 0; row < numberOfExamples; row++) {
+      examples[row] = row;
     }
+    firstExampleIndex = 0;
+    sortedBy = null;
+    if (sortedExamples != null) {
+      exampleChildren = new int[numberOfExamples];
+      splitBuffer = new int[numberOfExamples];
+      this.sortedExamples = sortedExamples;
+    }
+  }
+
+  /**
+   * Initializes a view over the examples of the input training set, sharing its
+   * columns but ordering the examples by its own array of rows.
+   * 
+   * @param data              training set the view is built on.
+   * @param examples          rows of the examples covered by the view.
+   * @param firstExampleIndex position of the first example covered by the view.
+   * @param sortedBy          attribute the examples are sorted by.
+   */
+  private Data(Data data, int[] examples, int firstExampleIndex, Attribute sortedBy) {
+    continuousValues = data.continuousValues;
+    discreteCodes = data.discreteCodes;
+    classValues = data.classValues;
+    weights = data.weights;
+    classSums = data.classSums;
+    classSumsOfSquares = data.classSumsOfSquares;
+    exampleWeights = data.exampleWeights;
+    numberOfExamples = data.numberOfExamples;
+    explanatorySet = data.explanatorySet;
+    classAttribute = data.classAttribute;
+    continuousBins = data.continuousBins;
+    binUpperBounds = data.binUpperBounds;
+    this.examples = examples;
+    this.firstExampleIndex = firstExampleIndex;
+    this.sortedBy = sortedBy;
+  }
+
+  /**
+   * Returns a view over the examples in the range
+   * [beginExampleIndex,endExampleIndex] sorted by the input attribute. The view
+   * shares the columns of this training set but has its own ordering of the
+   * examples, so that views over the same range sorted by different attributes
+   * can be read at the same time, while this training set is left untouched.
+   * The examples of the view keep the same indexes they have in this training
+   * set. If the training set is presorted the ordering is copied from the list
+   * of the attribute, else it is sorted.
+   * 
+   * @param attribute         attribute the view is sorted by.
+   * @param beginExampleIndex lower bound of the range.
+   * @param endExampleIndex   upper bound of the range.
+   * @return The view sorted by attribute.
+   */
+  public Data sortedView(Attribute attribute, int beginExampleIndex, int endExampleIndex) {
+    int[] rows = new int[endExampleIndex - beginExampleIndex + 1];
+    if (sortedExamples != null) {
+      System.arraycopy(sortedExamples[attribute.getIndex()], beginExampleIndex, rows, 0,
+          rows.length);
+      return new Data(this, rows, beginExampleIndex, attribute);
+    }
+    System.arraycopy(examples, beginExampleIndex - firstExampleIndex, rows, 0, rows.length);
+    Data view = new Data(this, rows, beginExampleIndex, attribute);
+    view.sortRange(attribute, beginExampleIndex, endExampleIndex);
+    return view;
   }
 
   /**
@@ -139,8 +332,225 @@ public class Data {
    * @param exampleIndex index of the example.
    * @return The value of the class attribute.
    */
-  public Double getClassValue(int exampleIndex) {
-    return (Double) data.get(exampleIndex).get(classAttribute.getIndex());
+  public double getClassValue(int exampleIndex) {
+    return classValues[examples[exampleIndex - firstExampleIndex]];
+  }
+
+  /**
+   * Returns the number of examples grouped in the row indexed by exampleIndex,
+   * times the weight of the row. It is 1 unless the training set has been
+   * aggregated or weighted.
+   * 
+   * @param exampleIndex index of the example.
+   * @return The weight of the example.
+   */
+  public double getWeight(int exampleIndex) {
+    return getRowWeight(examples[exampleIndex - firstExampleIndex]);
+  }
+
+  /**
+   * Returns the total weight of the rows of the range
+   * [beginExampleIndex,endExampleIndex].
+   * 
+   * @param beginExampleIndex lower bound of the range.
+   * @param endExampleIndex   upper bound of the range.
+   * @return The total weight of the range.
+   */
+  public double getWeight(int beginExampleIndex, int endExampleIndex) {
+    if (weights == null && exampleWeights == null) {
+      return endExampleIndex - beginExampleIndex + 1;
+    }
+    double weight = 0;
+    for (int i = beginExampleIndex; i <= endExampleIndex; i++) {
+      weight += getWeight(i);
+    }
+    return weight;
+  }
+
+  /**
+   * Returns the sum of the class values of the examples grouped in the row
+   * indexed by exampleIndex, times the weight of the row. It is the class value
+   * unless the training set has been aggregated or weighted.
+   * 
+   * @param exampleIndex index of the example.
+   * @return The weighted sum of the class values.
+   */
+  public double getClassSum(int exampleIndex) {
+    return getRowClassSum(examples[exampleIndex - firstExampleIndex]);
+  }
+
+  /**
+   * Returns the sum of the squares of the class values of the examples grouped
+   * in the row indexed by exampleIndex, times the weight of the row.
+   * 
+   * @param exampleIndex index of the example.
+   * @return The weighted sum of the squares of the class values.
+   */
+  public double getClassSumOfSquares(int exampleIndex) {
+    return getRowClassSumOfSquares(examples[exampleIndex - firstExampleIndex]);
+  }
+
+  /**
+   * Returns the weight of a row: the number of examples it groups times the
+   * weight set on it.
+   * 
+   * @param row row of the training set.
+   * @return The weight of the row.
+   */
+  private double getRowWeight(int row) {
+    double weight = weights == null ? 1 : weights[row];
+    return exampleWeights == null ? weight : weight * exampleWeights[row];
+  }
+
+  /**
+   * Returns the weighted sum of the class values of the examples of a row.
+   * 
+   * @param row row of the training set.
+   * @return The weighted sum of the class values.
+   */
+  private double getRowClassSum(int row) {
+    double sum = classSums == null ? classValues[row] : classSums[row];
+    return exampleWeights == null ? sum : sum * exampleWeights[row];
+  }
+
+  /**
+   * Returns the weighted sum of the squares of the class values of the
+   * examples of a row.
+   * 
+   * @param row row of the training set.
+   * @return The weighted sum of the squares of the class values.
+   */
+  private double getRowClassSumOfSquares(int row) {
+    double sumOfSquares = classSumsOfSquares == null ? classValues[row] * classValues[row]
+        : classSumsOfSquares[row];
+    return exampleWeights == null ? sumOfSquares : sumOfSquares * exampleWeights[row];
+  }
+
+  /**
+   * Sets the weight of every row of the training set, so that the statistics
+   * of the class values, and so the trees learnt from the training set, count
+   * each row as many times as its weight: a row of weight 0 is ignored and one
+   * of weight 2 counts as if it were duplicated. The weights are copied over
+   * the ones set before, with no allocation after the first call, so that
+   * resampling the training set, as with bootstrap replicas, only needs to
+   * draw new weights. The weights must not be changed while a tree is being
+   * learnt from the training set or from its views.
+   * 
+   * @param rowWeights weight of each row, indexed by row in the order the rows
+   *                   were read or aggregated.
+   * @throws IllegalArgumentException If the number of weights is not the
+   *                                  number of rows, a weight is negative or
+   *                                  not finite, or all of them are 0.
+   */
+  public void setWeights(double[] rowWeights) {
+    if (rowWeights.length != numberOfExamples) {
+      throw new IllegalArgumentException("There must be a weight for each of the "
+          + numberOfExamples + " examples");
+    }
+    double total = 0;
+    for (double weight : rowWeights) {
+      if (!(weight >= 0) || Double.isInfinite(weight)) {
+        throw new IllegalArgumentException("The weights must be finite and non negative");
+      }
+      total += weight;
+    }
+    if (total == 0) {
+      throw new IllegalArgumentException("At least one weight must be positive");
+    }
+    if (exampleWeights == null) {
+      exampleWeights = rowWeights.clone();
+    } else {
+      System.arraycopy(rowWeights, 0, exampleWeights, 0, numberOfExamples);
+    }
+  }
+
+  /**
+   * Removes the weights set by setWeights, so that every row weighs 1 again.
+   */
+  public void clearWeights() {
+    exampleWeights = null;
+  }
+
+  /**
+   * Checks if weights have been set on the rows of the training set.
+   * 
+   * @return True if setWeights has been called since the last clearWeights,
+   *         else False.
+   */
+  public boolean isWeighted() {
+    return exampleWeights != null;
+  }
+
+  /**
+   * Returns a replica of the training set weighted by the input weights, in
+   * place of the ones set on this training set. The replica shares the
+   * columns, the values of the discrete attributes and the bins of this
+   * training set, which it only reads, and has its own ordering of the
+   * examples and its own copy of the presorted lists, so that trees can be
+   * learnt from several replicas at the same time, such as the bootstrap
+   * replicas of a forest, while this training set is left untouched. The
+   * memory of a replica is linear in the number of rows, times the number of
+   * attributes if the training set is presorted, and is released with it, so
+   * callers learning from many replicas should bound how many are alive at
+   * once.
+   * 
+   * @param rowWeights weight of each row, indexed by row.
+   * @return The weighted replica.
+   * @throws IllegalArgumentException If the weights are not valid for
+   *                                  setWeights.
+   */
+  public Data withWeights(double[] rowWeights) {
+    Data replica = new Data(this, examples.clone(), firstExampleIndex, null);
+    replica.exampleWeights = null;
+    replica.setWeights(rowWeights);
+    if (sortedExamples != null) {
+      int[][] sorted = new int[sortedExamples.length][];
+      for (int i = 0; i < sorted.length; i++) {
+        sorted[i] = sortedExamples[i].clone();
+      }
+      replica.exampleChildren = new int[numberOfExamples];
+      replica.splitBuffer = new int[numberOfExamples];
+      replica.sortedExamples = sorted;
+    }
+    return replica;
+  }
+
+  /**
+   * Returns the value of the continuous attribute for the example indexed by
+   * exampleIndex.
+   * 
+   * @param exampleIndex index of the example.
+   * @param attribute    continuous attribute to read.
+   * @return The value of the attribute for the example at index exampleIndex.
+   */
+  public double getContinuous(int exampleIndex, ContinuousAttribute attribute) {
+    return continuousValues[attribute.getIndex()][examples[exampleIndex - firstExampleIndex]];
+  }
+
+  /**
+   * Returns the value of the discrete attribute for the example indexed by
+   * exampleIndex.
+   * 
+   * @param exampleIndex index of the example.
+   * @param attribute    discrete attribute to read.
+   * @return The value of the attribute for the example at index exampleIndex.
+   */
+  public String getDiscrete(int exampleIndex, DiscreteAttribute attribute) {
+    return attribute.getValue(getDiscreteCode(exampleIndex, attribute));
+  }
+
+  /**
+   * Returns the code of the value of the discrete attribute for the example
+   * indexed by exampleIndex. Codes follow the ascending order of the values, so
+   * they can be compared in place of the values themselves.
+   * 
+   * @param exampleIndex index of the example.
+   * @param attribute    discrete attribute to read.
+   * @return The code of the value of the attribute for the example at index
+   *         exampleIndex.
+   */
+  public int getDiscreteCode(int exampleIndex, DiscreteAttribute attribute) {
+    return discreteCodes[attribute.getIndex()][examples[exampleIndex - firstExampleIndex]];
   }
 
   /**
@@ -153,7 +563,12 @@ public class Data {
    *         at index exampleIndex.
    */
   public Object getExplanatoryValue(int exampleIndex, int attributeIndex) {
-    return data.get(exampleIndex).get(attributeIndex);
+    Attribute attribute = explanatorySet.get(attributeIndex);
+    if (attribute instanceof DiscreteAttribute) {
+      return getDiscrete(exampleIndex, (DiscreteAttribute) attribute);
+    } else {
+      return getContinuous(exampleIndex, (ContinuousAttribute) attribute);
+    }
   }
 
   /**
@@ -184,7 +599,9 @@ public class Data {
    * quicksort(Attribute attribute, int inf, int sup), private int
    * partition(DiscreteAttribute attribute, int inf, int sup), private int
    * partition(ContinuousAttribute attribute, int inf, int sup), private void
-   * swap(int i,int j).
+   * swap(int i,int j). If the training set has been presorted, the range is
+   * copied from the presorted list of the attribute instead, and if this is a
+   * view sorted by the attribute nothing is done.
    * 
    * 
    * @param attribute         Attribute used to sort the array
@@ -192,8 +609,484 @@ public class Data {
    * @param endExampleIndex   upper bound of the partition.
    */
   public void sort(Attribute attribute, int beginExampleIndex, int endExampleIndex) {
+    if (attribute == sortedBy) {
+      return;
+    }
+    if (sortedExamples != null) {
+      System.arraycopy(sortedExamples[attribute.getIndex()], beginExampleIndex, examples,
+          beginExampleIndex, endExampleIndex - beginExampleIndex + 1);
+      return;
+    }
+    sortRange(attribute, beginExampleIndex, endExampleIndex);
+  }
 
-    quicksort(attribute, beginExampleIndex, endExampleIndex);
+  /**
+   * Sorts the examples in the range [beginExampleIndex,endExampleIndex] by the
+   * input attribute, with quicksort, or by bin if the training set is
+   * discretized and the attribute is continuous.
+   * 
+   * @param attribute         Attribute used to sort the array
+   * @param beginExampleIndex lower bound of the partition.
+   * @param endExampleIndex   upper bound of the partition.
+   */
+  private void sortRange(Attribute attribute, int beginExampleIndex, int endExampleIndex) {
+    if (continuousBins != null && attribute instanceof ContinuousAttribute) {
+      binSort((ContinuousAttribute) attribute, beginExampleIndex, endExampleIndex);
+    } else {
+      quicksort(attribute, beginExampleIndex, endExampleIndex);
+    }
+  }
+
+  /**
+   * Partitions the examples in the range [beginExampleIndex,endExampleIndex] in
+   * a single pass, so that the examples whose value of the input continuous
+   * attribute is at most threshold come first, or whose bin is at most
+   * threshold if the training set is discretized. Neither side is sorted,
+   * unless this is a view sorted by the attribute, which is left as it is.
+   * 
+   * @param attribute         ContinuousAttribute used to partition the array
+   * @param threshold         greatest value, or bin, of the first side.
+   * @param beginExampleIndex lower bound of the partition.
+   * @param endExampleIndex   upper bound of the partition.
+   * @return The index of the first example above the threshold,
+   *         endExampleIndex + 1 if there is none.
+   */
+  public int partition(ContinuousAttribute attribute, double threshold, int beginExampleIndex,
+      int endExampleIndex) {
+    int i = beginExampleIndex;
+    int j = endExampleIndex;
+    while (i <= j) {
+      double key = continuousBins != null ? getBin(i, attribute) : getContinuous(i, attribute);
+      if (key <= threshold) {
+        i++;
+      } else if (attribute == sortedBy) {
+        break;
+      } else {
+        swap(i, j--);
+      }
+    }
+    return i;
+  }
+
+  /**
+   * Stable sort of the examples in the range [beginExampleIndex,endExampleIndex]
+   * by the bin of the input continuous attribute, in linear time. Examples that
+   * fall in the same bin are not ordered by value.
+   * 
+   * @param attribute         ContinuousAttribute used to sort the array
+   * @param beginExampleIndex lower bound of the partition.
+   * @param endExampleIndex   upper bound of the partition.
+   */
+  private void binSort(ContinuousAttribute attribute, int beginExampleIndex,
+      int endExampleIndex) {
+    int from = beginExampleIndex - firstExampleIndex;
+    int[] rows = Arrays.copyOfRange(examples, from, endExampleIndex - firstExampleIndex + 1);
+    byte[] bins = continuousBins[attribute.getIndex()];
+    int[] offsets = new int[getNumberOfBins(attribute) + 1];
+    for (int row : rows) {
+      offsets[(bins[row] & 0xFF) + 1]++;
+    }
+    for (int i = 1; i < offsets.length; i++) {
+      offsets[i] += offsets[i - 1];
+    }
+    for (int row : rows) {
+      examples[from + offsets[bins[row] & 0xFF]++] = row;
+    }
+  }
+
+  /**
+   * Discretizes every continuous attribute into at most maxBins bins, each one
+   * holding about the same number of examples, and keeps the bin of every
+   * value. An attribute with no more than maxBins distinct values gets a bin
+   * for each value. From then on the continuous splits are searched among the
+   * bin boundaries, using the bins in place of the values, and sorting by a
+   * continuous attribute only groups the examples by bin.
+   * 
+   * @param maxBins maximum number of bins of each attribute, between 2 and
+   *                MAX_BINS.
+   */
+  public void discretize(int maxBins) {
+    if (maxBins < 2 || maxBins > MAX_BINS) {
+      throw new IllegalArgumentException("The number of bins must be between 2 and " + MAX_BINS);
+    }
+    byte[][] bins = new byte[explanatorySet.size()][];
+    double[][] upperBounds = new double[explanatorySet.size()][];
+    for (Attribute attribute : explanatorySet) {
+      if (attribute instanceof ContinuousAttribute) {
+        double[] values = continuousValues[attribute.getIndex()];
+        double[] sortedValues = values.clone();
+        Arrays.sort(sortedValues);
+        double[] bounds = new double[numberOfExamples];
+        int numberOfBins = 0;
+        for (double value : sortedValues) {
+          if (numberOfBins == 0 || Double.compare(value, bounds[numberOfBins - 1]) > 0) {
+            bounds[numberOfBins++] = value;
+          }
+        }
+        if (numberOfBins > maxBins) {
+          numberOfBins = 0;
+          for (int i = 1; i <= maxBins; i++) {
+            double bound = sortedValues[(int) (((long) i * numberOfExamples - 1) / maxBins)];
+            if (numberOfBins == 0 || Double.compare(bound, bounds[numberOfBins - 1]) > 0) {
+              bounds[numberOfBins++] = bound;
+            }
+          }
+        }
+        bounds = Arrays.copyOf(bounds, numberOfBins);
+        byte[] attributeBins = new byte[numberOfExamples];
+        for (int row = 0; row < numberOfExamples; row++) {
+          int bin = Arrays.binarySearch(bounds, values[row]);
+          attributeBins[row] = (byte) (bin >= 0 ? bin : -bin - 1);
+        }
+        bins[attribute.getIndex()] = attributeBins;
+        upperBounds[attribute.getIndex()] = bounds;
+      }
+    }
+    binUpperBounds = upperBounds;
+    continuousBins = bins;
+  }
+
+  /**
+   * Checks if the continuous attributes of the training set have been
+   * discretized.
+   * 
+   * @return True if discretize has been called, else False.
+   */
+  public boolean isDiscretized() {
+    return continuousBins != null;
+  }
+
+  /**
+   * Returns the number of bins the continuous attribute has been discretized
+   * into.
+   * 
+   * @param attribute discretized continuous attribute.
+   * @return Number of bins of the attribute.
+   */
+  public int getNumberOfBins(ContinuousAttribute attribute) {
+    return binUpperBounds[attribute.getIndex()].length;
+  }
+
+  /**
+   * Returns the bin of the continuous attribute for the example indexed by
+   * exampleIndex.
+   * 
+   * @param exampleIndex index of the example.
+   * @param attribute    discretized continuous attribute.
+   * @return The bin of the value of the attribute for the example.
+   */
+  public int getBin(int exampleIndex, ContinuousAttribute attribute) {
+    int row = examples[exampleIndex - firstExampleIndex];
+    return continuousBins[attribute.getIndex()][row] & 0xFF;
+  }
+
+  /**
+   * Returns the greatest value of the continuous attribute that falls in the
+   * input bin. Every value greater than it falls in a following bin.
+   * 
+   * @param attribute discretized continuous attribute.
+   * @param bin       bin of the attribute.
+   * @return The upper bound of the bin.
+   */
+  public double getBinUpperBound(ContinuousAttribute attribute, int bin) {
+    return binUpperBounds[attribute.getIndex()][bin];
+  }
+
+  /**
+   * Sorts, once for all, the whole training set by each explanatory attribute
+   * and keeps the resulting lists of rows. From then on sort no longer sorts,
+   * but copies the list of the attribute, and split keeps the lists aligned
+   * with the children of each node in linear time, so that the examples are
+   * never sorted again while the tree is learnt.
+   */
+  public void presort() {
+    int[][] sorted = new int[explanatorySet.size()][];
+    int[] buffer = new int[numberOfExamples];
+    for (Attribute attribute : explanatorySet) {
+      int[] rows = examples.clone();
+      if (attribute instanceof DiscreteAttribute) {
+        countingSort(rows, buffer, discreteCodes[attribute.getIndex()],
+            ((DiscreteAttribute) attribute).getNumberOfDistinctValues());
+      } else {
+        mergeSort(rows, buffer, continuousValues[attribute.getIndex()]);
+      }
+      sorted[attribute.getIndex()] = rows;
+    }
+    exampleChildren = new int[numberOfExamples];
+    splitBuffer = buffer;
+    sortedExamples = sorted;
+  }
+
+  /**
+   * Returns a training set holding a row for each distinct combination of the
+   * explanatory values of this one. Each row keeps the number of examples it
+   * groups, with the sum and the sum of squares of their class values, and its
+   * class value is their mean, so that the SSE of any subset of the examples
+   * is the same as the one of the rows grouping them. If the training set is
+   * weighted, the statistics of each row are weighted, and the result is not.
+   * The rows are in the order in which their explanatory values first appear,
+   * and the result is presorted if this training set is.
+   * 
+   * @return The aggregated training set.
+   */
+  public Data aggregate() {
+    int[] table = new int[Integer.highestOneBit(Math.max(1, numberOfExamples)) * 4];
+    int mask = table.length - 1;
+    int[] groupRows = new int[numberOfExamples];
+    int[] groupHashes = new int[numberOfExamples];
+    double[] groupWeights = new double[numberOfExamples];
+    double[] groupSums = new double[numberOfExamples];
+    double[] groupSumsOfSquares = new double[numberOfExamples];
+    int numberOfGroups = 0;
+    for (int row = 0; row < numberOfExamples; row++) {
+      int hash = hashExplanatoryValues(row);
+      int slot = (hash ^ (hash >>> 16)) & mask;
+      int group = -1;
+      while (table[slot] != 0) {
+        int candidate = table[slot] - 1;
+        if (groupHashes[candidate] == hash && sameExplanatoryValues(groupRows[candidate], row)) {
+          group = candidate;
+          break;
+        }
+        slot = (slot + 1) & mask;
+      }
+      if (group == -1) {
+        group = numberOfGroups++;
+        table[slot] = group + 1;
+        groupRows[group] = row;
+        groupHashes[group] = hash;
+      }
+      groupWeights[group] += getRowWeight(row);
+      groupSums[group] += getRowClassSum(row);
+      groupSumsOfSquares[group] += getRowClassSumOfSquares(row);
+    }
+
+    double[][] groupValues = new double[continuousValues.length][];
+    int[][] groupCodes = new int[discreteCodes.length][];
+    for (Attribute attribute : explanatorySet) {
+      int index = attribute.getIndex();
+      if (attribute instanceof DiscreteAttribute) {
+        groupCodes[index] = new int[numberOfGroups];
+        for (int group = 0; group < numberOfGroups; group++) {
+          groupCodes[index][group] = discreteCodes[index][groupRows[group]];
+        }
+      } else {
+        groupValues[index] = new double[numberOfGroups];
+        for (int group = 0; group < numberOfGroups; group++) {
+          groupValues[index][group] = continuousValues[index][groupRows[group]];
+        }
+      }
+    }
+    double[] groupClassValues = new double[numberOfGroups];
+    for (int group = 0; group < numberOfGroups; group++) {
+      groupClassValues[group] = groupWeights[group] == 0 ? classValues[groupRows[group]]
+          : groupSums[group] / groupWeights[group];
+    }
+    Data aggregated = new Data(explanatorySet, classAttribute, groupValues, groupCodes,
+        groupClassValues, Arrays.copyOf(groupWeights, numberOfGroups),
+        Arrays.copyOf(groupSums, numberOfGroups), Arrays.copyOf(groupSumsOfSquares, numberOfGroups),
+        null);
+    if (sortedExamples != null) {
+      aggregated.presort();
+    }
+    return aggregated;
+  }
+
+  /**
+   * Returns the number of examples grouped in a row, not counting the weight
+   * set on it.
+   * 
+   * @param row row of the training set, in the order the rows were read or
+   *            aggregated, as the weights given to setWeights.
+   * @return The number of examples of the row, 1 unless the training set has
+   *         been aggregated.
+   */
+  public double getGroupSize(int row) {
+    return weights == null ? 1 : weights[row];
+  }
+
+  /**
+   * Checks if the rows of the training set are groups of examples.
+   * 
+   * @return True if aggregate has built the training set, else False.
+   */
+  public boolean isAggregated() {
+    return weights != null;
+  }
+
+  /**
+   * Computes a hash of the explanatory values of a row.
+   * 
+   * @param row row of the training set.
+   * @return The hash of the explanatory values.
+   */
+  private int hashExplanatoryValues(int row) {
+    int hash = 1;
+    for (int i = 0; i < continuousValues.length; i++) {
+      hash = 31 * hash + (discreteCodes[i] != null ? discreteCodes[i][row]
+          : Double.hashCode(continuousValues[i][row]));
+    }
+    return hash;
+  }
+
+  /**
+   * Checks if two rows have the same explanatory values.
+   * 
+   * @param row   row of the training set.
+   * @param other other row of the training set.
+   * @return True if all the explanatory values are the same, else False.
+   */
+  private boolean sameExplanatoryValues(int row, int other) {
+    for (int i = 0; i < continuousValues.length; i++) {
+      if (discreteCodes[i] != null ? discreteCodes[i][row] != discreteCodes[i][other]
+          : Double.compare(continuousValues[i][row], continuousValues[i][other]) != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Checks if the training set has been presorted.
+   * 
+   * @return True if presort has been called, else False.
+   */
+  public boolean isPresorted() {
+    return sortedExamples != null;
+  }
+
+  /**
+   * Returns the column of the values of a continuous attribute, indexed by row.
+   * 
+   * @param attribute continuous attribute.
+   * @return The values of the attribute.
+   */
+  double[] getContinuousColumn(ContinuousAttribute attribute) {
+    return continuousValues[attribute.getIndex()];
+  }
+
+  /**
+   * Returns the column of the codes of a discrete attribute, indexed by row.
+   * 
+   * @param attribute discrete attribute.
+   * @return The codes of the values of the attribute.
+   */
+  int[] getDiscreteColumn(DiscreteAttribute attribute) {
+    return discreteCodes[attribute.getIndex()];
+  }
+
+  /**
+   * Returns the column of the values of the class attribute, indexed by row.
+   * 
+   * @return The values of the class attribute.
+   */
+  double[] getClassColumn() {
+    return classValues;
+  }
+
+  /**
+   * Returns the rows of the training set sorted by an explanatory attribute, as
+   * computed by presort.
+   * 
+   * @param attribute explanatory attribute.
+   * @return The sorted rows, or null if the training set is not presorted.
+   */
+  int[] getPresortedRows(Attribute attribute) {
+    return sortedExamples == null ? null : sortedExamples[attribute.getIndex()];
+  }
+
+  /**
+   * Stable sort of the rows by the code of a discrete attribute.
+   * 
+   * @param rows           rows to sort.
+   * @param buffer         support array as long as rows.
+   * @param codes          codes of the attribute, indexed by row.
+   * @param numberOfValues number of distinct codes.
+   */
+  private static void countingSort(int[] rows, int[] buffer, int[] codes, int numberOfValues) {
+    int[] offsets = new int[numberOfValues + 1];
+    for (int row : rows) {
+      offsets[codes[row] + 1]++;
+    }
+    for (int i = 0; i < numberOfValues; i++) {
+      offsets[i + 1] += offsets[i];
+    }
+    for (int row : rows) {
+      buffer[offsets[codes[row]]++] = row;
+    }
+    System.arraycopy(buffer, 0, rows, 0, rows.length);
+  }
+
+  /**
+   * Stable bottom-up merge sort of the rows by the value of a continuous
+   * attribute.
+   * 
+   * @param rows   rows to sort.
+   * @param buffer support array as long as rows.
+   * @param values values of the attribute, indexed by row.
+   */
+  private static void mergeSort(int[] rows, int[] buffer, double[] values) {
+    int[] from = rows;
+    int[] to = buffer;
+    for (int width = 1; width < rows.length; width *= 2) {
+      for (int low = 0; low < rows.length; low += 2 * width) {
+        int middle = Math.min(low + width, rows.length);
+        int high = Math.min(low + 2 * width, rows.length);
+        int i = low;
+        int j = middle;
+        for (int k = low; k < high; k++) {
+          if (j >= high || (i < middle && Double.compare(values[from[i]], values[from[j]]) <= 0)) {
+            to[k] = from[i++];
+          } else {
+            to[k] = from[j++];
+          }
+        }
+      }
+      int[] temp = from;
+      from = to;
+      to = temp;
+    }
+    if (from != rows) {
+      System.arraycopy(from, 0, rows, 0, rows.length);
+    }
+  }
+
+  /**
+   * Partitions the examples in the range [beginExampleIndex,endExampleIndex],
+   * that has just been sorted by the attribute chosen for the split, among the
+   * children of the split. Each child covers a contiguous range of examples,
+   * starting at the corresponding index of childBeginIndexes. The presorted
+   * list of every attribute is stably partitioned in the same way, so that each
+   * child range stays sorted by every attribute. Does nothing if the training
+   * set has not been presorted.
+   * 
+   * @param beginExampleIndex lower bound of the range.
+   * @param endExampleIndex   upper bound of the range.
+   * @param childBeginIndexes index of the first example of each child, in
+   *                          ascending order, the first one being
+   *                          beginExampleIndex.
+   */
+  public void split(int beginExampleIndex, int endExampleIndex, int[] childBeginIndexes) {
+    if (sortedExamples == null) {
+      return;
+    }
+    int numberOfChildren = childBeginIndexes.length;
+    for (int child = 0; child < numberOfChildren; child++) {
+      int childEnd = child + 1 < numberOfChildren ? childBeginIndexes[child + 1] - 1
+          : endExampleIndex;
+      for (int i = childBeginIndexes[child]; i <= childEnd; i++) {
+        exampleChildren[examples[i]] = child;
+      }
+    }
+    int[] offsets = new int[numberOfChildren];
+    for (int[] rows : sortedExamples) {
+      System.arraycopy(childBeginIndexes, 0, offsets, 0, numberOfChildren);
+      for (int i = beginExampleIndex; i <= endExampleIndex; i++) {
+        splitBuffer[offsets[exampleChildren[rows[i]]]++] = rows[i];
+      }
+      System.arraycopy(splitBuffer, beginExampleIndex, rows, beginExampleIndex,
+          endExampleIndex - beginExampleIndex + 1);
+    }
   }
 
   /**
@@ -203,7 +1096,9 @@ public class Data {
    * @param j index of the example to swap
    */
   private void swap(int i, int j) {
-    Collections.swap(data, i, j);
+    int temp = examples[i - firstExampleIndex];
+    examples[i - firstExampleIndex] = examples[j - firstExampleIndex];
+    examples[j - firstExampleIndex] = temp;
   }
 
   /**
@@ -223,19 +1118,17 @@ public class Data {
     i = inf;
     j = sup;
     int med = (inf + sup) / 2;
-    int temp = attribute.getIndex();
-    String x = (String) getExplanatoryValue(med, temp);
+    int x = getDiscreteCode(med, attribute);
     swap(inf, med);
 
     while (true) {
 
-      while (i <= sup
-          && ((String) getExplanatoryValue(i, attribute.getIndex())).compareTo(x) <= 0) {
+      while (i <= sup && getDiscreteCode(i, attribute) <= x) {
         i++;
 
       }
 
-      while (((String) getExplanatoryValue(j, attribute.getIndex())).compareTo(x) > 0) {
+      while (getDiscreteCode(j, attribute) > x) {
         j--;
 
       }
@@ -268,20 +1161,17 @@ public class Data {
     i = inf;
     j = sup;
     int med = (inf + sup) / 2;
-    int temp = attribute.getIndex();
-    Object tempO = getExplanatoryValue(med, temp);
-    Double x = (Double) tempO;
+    double x = getContinuous(med, attribute);
     swap(inf, med);
 
     while (true) {
 
-      while (i <= sup
-          && ((Double) getExplanatoryValue(i, attribute.getIndex())).compareTo(x) <= 0) {
+      while (i <= sup && Double.compare(getContinuous(i, attribute), x) <= 0) {
         i++;
 
       }
 
-      while (((Double) getExplanatoryValue(j, attribute.getIndex())).compareTo(x) > 0) {
+      while (Double.compare(getContinuous(j, attribute), x) > 0) {
         j--;
 
       }
@@ -335,10 +1225,10 @@ public class Data {
     StringBuilder value = new StringBuilder();
     for (int i = 0; i < numberOfExamples; i++) {
       for (int j = 0; j < explanatorySet.size(); j++) {
-        value.append(data.get(i).get(j) + ",");
+        value.append(getExplanatoryValue(i, j) + ",");
       }
 
-      value.append(data.get(i).get(explanatorySet.size()) + "\n");
+      value.append(getClassValue(i) + "\n");
     }
     return value.toString();
   }
@@ -1,5 +1,6 @@
 package data;
 
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.Set;
 
@@ -12,9 +13,10 @@ import java.util.Set;
 @SuppressWarnings("serial")
 public class DiscreteAttribute extends Attribute implements Iterable<String> {
   /**
-   * Set of all the discrete values that the attribute might assume.
+   * All the discrete values that the attribute might assume, in ascending order.
+   * The position of a value in this array is its code.
    */
-  private final Set<String> values;
+  private final String[] values;
 
   /**
    * Initializes the attribute values with the input set, then initializes the
@@ -26,7 +28,8 @@ public class DiscreteAttribute extends Attribute implements Iterable<String> {
    */
   DiscreteAttribute(String name, int index, Set<String> values) {
     super(name, index);
-    this.values = values;
+    this.values = values.toArray(new String[0]);
+    Arrays.sort(this.values);
   }
 
   /**
@@ -35,12 +38,34 @@ public class DiscreteAttribute extends Attribute implements Iterable<String> {
    * @return size of the attribute values
    */
   public int getNumberOfDistinctValues() {
-    return values.size();
+    return values.length;
+  }
+
+  /**
+   * Returns the code of the input value, that is its position in the ordered set
+   * of values of the attribute.
+   * 
+   * @param value value of the attribute.
+   * @return code of the value, or a negative number if the attribute can't
+   *         assume the value.
+   */
+  public int getCode(String value) {
+    return Arrays.binarySearch(values, value);
+  }
+
+  /**
+   * Returns the value associated with the input code.
+   * 
+   * @param code code of the value.
+   * @return value of the attribute with the given code.
+   */
+  public String getValue(int code) {
+    return values[code];
   }
 
   @Override
   public Iterator<String> iterator() {
-    return values.iterator();
+    return Arrays.asList(values).iterator();
   }
 
 }
\ No newline at end of file
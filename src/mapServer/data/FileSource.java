@@ -0,0 +1,709 @@
+package data;
+
+import database.TableSchema;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+
+/**
+ * Source reading the training examples from a local delimited text file, such
+ * as a CSV extract of a table. The first line holds the names of the columns,
+ * and every other non blank line an example. The type of a column can be given
+ * by appending NUMBER_SUFFIX or STRING_SUFFIX to its name, else the column is
+ * numerical if its value in the first example is a number. Values can be
+ * enclosed in double quotes, but can't contain the separator. The file is
+ * read as UTF-8, and the separator must be an ASCII character.
+ * 
+ * @author Fabio
+ *
+ */
+public class FileSource extends TrainingSource {
+  /**
+   * Separator used when none is given.
+   */
+  public static final char DEFAULT_SEPARATOR = ',';
+  /**
+   * Suffix of the name of a column declared numerical.
+   */
+  public static final String NUMBER_SUFFIX = ":number";
+  /**
+   * Suffix of the name of a column declared not numerical.
+   */
+  public static final String STRING_SUFFIX = ":string";
+  /**
+   * Bytes the UTF-8 files may start with.
+   */
+  private static final byte[] BYTE_ORDER_MARK = {(byte) 0xef, (byte) 0xbb, (byte) 0xbf};
+  /**
+   * Smallest number of bytes worth parsing by a separate thread.
+   */
+  private static final long MIN_CHUNK_SIZE = 1 << 20;
+  /**
+   * Largest number of bytes mapped at once.
+   */
+  private static final long MAX_CHUNK_SIZE = 1 << 30;
+  /**
+   * Number of chunks the file is split into for each thread, so that the
+   * threads finishing early can take the chunks left.
+   */
+  private static final int CHUNKS_PER_THREAD = 4;
+  /**
+   * Number of bytes read at once while looking for the end of a line.
+   */
+  private static final int SCAN_BUFFER_SIZE = 1 << 16;
+  /**
+   * Largest number of significant digits of a number parsed in place.
+   */
+  private static final int MAX_FAST_DIGITS = 18;
+  /**
+   * Largest decimal exponent of a number parsed in place.
+   */
+  private static final int MAX_FAST_EXPONENT = 22;
+  /**
+   * Powers of ten up to MAX_FAST_EXPONENT, all exactly representable.
+   */
+  private static final double[] POWERS_OF_TEN = new double[MAX_FAST_EXPONENT + 1];
+
+  static {
+    POWERS_OF_TEN[0] = 1;
+    for (int i = 1; i <= MAX_FAST_EXPONENT; i++) {
+      POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+    }
+  }
+
+  /**
+   * Path of the file.
+   */
+  private final Path path;
+  /**
+   * Character separating the values of a line.
+   */
+  private final char separator;
+  /**
+   * Number of threads parsing the file.
+   */
+  private final int parallelism;
+
+  /**
+   * Initializes the attributes path, separator and parallelism.
+   * 
+   * @param path        Path of the file.
+   * @param separator   Character separating the values of a line.
+   * @param parallelism Number of threads parsing the file.
+   */
+  public FileSource(Path path, char separator, int parallelism) {
+    this.path = path;
+    this.separator = separator;
+    this.parallelism = Math.max(1, parallelism);
+  }
+
+  /**
+   * Initializes a source parsing the file with one thread for each available
+   * processor.
+   * 
+   * @param path      Path of the file.
+   * @param separator Character separating the values of a line.
+   */
+  public FileSource(Path path, char separator) {
+    this(path, separator, Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Initializes a source reading a file whose values are separated by
+   * DEFAULT_SEPARATOR.
+   * 
+   * @param path Path of the file.
+   */
+  public FileSource(Path path) {
+    this(path, DEFAULT_SEPARATOR);
+  }
+
+  /**
+   * Returns a source reading a file of a directory, making sure that the name
+   * of the file does not lead outside of the directory.
+   * 
+   * @param directory Directory holding the file.
+   * @param fileName  Name of the file, relative to the directory.
+   * @return The source reading the file.
+   * @throws TrainingDataException If the file is outside of the directory.
+   */
+  public static FileSource inDirectory(Path directory, String fileName)
+      throws TrainingDataException {
+    Path root = directory.toAbsolutePath().normalize();
+    Path file = root.resolve(fileName).normalize();
+    if (!file.startsWith(root) || file.equals(root)) {
+      throw new TrainingDataException("The file is not in the data directory");
+    }
+    return new FileSource(file);
+  }
+
+  /**
+   * Reads all the examples of the file. The header and the first example are
+   * read to find the types of the columns, then the rest of the file is split
+   * into chunks on line boundaries, each one mapped in memory and parsed into
+   * its own columns by a separate thread. The chunks are merged in the order
+   * they appear in the file.
+   */
+  @Override
+  ColumnBuilder read() throws TrainingDataException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      long size = channel.size();
+      long begin = startsWithByteOrderMark(channel) ? BYTE_ORDER_MARK.length : 0;
+      if (begin >= size) {
+        throw new TrainingDataException("The file is empty");
+      }
+      long headerEnd = findLineEnd(channel, begin);
+      String[] names = split(readString(channel, begin, headerEnd));
+
+      long firstLine = headerEnd + 1;
+      long firstLineEnd = findLineEnd(channel, firstLine);
+      String line = readString(channel, firstLine, firstLineEnd);
+      while (line.isBlank() && firstLineEnd < size) {
+        firstLine = firstLineEnd + 1;
+        firstLineEnd = findLineEnd(channel, firstLine);
+        line = readString(channel, firstLine, firstLineEnd);
+      }
+      if (line.isBlank()) {
+        throw new TrainingDataException("There are no examples in this table");
+      }
+
+      String[] fields = split(line);
+      boolean[] numerical = new boolean[names.length];
+      for (int i = 0; i < names.length; i++) {
+        if (names[i].endsWith(NUMBER_SUFFIX)) {
+          names[i] = names[i].substring(0, names[i].length() - NUMBER_SUFFIX.length());
+          numerical[i] = true;
+        } else if (names[i].endsWith(STRING_SUFFIX)) {
+          names[i] = names[i].substring(0, names[i].length() - STRING_SUFFIX.length());
+          numerical[i] = false;
+        } else {
+          numerical[i] = i < fields.length && isNumber(fields[i]);
+        }
+      }
+      TableSchema ts = new TableSchema(names, numerical);
+      checkSchema(ts);
+
+      return parseInParallel(channel, split(channel, firstLine, size), ts);
+    } catch (NoSuchFileException e) {
+      throw new TrainingDataException("The file does not exist");
+    } catch (IOException e) {
+      throw new TrainingDataException(e);
+    }
+  }
+
+  /**
+   * Splits a range of the file into chunks of about the same size ending on
+   * line boundaries, at least one for each thread and no longer than
+   * MAX_CHUNK_SIZE, unless the range is shorter than MIN_CHUNK_SIZE.
+   * 
+   * @param channel channel of the file.
+   * @param begin   position of the first byte of the range.
+   * @param end     position after the last byte of the range.
+   * @return The positions of the bounds of the chunks, in ascending order.
+   * @throws IOException If there are problems reading the file.
+   */
+  private long[] split(FileChannel channel, long begin, long end) throws IOException {
+    long length = end - begin;
+    long numberOfChunks = Math.min(CHUNKS_PER_THREAD * (long) parallelism,
+        length / MIN_CHUNK_SIZE);
+    numberOfChunks = Math.max(numberOfChunks, (length + MAX_CHUNK_SIZE - 1) / MAX_CHUNK_SIZE);
+    numberOfChunks = Math.max(numberOfChunks, 1);
+
+    long[] bounds = new long[(int) numberOfChunks + 1];
+    bounds[0] = begin;
+    for (int k = 1; k < numberOfChunks; k++) {
+      long position = Math.max(begin + length * k / numberOfChunks, bounds[k - 1]);
+      bounds[k] = Math.min(findLineEnd(channel, position) + 1, end);
+    }
+    bounds[(int) numberOfChunks] = end;
+    return bounds;
+  }
+
+  /**
+   * Parses each chunk of the file into its own columns, using parallelism
+   * threads, and merges the columns in the order of the chunks.
+   * 
+   * @param channel channel of the file.
+   * @param bounds  positions of the bounds of the chunks.
+   * @param ts      schema of the file.
+   * @return The columns holding all the examples of the file.
+   * @throws TrainingDataException If a chunk can't be read or parsed.
+   */
+  private ColumnBuilder parseInParallel(FileChannel channel, long[] bounds, TableSchema ts)
+      throws TrainingDataException {
+    ExecutorService executor = Executors.newFixedThreadPool(
+        Math.min(parallelism, bounds.length - 1));
+    try {
+      List<Future<ColumnBuilder>> parts = new ArrayList<>();
+      for (int k = 0; k < bounds.length - 1; k++) {
+        long begin = bounds[k];
+        long end = bounds[k + 1];
+        parts.add(executor.submit(() -> parseChunk(channel, begin, end, ts)));
+      }
+      int numberOfExamples = 0;
+      for (Future<ColumnBuilder> part : parts) {
+        numberOfExamples += part.get().size();
+      }
+      ColumnBuilder columns = new ColumnBuilder(ts, numberOfExamples);
+      for (Future<ColumnBuilder> part : parts) {
+        columns.append(part.get());
+      }
+      return columns;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new TrainingDataException(e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof TrainingDataException) {
+        throw (TrainingDataException) e.getCause();
+      }
+      throw new TrainingDataException(e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Parses the lines of a chunk of the file into new columns. The chunk is
+   * mapped in memory and read byte by byte: numbers are parsed in place and
+   * written to the columns, and a string is created only the first time a value
+   * of a non numerical column is met.
+   * 
+   * @param channel channel of the file.
+   * @param begin   position of the first byte of the chunk.
+   * @param end     position after the last byte of the chunk.
+   * @param ts      schema of the file.
+   * @return The columns holding the examples of the chunk.
+   * @throws IOException           If the chunk can't be mapped.
+   * @throws TrainingDataException If a line of the chunk is not a valid example.
+   */
+  private ColumnBuilder parseChunk(FileChannel channel, long begin, long end, TableSchema ts)
+      throws IOException, TrainingDataException {
+    ByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, begin, end - begin);
+    int numberOfColumns = ts.getNumberOfAttributes();
+    ColumnBuilder columns = new ColumnBuilder(ts);
+    ValueDictionary[] dictionaries = new ValueDictionary[numberOfColumns];
+    for (int i = 0; i < numberOfColumns; i++) {
+      if (!ts.getColumn(i).isNumber()) {
+        dictionaries[i] = new ValueDictionary(columns, i);
+      }
+    }
+    double[] numbers = new double[numberOfColumns];
+    int[] codes = new int[numberOfColumns];
+
+    int limit = chunk.limit();
+    int lineBegin = 0;
+    while (lineBegin < limit) {
+      int lineEnd = lineBegin;
+      while (lineEnd < limit && chunk.get(lineEnd) != '\n') {
+        lineEnd++;
+      }
+      if (!isBlank(chunk, lineBegin, lineEnd)) {
+        int fieldBegin = lineBegin;
+        for (int i = 0; i < numberOfColumns; i++) {
+          int fieldEnd = fieldBegin;
+          while (fieldEnd < lineEnd && chunk.get(fieldEnd) != separator) {
+            fieldEnd++;
+          }
+          if (fieldEnd == lineEnd && i < numberOfColumns - 1
+              || fieldEnd < lineEnd && i == numberOfColumns - 1) {
+            throw new TrainingDataException("A line of the file has "
+                + countValues(chunk, lineBegin, lineEnd) + " values instead of "
+                + numberOfColumns);
+          }
+
+          int valueBegin = fieldBegin;
+          int valueEnd = fieldEnd;
+          while (valueBegin < valueEnd && isSpace(chunk.get(valueBegin))) {
+            valueBegin++;
+          }
+          while (valueEnd > valueBegin && isSpace(chunk.get(valueEnd - 1))) {
+            valueEnd--;
+          }
+          if (valueEnd - valueBegin >= 2 && chunk.get(valueBegin) == '"'
+              && chunk.get(valueEnd - 1) == '"') {
+            valueBegin++;
+            valueEnd--;
+          }
+          if (valueBegin == valueEnd) {
+            throw new TrainingDataException("The table contains a null tuple");
+          }
+
+          if (dictionaries[i] == null) {
+            try {
+              numbers[i] = parseNumber(chunk, valueBegin, valueEnd);
+            } catch (NumberFormatException e) {
+              throw new TrainingDataException("The file has a non numerical value in column "
+                  + ts.getColumn(i).getColumnName());
+            }
+          } else {
+            codes[i] = dictionaries[i].encode(chunk, valueBegin, valueEnd);
+          }
+          fieldBegin = fieldEnd + 1;
+        }
+        columns.append(numbers, codes);
+      }
+      lineBegin = lineEnd + 1;
+    }
+    return columns;
+  }
+
+  /**
+   * Parses a decimal number stored as ASCII bytes. Numbers with at most 18
+   * significant digits and a decimal exponent between -22 and 22 are parsed in
+   * place with a single correctly rounded operation, the others by
+   * Double.parseDouble, so that the result is always the same as the one of
+   * Double.parseDouble.
+   * 
+   * @param bytes buffer holding the number.
+   * @param begin position of the first byte of the number.
+   * @param end   position after the last byte of the number.
+   * @return The value of the number.
+   * @throws NumberFormatException If the bytes are not a number.
+   */
+  private static double parseNumber(ByteBuffer bytes, int begin, int end) {
+    int i = begin;
+    boolean negative = false;
+    if (bytes.get(i) == '-' || bytes.get(i) == '+') {
+      negative = bytes.get(i) == '-';
+      i++;
+    }
+    long mantissa = 0;
+    int digits = 0;
+    int exponent = 0;
+    boolean fast = true;
+    boolean anyDigit = false;
+    boolean fraction = false;
+    for (; i < end; i++) {
+      byte b = bytes.get(i);
+      if (b >= '0' && b <= '9') {
+        anyDigit = true;
+        if (mantissa != 0 || b != '0') {
+          digits++;
+        }
+        if (digits > MAX_FAST_DIGITS) {
+          fast = false;
+          break;
+        }
+        mantissa = mantissa * 10 + (b - '0');
+        if (fraction) {
+          exponent--;
+        }
+      } else if (b == '.' && !fraction) {
+        fraction = true;
+      } else {
+        break;
+      }
+    }
+    if (fast && anyDigit && i < end && (bytes.get(i) == 'e' || bytes.get(i) == 'E')) {
+      i++;
+      boolean negativeExponent = false;
+      if (i < end && (bytes.get(i) == '-' || bytes.get(i) == '+')) {
+        negativeExponent = bytes.get(i) == '-';
+        i++;
+      }
+      int value = 0;
+      int exponentDigits = 0;
+      for (; i < end && bytes.get(i) >= '0' && bytes.get(i) <= '9' && value < 1000; i++) {
+        value = value * 10 + (bytes.get(i) - '0');
+        exponentDigits++;
+      }
+      fast = exponentDigits > 0;
+      exponent += negativeExponent ? -value : value;
+    }
+    if (fast && anyDigit && i == end && exponent >= -MAX_FAST_EXPONENT
+        && exponent <= MAX_FAST_EXPONENT && mantissa < 1L << 53) {
+      double value = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent]
+          : mantissa * POWERS_OF_TEN[exponent];
+      return negative ? -value : value;
+    }
+
+    byte[] text = new byte[end - begin];
+    bytes.get(begin, text);
+    return Double.parseDouble(new String(text, StandardCharsets.US_ASCII));
+  }
+
+  /**
+   * Codes the values of a non numerical column of a chunk by their bytes, so
+   * that a string is created only the first time a value is met.
+   */
+  private static class ValueDictionary {
+    /**
+     * Columns the codes are assigned by.
+     */
+    private final ColumnBuilder columns;
+    /**
+     * Index of the column.
+     */
+    private final int column;
+    /**
+     * Open addressing hash table holding the index of each entry plus one, 0
+     * for the empty slots. Its length is a power of two.
+     */
+    private int[] table = new int[64];
+    /**
+     * Bytes of the value of each entry.
+     */
+    private byte[][] keys = new byte[32][];
+    /**
+     * Hash of the value of each entry.
+     */
+    private int[] hashes = new int[32];
+    /**
+     * Code of the value of each entry.
+     */
+    private int[] codes = new int[32];
+    /**
+     * Number of entries.
+     */
+    private int size = 0;
+
+    /**
+     * Initializes an empty dictionary for a column.
+     * 
+     * @param columns columns the codes are assigned by.
+     * @param column  index of the column.
+     */
+    ValueDictionary(ColumnBuilder columns, int column) {
+      this.columns = columns;
+      this.column = column;
+    }
+
+    /**
+     * Returns the code of a value, assigning one if it's met for the first
+     * time.
+     * 
+     * @param bytes buffer holding the value.
+     * @param begin position of the first byte of the value.
+     * @param end   position after the last byte of the value.
+     * @return The code of the value.
+     */
+    int encode(ByteBuffer bytes, int begin, int end) {
+      int hash = 0;
+      for (int i = begin; i < end; i++) {
+        hash = 31 * hash + bytes.get(i);
+      }
+      int mask = table.length - 1;
+      int slot = (hash ^ (hash >>> 16)) & mask;
+      while (table[slot] != 0) {
+        int entry = table[slot] - 1;
+        if (hashes[entry] == hash && equals(keys[entry], bytes, begin, end)) {
+          return codes[entry];
+        }
+        slot = (slot + 1) & mask;
+      }
+
+      byte[] key = new byte[end - begin];
+      bytes.get(begin, key);
+      if (size == keys.length) {
+        keys = Arrays.copyOf(keys, 2 * size);
+        hashes = Arrays.copyOf(hashes, 2 * size);
+        codes = Arrays.copyOf(codes, 2 * size);
+      }
+      keys[size] = key;
+      hashes[size] = hash;
+      codes[size] = columns.encode(column, new String(key, StandardCharsets.UTF_8));
+      table[slot] = ++size;
+      if (2 * size > table.length) {
+        rehash();
+      }
+      return codes[size - 1];
+    }
+
+    /**
+     * Doubles the hash table.
+     */
+    private void rehash() {
+      table = new int[2 * table.length];
+      int mask = table.length - 1;
+      for (int entry = 0; entry < size; entry++) {
+        int slot = (hashes[entry] ^ (hashes[entry] >>> 16)) & mask;
+        while (table[slot] != 0) {
+          slot = (slot + 1) & mask;
+        }
+        table[slot] = entry + 1;
+      }
+    }
+
+    /**
+     * Checks if the bytes of a key are the same as the bytes of a range of a
+     * buffer.
+     * 
+     * @param key   bytes of the key.
+     * @param bytes buffer.
+     * @param begin position of the first byte of the range.
+     * @param end   position after the last byte of the range.
+     * @return True if the bytes are the same, else False.
+     */
+    private static boolean equals(byte[] key, ByteBuffer bytes, int begin, int end) {
+      if (key.length != end - begin) {
+        return false;
+      }
+      for (int i = 0; i < key.length; i++) {
+        if (key[i] != bytes.get(begin + i)) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+
+  /**
+   * Checks if the file starts with the UTF-8 byte order mark.
+   * 
+   * @param channel channel of the file.
+   * @return True if the file starts with the byte order mark, else False.
+   * @throws IOException If there are problems reading the file.
+   */
+  private static boolean startsWithByteOrderMark(FileChannel channel) throws IOException {
+    ByteBuffer start = ByteBuffer.allocate(BYTE_ORDER_MARK.length);
+    while (start.hasRemaining() && channel.read(start, start.position()) > 0) {
+    }
+    return Arrays.equals(start.array(), BYTE_ORDER_MARK);
+  }
+
+  /**
+   * Finds the end of the line holding a position of the file.
+   * 
+   * @param channel  channel of the file.
+   * @param position position in the file.
+   * @return The position of the line feed ending the line, or the size of the
+   *         file if the line is the last one.
+   * @throws IOException If there are problems reading the file.
+   */
+  private static long findLineEnd(FileChannel channel, long position) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+    long offset = position;
+    while (true) {
+      buffer.clear();
+      int read = channel.read(buffer, offset);
+      if (read <= 0) {
+        return Math.max(position, channel.size());
+      }
+      for (int i = 0; i < read; i++) {
+        if (buffer.get(i) == '\n') {
+          return offset + i;
+        }
+      }
+      offset += read;
+    }
+  }
+
+  /**
+   * Reads a range of the file as a UTF-8 string, without the final carriage
+   * return if any.
+   * 
+   * @param channel channel of the file.
+   * @param begin   position of the first byte of the range.
+   * @param end     position after the last byte of the range.
+   * @return The content of the range.
+   * @throws IOException If there are problems reading the file.
+   */
+  private static String readString(FileChannel channel, long begin, long end)
+      throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate((int) Math.max(0, end - begin));
+    while (buffer.hasRemaining() && channel.read(buffer, begin + buffer.position()) > 0) {
+    }
+    String line = new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8);
+    return line.endsWith("\r") ? line.substring(0, line.length() - 1) : line;
+  }
+
+  /**
+   * Checks if a range of a buffer holds only blanks.
+   * 
+   * @param bytes buffer.
+   * @param begin position of the first byte of the range.
+   * @param end   position after the last byte of the range.
+   * @return True if the range is blank, else False.
+   */
+  private static boolean isBlank(ByteBuffer bytes, int begin, int end) {
+    for (int i = begin; i < end; i++) {
+      if (!isSpace(bytes.get(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Checks if a byte is an ASCII blank, including the carriage return.
+   * 
+   * @param b byte to check.
+   * @return True if the byte is a blank, else False.
+   */
+  private static boolean isSpace(byte b) {
+    return b == ' ' || b == '\t' || b == '\r' || b == '\f' || b == 0x0b;
+  }
+
+  /**
+   * Counts the values of a line of a buffer.
+   * 
+   * @param bytes buffer.
+   * @param begin position of the first byte of the line.
+   * @param end   position after the last byte of the line.
+   * @return The number of values of the line.
+   */
+  private int countValues(ByteBuffer bytes, int begin, int end) {
+    int count = 1;
+    for (int i = begin; i < end; i++) {
+      if (bytes.get(i) == separator) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Splits a line into its values, removing the blanks and the double quotes
+   * around each of them.
+   * 
+   * @param line line of the file.
+   * @return The values of the line.
+   */
+  private String[] split(String line) {
+    String[] fields = line.split(Pattern.quote(String.valueOf(separator)), -1);
+    for (int i = 0; i < fields.length; i++) {
+      String field = fields[i].trim();
+      if (field.length() >= 2 && field.startsWith("\"") && field.endsWith("\"")) {
+        field = field.substring(1, field.length() - 1);
+      }
+      fields[i] = field;
+    }
+    return fields;
+  }
+
+  /**
+   * Checks if a value is a number.
+   * 
+   * @param value value to check.
+   * @return True if the value is a number, else False.
+   */
+  private static boolean isNumber(String value) {
+    try {
+      Double.parseDouble(value);
+      return true;
+    } catch (NumberFormatException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Returns a string containing all the class info.
+   */
+  @Override
+  public String toString() {
+    return path.toString();
+  }
+
+}
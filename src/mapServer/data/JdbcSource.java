@@ -0,0 +1,243 @@
+package data;
+
+import database.ConnectionPool;
+import database.DatabaseConnectionException;
+import database.DbAccess;
+import database.ExampleStream;
+import database.TableData;
+import database.TableRange;
+import database.TableSchema;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Source reading the training examples from a table of a database through
+ * JDBC. The connections are borrowed from the shared pool, configured for the
+ * MySQL server of the software, or from a pool connected to any other JDBC
+ * URL. The schema of the table is taken from the result set of the query
+ * reading its rows, so that the table is read with a single query. The table
+ * can be split into ranges read over several connections at the same time.
+ * 
+ * @author Fabio
+ *
+ */
+public class JdbcSource extends TrainingSource {
+  /**
+   * SQL state reported by the database when a table does not exist.
+   */
+  private static final String NO_SUCH_TABLE = "42S02";
+  /**
+   * Pool the connections are borrowed from, null to use the shared pool.
+   */
+  private final ConnectionPool pool;
+  /**
+   * Name of the SQL table.
+   */
+  private final String tableName;
+  /**
+   * Name of a numerical column used to split the table, or null to split it
+   * into windows of rows.
+   */
+  private final String keyColumn;
+  /**
+   * Number of ranges of the table read at the same time.
+   */
+  private final int numberOfConnections;
+
+  /**
+   * Initializes a source reading the table over numberOfConnections
+   * connections of the input pool at the same time. The table is split into as
+   * many disjoint ranges, over the values of keyColumn if given, else into
+   * windows of rows, and each range is read into its own columns by a separate
+   * thread. The columns are then merged in the order of the ranges.
+   * 
+   * @param pool                Pool the connections are borrowed from, null to
+   *                            use the shared pool.
+   * @param tableName           Name of the SQL table.
+   * @param keyColumn           Name of a numerical column used to split the
+   *                            table, or null to split it into windows of rows.
+   * @param numberOfConnections Number of ranges read at the same time.
+   */
+  public JdbcSource(ConnectionPool pool, String tableName, String keyColumn,
+      int numberOfConnections) {
+    this.pool = pool;
+    this.tableName = tableName;
+    this.keyColumn = keyColumn;
+    this.numberOfConnections = numberOfConnections;
+  }
+
+  /**
+   * Initializes a source reading the table over numberOfConnections
+   * connections of the shared pool at the same time.
+   * 
+   * @param tableName           Name of the SQL table.
+   * @param keyColumn           Name of a numerical column used to split the
+   *                            table, or null to split it into windows of rows.
+   * @param numberOfConnections Number of ranges read at the same time.
+   */
+  public JdbcSource(String tableName, String keyColumn, int numberOfConnections) {
+    this(null, tableName, keyColumn, numberOfConnections);
+  }
+
+  /**
+   * Initializes a source reading the table over a single connection of the
+   * shared pool.
+   * 
+   * @param tableName Name of the SQL table.
+   */
+  public JdbcSource(String tableName) {
+    this(null, tableName, null, 1);
+  }
+
+  /**
+   * Reads all the examples of the table.
+   */
+  @Override
+  ColumnBuilder read() throws TrainingDataException {
+    try {
+      DbAccess db = connect();
+      if (numberOfConnections < 2) {
+        try {
+          return readRange(new TableData(db), tableName, TableRange.ALL);
+        } finally {
+          db.closeConnection();
+        }
+      }
+      TableRange[] ranges;
+      try {
+        TableData td = new TableData(db);
+        ranges = keyColumn != null ? td.splitByKey(tableName, keyColumn, numberOfConnections)
+            : td.splitByWindows(tableName, numberOfConnections);
+      } finally {
+        db.closeConnection();
+      }
+      return loadInParallel(tableName, ranges);
+    } catch (SQLException e) {
+      if (NO_SUCH_TABLE.equals(e.getSQLState())) {
+        throw new TrainingDataException("The table does not exist");
+      }
+      throw new TrainingDataException(e);
+    }
+  }
+
+  /**
+   * Reads the examples of a range of the table into new columns. The schema of
+   * the table is taken from the query reading the examples, and the values of
+   * each discrete attribute are collected while the examples are read.
+   * 
+   * @param td        TableData used to query the database.
+   * @param tableName Name of the SQL table.
+   * @param range     Range of the table to read.
+   * @return The columns holding the examples of the range.
+   * @throws TrainingDataException If the table has less than two columns, the
+   *                               last one is not numerical or the range
+   *                               contains a null discrete value.
+   * @throws SQLException          If there are problems executing the query.
+   */
+  private static ColumnBuilder readRange(TableData td, String tableName, TableRange range)
+      throws TrainingDataException, SQLException {
+    try (ExampleStream stream = td.streamTransitions(tableName, range)) {
+      checkSchema(stream.getSchema());
+      ColumnBuilder columns = new ColumnBuilder(stream.getSchema());
+      columns.appendAll(stream);
+      return columns;
+    }
+  }
+
+  /**
+   * Reads each of the ranges of the table over its own connection, at the same
+   * time, and merges the examples in the order of the ranges.
+   * 
+   * @param tableName Name of the SQL table.
+   * @param ranges    Disjoint ranges covering the table.
+   * @return The columns holding all the examples of the table.
+   * @throws TrainingDataException If it's not possible to read one of the
+   *                               ranges.
+   * @throws SQLException          If there are problems executing the queries.
+   */
+  private ColumnBuilder loadInParallel(String tableName, TableRange[] ranges)
+      throws TrainingDataException, SQLException {
+    ExecutorService executor = Executors.newFixedThreadPool(ranges.length);
+    try {
+      List<Future<ColumnBuilder>> parts = new ArrayList<>();
+      for (TableRange range : ranges) {
+        parts.add(executor.submit(() -> loadRange(tableName, range)));
+      }
+      int numberOfExamples = 0;
+      TableSchema ts = parts.get(0).get().getSchema();
+      for (Future<ColumnBuilder> part : parts) {
+        if (!part.get().getSchema().equals(ts)) {
+          throw new TrainingDataException("The table changed while it was being read");
+        }
+        numberOfExamples += part.get().size();
+      }
+      ColumnBuilder columns = new ColumnBuilder(ts, numberOfExamples);
+      for (Future<ColumnBuilder> part : parts) {
+        columns.append(part.get());
+      }
+      return columns;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new TrainingDataException(e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof TrainingDataException) {
+        throw (TrainingDataException) e.getCause();
+      } else if (e.getCause() instanceof SQLException) {
+        throw (SQLException) e.getCause();
+      }
+      throw new TrainingDataException(e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Reads the examples of a range of the table over a new connection.
+   * 
+   * @param tableName Name of the SQL table.
+   * @param range     Range of the table to read.
+   * @return The columns holding the examples of the range.
+   * @throws TrainingDataException If it's impossible to connect to the database
+   *                               or to read the range.
+   * @throws SQLException          If there are problems executing the query.
+   */
+  private ColumnBuilder loadRange(String tableName, TableRange range)
+      throws TrainingDataException, SQLException {
+    DbAccess db = connect();
+    try {
+      return readRange(new TableData(db), tableName, range);
+    } finally {
+      db.closeConnection();
+    }
+  }
+
+  /**
+   * Borrows a connection to the database from the pool of the source.
+   * 
+   * @return The DbAccess holding the connection.
+   * @throws TrainingDataException If it's impossible to connect to the database.
+   */
+  private DbAccess connect() throws TrainingDataException {
+    DbAccess db = pool != null ? new DbAccess(pool) : new DbAccess();
+    try {
+      db.initConnection();
+    } catch (DatabaseConnectionException e) {
+      throw new TrainingDataException("Could not connect to the database");
+    }
+    return db;
+  }
+
+  /**
+   * Returns a string containing all the class info.
+   */
+  @Override
+  public String toString() {
+    return tableName;
+  }
+
+}
@@ -0,0 +1,556 @@
+package data;
+
+import database.DatabaseConnectionException;
+import database.DbAccess;
+import database.TableData;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Keeps a local snapshot of every training table in a directory, so that a
+ * table that has not changed since the last training is read from disk instead
+ * of the database. Each snapshot is a binary file holding the fingerprint of
+ * the table, the attributes with the dictionaries of the discrete ones, the
+ * columns and the presorted rows of the training set.
+ * 
+ * @author Fabio
+ *
+ */
+public class SnapshotCache {
+  /**
+   * Identifies a snapshot file.
+   */
+  private static final int MAGIC = 0x52544d53;
+  /**
+   * Version of the format of the snapshot files.
+   */
+  private static final int VERSION = 1;
+  /**
+   * Extension of the snapshot files.
+   */
+  private static final String EXTENSION = ".snapshot";
+  /**
+   * Size of the buffer used to read and write the snapshot files.
+   */
+  private static final int BUFFER_SIZE = 1 << 20;
+  /**
+   * Directory holding the snapshot files.
+   */
+  private final Path directory;
+  /**
+   * Number of connections used at the same time to read a table from the
+   * database.
+   */
+  private final int numberOfConnections;
+
+  /**
+   * Initializes the attributes directory and numberOfConnections. The directory
+   * is created when the first snapshot is stored.
+   * 
+   * @param directory           directory holding the snapshot files.
+   * @param numberOfConnections number of connections used at the same time to
+   *                            read a table from the database.
+   */
+  public SnapshotCache(Path directory, int numberOfConnections) {
+    this.directory = directory;
+    this.numberOfConnections = numberOfConnections;
+  }
+
+  /**
+   * Initializes the attribute directory, reading the tables over a single
+   * connection. The directory is created when the first snapshot is stored.
+   * 
+   * @param directory directory holding the snapshot files.
+   */
+  public SnapshotCache(Path directory) {
+    this(directory, 1);
+  }
+
+  /**
+   * Returns the presorted training set of the input table. If the snapshot of
+   * the table has the same fingerprint as the table in the database, the
+   * training set is read from the snapshot, else it is read from the database,
+   * presorted and stored as the new snapshot of the table. A snapshot that
+   * can't be read or stored is reported and ignored, and if the database can't
+   * give the fingerprint of the table the training set is read from the
+   * database without any snapshot.
+   * 
+   * @param tableName Name of the SQL table we want to acquire our training set
+   *                  from.
+   * @return The presorted training set.
+   * @throws TrainingDataException If it's not possible to acquire the training
+   *                               set.
+   */
+  public Data load(String tableName) throws TrainingDataException {
+    String fingerprint = getFingerprint(tableName);
+    Path path = directory.resolve(getFileName(tableName));
+    if (fingerprint != null) {
+      try {
+        Data data = read(path, fingerprint);
+        if (data != null) {
+          return data;
+        }
+      } catch (IOException e) {
+        System.err.println("Replacing the snapshot " + path + ": " + e.getMessage());
+      }
+    }
+
+    Data data = new Data(tableName, null, numberOfConnections);
+    data.presort();
+    if (fingerprint != null) {
+      try {
+        write(path, fingerprint, data);
+      } catch (IOException e) {
+        System.err.println("Could not store the snapshot " + path + ": " + e.getMessage());
+      }
+    }
+    return data;
+  }
+
+  /**
+   * Returns the name of the snapshot file of a table, replacing the characters
+   * that could lead outside of the directory, as the name sent by the client
+   * is used as it is.
+   * 
+   * @param tableName Name of the SQL table.
+   * @return The name of the snapshot file.
+   */
+  private static String getFileName(String tableName) {
+    return tableName.replaceAll("[:/\\\\]", "_") + EXTENSION;
+  }
+
+  /**
+   * Queries the database for the fingerprint of the table. The fingerprint
+   * relies on CHECKSUM TABLE, which not every database supports, so a failed
+   * query means the table has no fingerprint.
+   * 
+   * @param tableName Name of the SQL table.
+   * @return The fingerprint of the table, or null if the table does not exist
+   *         or the database can't compute it.
+   * @throws TrainingDataException If it's impossible to connect to the
+   *                               database.
+   */
+  private static String getFingerprint(String tableName) throws TrainingDataException {
+    DbAccess db = new DbAccess();
+    try {
+      db.initConnection();
+    } catch (DatabaseConnectionException e) {
+      throw new TrainingDataException("Could not connect to the database");
+    }
+    try {
+      try {
+        return new TableData(db).getFingerprint(tableName);
+      } finally {
+        db.closeConnection();
+      }
+    } catch (SQLException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Reads the training set from a snapshot file.
+   * 
+   * @param path        Path of the snapshot file.
+   * @param fingerprint Current fingerprint of the table.
+   * @return The training set, or null if there is no snapshot of the table or
+   *         the table has changed since it was taken.
+   * @throws IOException If there are problems reading the file or it's not a
+   *                     valid snapshot file.
+   */
+  private static Data read(Path path, String fingerprint) throws IOException {
+    try (SnapshotReader in = new SnapshotReader(path)) {
+      if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+        throw new IOException("Not a snapshot file: " + path);
+      }
+      if (!in.readString().equals(fingerprint)) {
+        return null;
+      }
+
+      int numberOfExamples = in.readLength(Double.BYTES);
+      int numberOfAttributes = in.readLength(Integer.BYTES);
+      List<Attribute> explanatorySet = new ArrayList<>(numberOfAttributes);
+      for (int i = 0; i < numberOfAttributes; i++) {
+        boolean discrete = in.readInt() != 0;
+        String name = in.readString();
+        if (discrete) {
+          String[] values = new String[in.readLength(Integer.BYTES)];
+          for (int j = 0; j < values.length; j++) {
+            values[j] = in.readString();
+          }
+          explanatorySet.add(new DiscreteAttribute(name, i, new TreeSet<>(Arrays.asList(values))));
+        } else {
+          explanatorySet.add(new ContinuousAttribute(name, i));
+        }
+      }
+      ContinuousAttribute classAttribute = new ContinuousAttribute(in.readString(),
+          numberOfAttributes);
+
+      double[][] continuousValues = new double[numberOfAttributes][];
+      int[][] discreteCodes = new int[numberOfAttributes][];
+      for (Attribute attribute : explanatorySet) {
+        if (attribute instanceof DiscreteAttribute) {
+          discreteCodes[attribute.getIndex()] = in.readInts(numberOfExamples);
+        } else {
+          continuousValues[attribute.getIndex()] = in.readDoubles(numberOfExamples);
+        }
+      }
+      double[] classValues = in.readDoubles(numberOfExamples);
+
+      int[][] sortedExamples = null;
+      if (in.readInt() != 0) {
+        sortedExamples = new int[numberOfAttributes][];
+        for (int i = 0; i < numberOfAttributes; i++) {
+          sortedExamples[i] = in.readInts(numberOfExamples);
+        }
+      }
+      return new Data(explanatorySet, classAttribute, continuousValues, discreteCodes,
+          classValues, sortedExamples);
+    } catch (NoSuchFileException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Writes the training set to a snapshot file. The snapshot is written to a
+   * temporary file, which then replaces the previous snapshot at once, so that
+   * a snapshot being read is never partially written. It must be called before
+   * learning from the training set, which changes the order of the presorted
+   * rows.
+   * 
+   * @param path        Path of the snapshot file.
+   * @param fingerprint Fingerprint of the table the training set was read from.
+   * @param data        Training set.
+   * @throws IOException If there are problems writing the file.
+   */
+  private void write(Path path, String fingerprint, Data data) throws IOException {
+    Files.createDirectories(directory);
+    Path temporary = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+    try {
+      try (SnapshotWriter out = new SnapshotWriter(temporary)) {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeString(fingerprint);
+
+        int numberOfAttributes = data.getNumberOfExplanatoryAttributes();
+        out.writeInt(data.getNumberOfExamples());
+        out.writeInt(numberOfAttributes);
+        for (int i = 0; i < numberOfAttributes; i++) {
+          Attribute attribute = data.getExplanatoryAttribute(i);
+          out.writeInt(attribute instanceof DiscreteAttribute ? 1 : 0);
+          out.writeString(attribute.getName());
+          if (attribute instanceof DiscreteAttribute) {
+            DiscreteAttribute discrete = (DiscreteAttribute) attribute;
+            out.writeInt(discrete.getNumberOfDistinctValues());
+            for (String value : discrete) {
+              out.writeString(value);
+            }
+          }
+        }
+        out.writeString(data.getClassAttribute().getName());
+
+        for (int i = 0; i < numberOfAttributes; i++) {
+          Attribute attribute = data.getExplanatoryAttribute(i);
+          if (attribute instanceof DiscreteAttribute) {
+            out.writeInts(data.getDiscreteColumn((DiscreteAttribute) attribute));
+          } else {
+            out.writeDoubles(data.getContinuousColumn((ContinuousAttribute) attribute));
+          }
+        }
+        out.writeDoubles(data.getClassColumn());
+
+        out.writeInt(data.isPresorted() ? 1 : 0);
+        if (data.isPresorted()) {
+          for (int i = 0; i < numberOfAttributes; i++) {
+            out.writeInts(data.getPresortedRows(data.getExplanatoryAttribute(i)));
+          }
+        }
+      }
+      Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(temporary);
+    }
+  }
+
+  /**
+   * Reads the values of a snapshot file through a buffer, moving whole arrays
+   * at a time.
+   */
+  private static class SnapshotReader implements AutoCloseable {
+    /**
+     * Channel of the file.
+     */
+    private final FileChannel channel;
+    /**
+     * Buffer holding the bytes read from the file and not consumed yet.
+     */
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    /**
+     * Opens the file for reading.
+     * 
+     * @param path path of the file.
+     * @throws IOException If the file can't be opened.
+     */
+    SnapshotReader(Path path) throws IOException {
+      channel = FileChannel.open(path, StandardOpenOption.READ);
+      buffer.limit(0);
+    }
+
+    /**
+     * Makes at least the input number of bytes available in the buffer.
+     * 
+     * @param bytes number of bytes, not greater than the size of the buffer.
+     * @throws IOException If the file ends before.
+     */
+    private void require(int bytes) throws IOException {
+      if (buffer.remaining() >= bytes) {
+        return;
+      }
+      buffer.compact();
+      while (buffer.position() < bytes) {
+        if (channel.read(buffer) < 0) {
+          throw new IOException("Truncated snapshot file");
+        }
+      }
+      buffer.flip();
+    }
+
+    /**
+     * Reads an int.
+     * 
+     * @return The int read.
+     * @throws IOException If there are problems reading the file.
+     */
+    int readInt() throws IOException {
+      require(Integer.BYTES);
+      return buffer.getInt();
+    }
+
+    /**
+     * Reads the length of something stored next in the file, checking that
+     * the rest of the file can hold it.
+     * 
+     * @param bytesPerElement least number of bytes taken by each element.
+     * @return The length read.
+     * @throws IOException If there are problems reading the file or the length
+     *                     is negative or too large for the file.
+     */
+    int readLength(int bytesPerElement) throws IOException {
+      int length = readInt();
+      long available = buffer.remaining() + channel.size() - channel.position();
+      if (length < 0 || (long) length * bytesPerElement > available) {
+        throw new IOException("Damaged snapshot file");
+      }
+      return length;
+    }
+
+    /**
+     * Reads a string, stored as its length in bytes followed by its UTF-8
+     * encoding.
+     * 
+     * @return The string read.
+     * @throws IOException If there are problems reading the file.
+     */
+    String readString() throws IOException {
+      byte[] bytes = new byte[readLength(1)];
+      for (int offset = 0; offset < bytes.length;) {
+        require(1);
+        int length = Math.min(buffer.remaining(), bytes.length - offset);
+        buffer.get(bytes, offset, length);
+        offset += length;
+      }
+      return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads an array of ints.
+     * 
+     * @param length length of the array.
+     * @return The array read.
+     * @throws IOException If there are problems reading the file.
+     */
+    int[] readInts(int length) throws IOException {
+      int[] values = new int[length];
+      for (int offset = 0; offset < length;) {
+        require(Integer.BYTES);
+        int count = Math.min(buffer.remaining() / Integer.BYTES, length - offset);
+        buffer.asIntBuffer().get(values, offset, count);
+        buffer.position(buffer.position() + count * Integer.BYTES);
+        offset += count;
+      }
+      return values;
+    }
+
+    /**
+     * Reads an array of doubles.
+     * 
+     * @param length length of the array.
+     * @return The array read.
+     * @throws IOException If there are problems reading the file.
+     */
+    double[] readDoubles(int length) throws IOException {
+      double[] values = new double[length];
+      for (int offset = 0; offset < length;) {
+        require(Double.BYTES);
+        int count = Math.min(buffer.remaining() / Double.BYTES, length - offset);
+        buffer.asDoubleBuffer().get(values, offset, count);
+        buffer.position(buffer.position() + count * Double.BYTES);
+        offset += count;
+      }
+      return values;
+    }
+
+    /**
+     * Closes the file.
+     */
+    @Override
+    public void close() throws IOException {
+      channel.close();
+    }
+  }
+
+  /**
+   * Writes the values of a snapshot file through a buffer, moving whole arrays
+   * at a time.
+   */
+  private static class SnapshotWriter implements AutoCloseable {
+    /**
+     * Channel of the file.
+     */
+    private final FileChannel channel;
+    /**
+     * Buffer holding the bytes not written to the file yet.
+     */
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    /**
+     * Opens the file for writing, truncating it.
+     * 
+     * @param path path of the file.
+     * @throws IOException If the file can't be opened.
+     */
+    SnapshotWriter(Path path) throws IOException {
+      channel = FileChannel.open(path, StandardOpenOption.WRITE,
+          StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    /**
+     * Makes room for at least the input number of bytes in the buffer.
+     * 
+     * @param bytes number of bytes, not greater than the size of the buffer.
+     * @throws IOException If there are problems writing the file.
+     */
+    private void reserve(int bytes) throws IOException {
+      if (buffer.remaining() < bytes) {
+        flush();
+      }
+    }
+
+    /**
+     * Writes the content of the buffer to the file.
+     * 
+     * @throws IOException If there are problems writing the file.
+     */
+    private void flush() throws IOException {
+      buffer.flip();
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+      buffer.clear();
+    }
+
+    /**
+     * Writes an int.
+     * 
+     * @param value int to write.
+     * @throws IOException If there are problems writing the file.
+     */
+    void writeInt(int value) throws IOException {
+      reserve(Integer.BYTES);
+      buffer.putInt(value);
+    }
+
+    /**
+     * Writes a string as its length in bytes followed by its UTF-8 encoding.
+     * 
+     * @param value string to write.
+     * @throws IOException If there are problems writing the file.
+     */
+    void writeString(String value) throws IOException {
+      byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+      writeInt(bytes.length);
+      for (int offset = 0; offset < bytes.length;) {
+        reserve(1);
+        int length = Math.min(buffer.remaining(), bytes.length - offset);
+        buffer.put(bytes, offset, length);
+        offset += length;
+      }
+    }
+
+    /**
+     * Writes an array of ints.
+     * 
+     * @param values array to write.
+     * @throws IOException If there are problems writing the file.
+     */
+    void writeInts(int[] values) throws IOException {
+      for (int offset = 0; offset < values.length;) {
+        reserve(Integer.BYTES);
+        int count = Math.min(buffer.remaining() / Integer.BYTES, values.length - offset);
+        buffer.asIntBuffer().put(values, offset, count);
+        buffer.position(buffer.position() + count * Integer.BYTES);
+        offset += count;
+      }
+    }
+
+    /**
+     * Writes an array of doubles.
+     * 
+     * @param values array to write.
+     * @throws IOException If there are problems writing the file.
+     */
+    void writeDoubles(double[] values) throws IOException {
+      for (int offset = 0; offset < values.length;) {
+        reserve(Double.BYTES);
+        int count = Math.min(buffer.remaining() / Double.BYTES, values.length - offset);
+        buffer.asDoubleBuffer().put(values, offset, count);
+        buffer.position(buffer.position() + count * Double.BYTES);
+        offset += count;
+      }
+    }
+
+    /**
+     * Writes the rest of the buffer and closes the file.
+     */
+    @Override
+    public void close() throws IOException {
+      try {
+        flush();
+      } finally {
+        channel.close();
+      }
+    }
+  }
+
+  /**
+   * Returns a string containing all the class info.
+   */
+  @Override
+  public String toString() {
+    return directory.toString();
+  }
+}
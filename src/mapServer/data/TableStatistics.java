@@ -0,0 +1,231 @@
+package data;
+
+import database.Column;
+import database.Condition;
+import database.DatabaseConnectionException;
+import database.DbAccess;
+import database.GroupStatistics;
+import database.NullTupleException;
+import database.TableData;
+import database.TableSchema;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Training set left in a table of the database, of which only aggregates are
+ * read. The rows are never moved out of the database: for any subset of them,
+ * selected by a list of conditions, the database computes the count, sum and
+ * sum of squares of the class values grouped by the value of a discrete
+ * attribute, or by buckets of equal width of the values of a continuous
+ * attribute. The object holds a connection until close is called.
+ * 
+ * @author Fabio
+ *
+ */
+public class TableStatistics {
+  /**
+   * Name of the table in the database.
+   */
+  private final String tableName;
+  /**
+   * Number of buckets the values of each continuous attribute are grouped into.
+   */
+  private final int numberOfBuckets;
+  /**
+   * Connection to the database, held until close is called.
+   */
+  private final DbAccess db;
+  /**
+   * Object used to query the table.
+   */
+  private final TableData tableData;
+  /**
+   * Explanatory attributes of the table, in the order of the columns.
+   */
+  private final List<Attribute> explanatorySet = new ArrayList<>();
+  /**
+   * Class attribute of the table.
+   */
+  private final ContinuousAttribute classAttribute;
+  /**
+   * Lower bound of the first bucket of each continuous attribute, indexed by
+   * attribute index.
+   */
+  private final double[] bucketOrigins;
+  /**
+   * Width of the buckets of each continuous attribute, indexed by attribute
+   * index.
+   */
+  private final double[] bucketWidths;
+  /**
+   * Statistics of all the rows of the table.
+   */
+  private final GroupStatistics totalStatistics;
+
+  /**
+   * Connects to the database and reads the schema of the table, the values of
+   * each discrete attribute, the range of values of each continuous attribute
+   * and the statistics of all the rows.
+   * 
+   * @param tableName       Name of the table in the database.
+   * @param numberOfBuckets Number of buckets the values of each continuous
+   *                        attribute are grouped into.
+   * @throws TrainingDataException If it's impossible to connect to the
+   *                               database, or the table does not exist, is
+   *                               empty or is not a valid training set.
+   */
+  public TableStatistics(String tableName, int numberOfBuckets) throws TrainingDataException {
+    if (numberOfBuckets < 2) {
+      throw new IllegalArgumentException("The number of buckets must be at least 2");
+    }
+    this.tableName = tableName;
+    this.numberOfBuckets = numberOfBuckets;
+    db = new DbAccess();
+    try {
+      db.initConnection();
+    } catch (DatabaseConnectionException e) {
+      throw new TrainingDataException("Could not connect to the database");
+    }
+    tableData = new TableData(db);
+    try {
+      TableSchema ts = TableSchema.forTable(db, tableName);
+      TrainingSource.checkSchema(ts);
+      int numberOfAttributes = ts.getNumberOfAttributes() - 1;
+      bucketOrigins = new double[numberOfAttributes];
+      bucketWidths = new double[numberOfAttributes];
+      for (int i = 0; i < numberOfAttributes; i++) {
+        Column column = ts.getColumn(i);
+        if (column.isNumber()) {
+          double[] range = tableData.getValueRange(tableName, column.getColumnName());
+          if (range != null) {
+            bucketOrigins[i] = range[0];
+            bucketWidths[i] = (range[1] - range[0]) / numberOfBuckets;
+          }
+          if (!(bucketWidths[i] > 0)) {
+            bucketWidths[i] = 1;
+          }
+          explanatorySet.add(new ContinuousAttribute(column.getColumnName(), i));
+        } else {
+          Set<String> values = new TreeSet<>();
+          for (Object value : tableData.getDistinctColumnValues(tableName, column)) {
+            values.add((String) value);
+          }
+          explanatorySet.add(new DiscreteAttribute(column.getColumnName(), i, values));
+        }
+      }
+      classAttribute = new ContinuousAttribute(ts.getColumn(numberOfAttributes).getColumnName(),
+          numberOfAttributes);
+      totalStatistics = tableData.getClassStatistics(tableName, classAttribute.getName(),
+          new ArrayList<Condition>());
+      if (totalStatistics.getCount() == 0) {
+        throw new TrainingDataException("There are no examples in this table");
+      }
+    } catch (SQLException e) {
+      close();
+      throw new TrainingDataException(e);
+    } catch (NullTupleException e) {
+      close();
+      throw new TrainingDataException("The table contains a null tuple");
+    } catch (TrainingDataException e) {
+      close();
+      throw e;
+    }
+  }
+
+  /**
+   * Returns the cardinality of the explanatory set.
+   * 
+   * @return Size of explanatorySet.
+   */
+  public int getNumberOfExplanatoryAttributes() {
+    return explanatorySet.size();
+  }
+
+  /**
+   * Returns the attribute indexed by index in the explanatory set.
+   * 
+   * @param index index of the attribute.
+   * @return The value of the attribute indexed by index.
+   */
+  public Attribute getExplanatoryAttribute(int index) {
+    return explanatorySet.get(index);
+  }
+
+  /**
+   * Returns the class attribute.
+   * 
+   * @return The value of class attribute.
+   */
+  public ContinuousAttribute getClassAttribute() {
+    return classAttribute;
+  }
+
+  /**
+   * Returns the statistics of all the rows of the table.
+   * 
+   * @return Value of totalStatistics.
+   */
+  public GroupStatistics getTotalStatistics() {
+    return totalStatistics;
+  }
+
+  /**
+   * Queries the database for the statistics of the rows passing all the
+   * conditions, grouped by the input attribute. The groups of a discrete
+   * attribute are ordered by the code of their value, and the ones of a
+   * continuous attribute by the greatest value of their bucket.
+   * 
+   * @param attribute  explanatory attribute the rows are grouped by.
+   * @param conditions conditions the rows must pass.
+   * @return The statistics of each group holding at least a row.
+   * @throws TrainingDataException If there are problems querying the database,
+   *                               or the attribute has a null value.
+   */
+  public List<GroupStatistics> getSplitStatistics(Attribute attribute,
+      List<Condition> conditions) throws TrainingDataException {
+    String classColumn = classAttribute.getName();
+    try {
+      List<GroupStatistics> groups;
+      if (attribute instanceof DiscreteAttribute) {
+        DiscreteAttribute discreteAttribute = (DiscreteAttribute) attribute;
+        groups = tableData.getGroupStatistics(tableName, attribute.getName(), classColumn,
+            conditions);
+        groups.sort(
+            Comparator.comparingInt(g -> discreteAttribute.getCode((String) g.getValue())));
+      } else {
+        int index = attribute.getIndex();
+        groups = tableData.getBucketStatistics(tableName, attribute.getName(),
+            bucketOrigins[index], bucketWidths[index], classColumn, conditions);
+        groups.sort(Comparator.comparingDouble(g -> (Double) g.getValue()));
+      }
+      return groups;
+    } catch (SQLException e) {
+      throw new TrainingDataException(e);
+    } catch (NullTupleException e) {
+      throw new TrainingDataException("The table contains a null tuple");
+    }
+  }
+
+  /**
+   * Gives the connection back to the database.
+   */
+  public void close() {
+    try {
+      db.closeConnection();
+    } catch (SQLException e) {
+    }
+  }
+
+  /**
+   * Returns a string containing all the class info.
+   */
+  @Override
+  public String toString() {
+    return tableName + " buckets=" + numberOfBuckets + " " + totalStatistics;
+  }
+
+}
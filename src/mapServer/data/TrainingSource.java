@@ -0,0 +1,47 @@
+package data;
+
+import database.TableSchema;
+
+/**
+ * Source the training examples of a Data are read from, such as a table of a
+ * database or a local file.
+ * The sources are used from outside the package only through the public
+ * subclasses JdbcSource and FileSource. Reading the examples is internal to
+ * the package: read is package-private and returns the package-private
+ * ColumnBuilder, so new sources can only be written inside the package.
+ * 
+ * @author Fabio
+ *
+ */
+public abstract class TrainingSource {
+
+  /**
+   * Reads all the examples of the source into new columns. The values of each
+   * discrete attribute are collected while the examples are read.
+   * 
+   * @return The columns holding the examples.
+   * @throws TrainingDataException If it's not possible to read the examples or
+   *                               they are not a valid training set.
+   */
+  abstract ColumnBuilder read() throws TrainingDataException;
+
+  /**
+   * Checks that a schema describes a valid training set, that is it has at least
+   * two columns and the last one is numerical.
+   * 
+   * @param ts Schema of the source.
+   * @throws TrainingDataException If the schema is not valid.
+   */
+  static void checkSchema(TableSchema ts) throws TrainingDataException {
+    if (ts.getNumberOfAttributes() == 0) {
+      throw new TrainingDataException("The table does not exist");
+    } else if (ts.getNumberOfAttributes() < 2) {
+      throw new TrainingDataException("The table has less than two columns");
+    }
+    if (!ts.getColumn(ts.getNumberOfAttributes() - 1).isNumber()) {
+      throw new TrainingDataException(
+          "The attribute corresponding to the last column is not numerical");
+    }
+  }
+
+}
@@ -17,16 +17,23 @@ public class Column {
    * Type of the column in the relational database (Numerical or not).
    */
   private final String type;
+  /**
+   * Position of the column in the result set of the query reading the table,
+   * starting from 1.
+   */
+  private final int position;
 
   /**
-   * Initializes the attributes name and type.
+   * Initializes the attributes name, type and position.
    * 
-   * @param name name of the column.
-   * @param type data type of the column.
+   * @param name     name of the column.
+   * @param type     data type of the column.
+   * @param position position of the column in the result set, starting from 1.
    */
-  Column(String name, String type) {
+  Column(String name, String type, int position) {
     this.name = name;
     this.type = type;
+    this.position = position;
   }
 
   /**
@@ -38,6 +45,16 @@ public class Column {
     return name;
   }
 
+  /**
+   * Returns the position of the column in the result set of the query reading
+   * the table.
+   * 
+   * @return Value of position.
+   */
+  int getPosition() {
+    return position;
+  }
+
   /**
    * Checks if the type of the column is numerical.
    * 
@@ -47,6 +64,23 @@ public class Column {
     return type.equals("number");
   }
 
+  /**
+   * Checks if the input object is a column with the same name and type.
+   */
+  @Override
+  public boolean equals(Object o) {
+    return o instanceof Column && name.equals(((Column) o).name)
+        && type.equals(((Column) o).type);
+  }
+
+  /**
+   * Returns the hash code of the name and type.
+   */
+  @Override
+  public int hashCode() {
+    return name.hashCode() * 31 + type.hashCode();
+  }
+
   /**
    * Returns a string containing all the class info.
    */
@@ -54,4 +88,4 @@ public class Column {
   public String toString() {
     return name + ":" + type;
   }
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,69 @@
+package database;
+
+/**
+ * Models a test on a column of a table, such as the one leading to a node of a
+ * regression tree, so that the rows passing a list of tests can be selected by
+ * the database. The value is bound as a parameter of the query.
+ * 
+ * @author Fabio
+ *
+ */
+public class Condition {
+  /**
+   * Name of the column tested.
+   */
+  private final String column;
+  /**
+   * Comparison operator of the test, one of "=", "&lt;=" and "&gt;".
+   */
+  private final String operator;
+  /**
+   * Value the column is compared to, a String or a Double.
+   */
+  private final Object value;
+
+  /**
+   * Initializes the attributes column, operator and value.
+   * 
+   * @param column   name of the column tested.
+   * @param operator comparison operator of the test, one of "=", "&lt;=" and
+   *                 "&gt;".
+   * @param value    value the column is compared to, a String or a Double.
+   * @throws IllegalArgumentException If the operator is not supported.
+   */
+  public Condition(String column, String operator, Object value) {
+    if (!operator.equals("=") && !operator.equals("<=") && !operator.equals(">")) {
+      throw new IllegalArgumentException("Unsupported operator " + operator);
+    }
+    this.column = column;
+    this.operator = operator;
+    this.value = value;
+  }
+
+  /**
+   * Returns the SQL text of the test, with a placeholder for the value.
+   * 
+   * @return The SQL text of the test.
+   */
+  String getClause() {
+    return column + " " + operator + " ?";
+  }
+
+  /**
+   * Returns the value the column is compared to.
+   * 
+   * @return Value of value.
+   */
+  Object getValue() {
+    return value;
+  }
+
+  /**
+   * Returns a string containing all the class info.
+   */
+  @Override
+  public String toString() {
+    return column + operator + value;
+  }
+
+}
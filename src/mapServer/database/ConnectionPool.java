@@ -0,0 +1,338 @@
+package database;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded pool of connections to the database, shared by all the DbAccess. At
+ * most maxConnections connections are in use at the same time, and the others
+ * wait for one to be released. Connections are validated when they are
+ * borrowed, and closed when they have not been used for idleTimeout
+ * milliseconds.
+ * 
+ * @author Fabio
+ *
+ */
+public class ConnectionPool {
+  /**
+   * Pool used by the DbAccess created without a pool, created on first use.
+   */
+  private static ConnectionPool shared;
+  /**
+   * Settings of the connections.
+   */
+  private final DbConfig config;
+  /**
+   * One permit for each connection that can be borrowed.
+   */
+  private final Semaphore permits;
+  /**
+   * Connections not in use, the most recently released first.
+   */
+  private final Deque<IdleConnection> idle = new ArrayDeque<>();
+  /**
+   * Thread closing the connections that have been idle for too long.
+   */
+  private final ScheduledExecutorService reaper;
+  /**
+   * Number of connections borrowed since the pool was created.
+   */
+  private final AtomicLong borrowCount = new AtomicLong();
+  /**
+   * Total nanoseconds spent waiting for a connection.
+   */
+  private final AtomicLong totalWaitTime = new AtomicLong();
+  /**
+   * Longest nanoseconds spent waiting for a connection.
+   */
+  private final AtomicLong maxWaitTime = new AtomicLong();
+
+  /**
+   * Connection not in use, with the time it was released.
+   */
+  private static class IdleConnection {
+    /**
+     * Connection to the database.
+     */
+    private final Connection connection;
+    /**
+     * Value of System.nanoTime when the connection was released.
+     */
+    private final long releaseTime;
+
+    /**
+     * Initializes the attributes connection and releaseTime.
+     * 
+     * @param connection  connection to the database.
+     * @param releaseTime value of System.nanoTime when the connection was
+     *                    released.
+     */
+    IdleConnection(Connection connection, long releaseTime) {
+      this.connection = connection;
+      this.releaseTime = releaseTime;
+    }
+  }
+
+  /**
+   * Loads the jdbc driver and initializes an empty pool with the input
+   * settings.
+   * 
+   * @param config settings of the connections.
+   * @throws DatabaseConnectionException If it's impossible to find, access or
+   *                                     instantiate the jdbc driver.
+   */
+  public ConnectionPool(DbConfig config) throws DatabaseConnectionException {
+    try {
+      if (!config.getDriverClassName().isEmpty()) {
+        Class.forName(config.getDriverClassName()).getConstructor().newInstance();
+      }
+    } catch (ClassNotFoundException e) {
+      System.out.println("[!] Driver not found: " + e.getMessage());
+      throw new DatabaseConnectionException();
+    } catch (InstantiationException | InvocationTargetException | NoSuchMethodException e) {
+      System.out.println("[!] Error during the instantiation : " + e.getMessage());
+      throw new DatabaseConnectionException();
+    } catch (IllegalAccessException e) {
+      System.out.println("[!] Cannot access the driver : " + e.getMessage());
+      throw new DatabaseConnectionException();
+    }
+    this.config = config;
+    permits = new Semaphore(config.getMaxConnections(), true);
+    reaper = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread thread = new Thread(r, "connection-reaper");
+      thread.setDaemon(true);
+      return thread;
+    });
+    long period = Math.max(1, config.getIdleTimeout() / 2);
+    reaper.scheduleWithFixedDelay(this::closeIdleConnections, period, period,
+        TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Returns the pool shared by the DbAccess created without a pool, creating it
+   * with the settings of the configuration file on first use.
+   * 
+   * @return The shared pool.
+   * @throws DatabaseConnectionException If the configuration file can't be read
+   *                                     or the jdbc driver can't be loaded.
+   */
+  public static synchronized ConnectionPool getShared() throws DatabaseConnectionException {
+    if (shared == null) {
+      try {
+        shared = new ConnectionPool(DbConfig.load());
+      } catch (IOException | IllegalArgumentException e) {
+        System.out.println("[!] Cannot read the configuration: " + e.getMessage());
+        throw new DatabaseConnectionException(e);
+      }
+    }
+    return shared;
+  }
+
+  /**
+   * Returns the settings of the connections.
+   * 
+   * @return Value of config.
+   */
+  public DbConfig getConfig() {
+    return config;
+  }
+
+  /**
+   * Borrows a connection, waiting up to borrowTimeout milliseconds for one to
+   * be released if maxConnections are already in use. An idle connection is
+   * reused if it's still valid, else a new one is opened.
+   * 
+   * @return A valid connection to the database, to be given back with release.
+   * @throws DatabaseConnectionException If no connection has been released in
+   *                                     time or it's impossible to connect to
+   *                                     the database.
+   */
+  Connection borrow() throws DatabaseConnectionException {
+    long start = System.nanoTime();
+    try {
+      if (!permits.tryAcquire(config.getBorrowTimeout(), TimeUnit.MILLISECONDS)) {
+        System.out.println("[!] Timed out waiting for a connection");
+        throw new DatabaseConnectionException();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new DatabaseConnectionException(e);
+    }
+    long waitTime = System.nanoTime() - start;
+    borrowCount.incrementAndGet();
+    totalWaitTime.addAndGet(waitTime);
+    maxWaitTime.accumulateAndGet(waitTime, Math::max);
+
+    try {
+      IdleConnection candidate;
+      while ((candidate = pollIdle()) != null) {
+        if (isValid(candidate.connection)) {
+          return candidate.connection;
+        }
+        close(candidate.connection);
+      }
+      return DriverManager.getConnection(config.getConnectionString());
+    } catch (SQLException e) {
+      permits.release();
+      System.out.println("[!] SQLException: " + e.getMessage());
+      System.out.println("[!] SQLState: " + e.getSQLState());
+      System.out.println("[!] VendorError: " + e.getErrorCode());
+      throw new DatabaseConnectionException(e);
+    } catch (RuntimeException e) {
+      permits.release();
+      throw e;
+    }
+  }
+
+  /**
+   * Gives back a borrowed connection. The connection is kept for reuse, unless
+   * it has been closed.
+   * 
+   * @param connection connection returned by borrow.
+   */
+  void release(Connection connection) {
+    try {
+      if (!connection.isClosed()) {
+        synchronized (idle) {
+          idle.addFirst(new IdleConnection(connection, System.nanoTime()));
+        }
+      }
+    } catch (SQLException e) {
+      close(connection);
+    } finally {
+      permits.release();
+    }
+  }
+
+  /**
+   * Takes the most recently released idle connection.
+   * 
+   * @return The connection, or null if there are no idle connections.
+   */
+  private IdleConnection pollIdle() {
+    synchronized (idle) {
+      return idle.pollFirst();
+    }
+  }
+
+  /**
+   * Checks if a connection is still usable, waiting up to validationTimeout
+   * seconds for the database to answer.
+   * 
+   * @param connection connection to check.
+   * @return True if the connection is usable, else False.
+   */
+  private boolean isValid(Connection connection) {
+    try {
+      return connection.isValid(config.getValidationTimeout());
+    } catch (SQLException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Closes a connection, ignoring errors.
+   * 
+   * @param connection connection to close.
+   */
+  private static void close(Connection connection) {
+    try {
+      connection.close();
+    } catch (SQLException e) {
+    }
+  }
+
+  /**
+   * Closes the connections that have been idle for longer than idleTimeout
+   * milliseconds. The least recently released connections are at the end of
+   * the deque.
+   */
+  private void closeIdleConnections() {
+    long limit = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(config.getIdleTimeout());
+    Deque<Connection> expired = new ArrayDeque<>();
+    synchronized (idle) {
+      Iterator<IdleConnection> i = idle.descendingIterator();
+      while (i.hasNext()) {
+        IdleConnection candidate = i.next();
+        if (candidate.releaseTime - limit > 0) {
+          break;
+        }
+        i.remove();
+        expired.add(candidate.connection);
+      }
+    }
+    for (Connection connection : expired) {
+      close(connection);
+    }
+  }
+
+  /**
+   * Returns the number of connections borrowed and not released yet.
+   * 
+   * @return The number of connections in use.
+   */
+  public int getActiveConnections() {
+    return config.getMaxConnections() - permits.availablePermits();
+  }
+
+  /**
+   * Returns the number of open connections not in use.
+   * 
+   * @return The number of idle connections.
+   */
+  public int getIdleConnections() {
+    synchronized (idle) {
+      return idle.size();
+    }
+  }
+
+  /**
+   * Returns the number of connections borrowed since the pool was created.
+   * 
+   * @return Value of borrowCount.
+   */
+  public long getBorrowCount() {
+    return borrowCount.get();
+  }
+
+  /**
+   * Returns the average time spent waiting for a connection.
+   * 
+   * @return The average wait time in milliseconds.
+   */
+  public double getAverageWaitMillis() {
+    long count = borrowCount.get();
+    return count == 0 ? 0 : totalWaitTime.get() / 1e6 / count;
+  }
+
+  /**
+   * Returns the longest time spent waiting for a connection.
+   * 
+   * @return The maximum wait time in milliseconds.
+   */
+  public double getMaxWaitMillis() {
+    return maxWaitTime.get() / 1e6;
+  }
+
+  /**
+   * Returns a string containing all the class info.
+   */
+  @Override
+  public String toString() {
+    return "active=" + getActiveConnections() + " idle=" + getIdleConnections() + " borrowed="
+        + getBorrowCount() + " averageWait=" + getAverageWaitMillis() + "ms maxWait="
+        + getMaxWaitMillis() + "ms";
+  }
+
+}
@@ -1,83 +1,56 @@
 package database;
 
-import java.lang.reflect.InvocationTargetException;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 
 /**
- * Class used to connect to the database MapDB.
+ * Class used to connect to the database MapDB. Connections are borrowed from a
+ * ConnectionPool and given back to it when they are closed, so that they are
+ * reused across requests.
  * 
  * @author Fabio
  *
  */
 public class DbAccess {
   /**
-   * String containing the path to the jfbc Driver class.
+   * Pool the connection is borrowed from, null until initConnection is called
+   * if the shared pool is used.
    */
-  private static final String DRIVER_CLASS_NAME = "com.mysql.cj.jdbc.Driver";
+  private ConnectionPool pool;
   /**
-   * String containing what dbms is used.
+   * Connection borrowed from the pool.
    */
-  private static final String DBMS = "jdbc:mysql";
-  /**
-   * String containing the server ip.
-   */
-  private static final String SERVER = "localhost";
-  /**
-   * String containing the name of the database.
-   */
-  private static final String DATABASE = "MapDB";
-  /**
-   * String containing the number of the port used for the mysql server
-   * connection.
-   */
-  private static final String PORT = "3306";
-  /**
-   * String containing the name of the mysql user.
-   */
-  private static final String USER_ID = "MapUser";
+  private Connection conn;
+
   /**
-   * String containing the mysql user password.
+   * Initializes a DbAccess using the pool shared by the whole software.
    */
-  private static final String PASSWORD = "map";
+  public DbAccess() {
+  }
+
   /**
-   * Connection instantiated by the jdbc driver.
+   * Initializes a DbAccess using the input pool.
+   * 
+   * @param pool Pool the connection is borrowed from.
    */
-  private Connection conn;
+  public DbAccess(ConnectionPool pool) {
+    this.pool = pool;
+  }
 
   /**
-   * Loads the mysql driver and initializes the connection.
+   * Borrows a connection from the pool.
    * 
    * @throws DatabaseConnectionException If it's impossible to find, access or
-   *                                     instantiate the jdbc driver, or if it's
-   *                                     impossible to connect to the database.
+   *                                     instantiate the jdbc driver, if no
+   *                                     connection is released in time or if
+   *                                     it's impossible to connect to the
+   *                                     database.
    */
   public void initConnection() throws DatabaseConnectionException {
-
-    try {
-      Class.forName(DRIVER_CLASS_NAME).getConstructor().newInstance();
-    } catch (ClassNotFoundException e) {
-      System.out.println("[!] Driver not found: " + e.getMessage());
-      throw new DatabaseConnectionException();
-    } catch (InstantiationException | InvocationTargetException | NoSuchMethodException e) {
-      System.out.println("[!] Error during the instantiation : " + e.getMessage());
-      throw new DatabaseConnectionException();
-    } catch (IllegalAccessException e) {
-      System.out.println("[!] Cannot access the driver : " + e.getMessage());
-      throw new DatabaseConnectionException();
-    }
-    String connectionString = DBMS + "://" + SERVER + ":" + PORT + "/" + DATABASE + "?user="
-        + USER_ID + "&password=" + PASSWORD + "&serverTimezone=UTC";
-
-    try {
-      conn = DriverManager.getConnection(connectionString);
-    } catch (SQLException e) {
-      System.out.println("[!] SQLException: " + e.getMessage());
-      System.out.println("[!] SQLState: " + e.getSQLState());
-      System.out.println("[!] VendorError: " + e.getErrorCode());
-      throw new DatabaseConnectionException();
+    if (pool == null) {
+      pool = ConnectionPool.getShared();
     }
+    conn = pool.borrow();
   }
 
   /**
@@ -90,12 +63,16 @@ public class DbAccess {
   }
 
   /**
-   * Closes the connection to the database.
+   * Gives the connection back to the pool.
    * 
-   * @throws SQLException if the connection doesn't exist or cannot be closed.
+   * @throws SQLException if the connection doesn't exist.
    */
   public void closeConnection() throws SQLException {
-    conn.close();
+    if (conn == null) {
+      throw new SQLException("The connection doesn't exist");
+    }
+    pool.release(conn);
+    conn = null;
   }
 
   /**
@@ -103,7 +80,7 @@ public class DbAccess {
    */
   @Override
   public String toString() {
-    return DBMS + "://" + SERVER + ":" + PORT + "/" + DATABASE;
+    return pool == null ? "" : pool.getConfig().toString();
   }
 
 }
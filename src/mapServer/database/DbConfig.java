@@ -0,0 +1,233 @@
+package database;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Properties;
+
+/**
+ * Settings of the connections to the database, read from a properties file.
+ * The database is either the MySQL server given by its address, or any
+ * database given by its JDBC URL.
+ * The file is the one named by the system property CONFIG_PROPERTY, or
+ * DEFAULT_CONFIG_FILE in the working directory. Settings missing from the file
+ * keep their default value.
+ * 
+ * @author Fabio
+ *
+ */
+public class DbConfig {
+  /**
+   * System property holding the path of the configuration file.
+   */
+  public static final String CONFIG_PROPERTY = "mapServer.config";
+  /**
+   * Configuration file used if the system property is not set.
+   */
+  private static final String DEFAULT_CONFIG_FILE = "mapServer.properties";
+  /**
+   * JDBC URL of the database, used instead of dbms, server, port and database
+   * if it's not null.
+   */
+  private final String url;
+  /**
+   * String containing the path to the jdbc Driver class, or an empty string if
+   * the driver is found by DriverManager.
+   */
+  private final String driverClassName;
+  /**
+   * String containing what dbms is used.
+   */
+  private final String dbms;
+  /**
+   * String containing the server ip.
+   */
+  private final String server;
+  /**
+   * String containing the number of the port used for the mysql server
+   * connection.
+   */
+  private final String port;
+  /**
+   * String containing the name of the database.
+   */
+  private final String database;
+  /**
+   * String containing the name of the mysql user.
+   */
+  private final String userId;
+  /**
+   * String containing the mysql user password.
+   */
+  private final String password;
+  /**
+   * Maximum number of connections open at the same time.
+   */
+  private final int maxConnections;
+  /**
+   * Milliseconds after which a connection not in use is closed.
+   */
+  private final long idleTimeout;
+  /**
+   * Milliseconds to wait for a connection before giving up.
+   */
+  private final long borrowTimeout;
+  /**
+   * Seconds to wait for a connection to answer when it's validated.
+   */
+  private final int validationTimeout;
+
+  /**
+   * Initializes the settings from the input properties, using the default
+   * value of each missing one.
+   * 
+   * @param properties properties holding the settings.
+   * @throws IllegalArgumentException If a numerical setting is not a positive
+   *                                  number.
+   */
+  public DbConfig(Properties properties) {
+    url = properties.getProperty("db.url");
+    driverClassName = properties.getProperty("db.driver", "com.mysql.cj.jdbc.Driver");
+    dbms = properties.getProperty("db.dbms", "jdbc:mysql");
+    server = properties.getProperty("db.server", "localhost");
+    port = properties.getProperty("db.port", "3306");
+    database = properties.getProperty("db.database", "MapDB");
+    userId = properties.getProperty("db.user", "MapUser");
+    password = properties.getProperty("db.password", "map");
+    maxConnections = (int) getPositive(properties, "pool.maxConnections", "16");
+    idleTimeout = getPositive(properties, "pool.idleTimeout", "60000");
+    borrowTimeout = getPositive(properties, "pool.borrowTimeout", "30000");
+    validationTimeout = (int) getPositive(properties, "pool.validationTimeout", "2");
+  }
+
+  /**
+   * Reads a numerical setting that must be positive.
+   * 
+   * @param properties   properties holding the settings.
+   * @param key          name of the setting.
+   * @param defaultValue value used if the setting is missing.
+   * @return The value of the setting.
+   * @throws IllegalArgumentException If the setting is not a positive number
+   *                                  that fits in an int.
+   */
+  public static long getPositive(Properties properties, String key, String defaultValue) {
+    String value = properties.getProperty(key, defaultValue).trim();
+    long number;
+    try {
+      number = Long.parseLong(value);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException(key + " must be a number, not \"" + value + "\"");
+    }
+    if (number <= 0 || number > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException(
+          key + " must be a positive number not greater than " + Integer.MAX_VALUE + ", not "
+              + number);
+    }
+    return number;
+  }
+
+  /**
+   * Reads the settings from the configuration file, or returns the default
+   * settings if there is no configuration file.
+   * 
+   * @return The settings.
+   * @throws IOException If the configuration file exists but can't be read.
+   */
+  public static DbConfig load() throws IOException {
+    return new DbConfig(readProperties());
+  }
+
+  /**
+   * Reads the properties of the configuration file, which also holds the
+   * settings of the other parts of the server.
+   * 
+   * @return The properties of the file, empty if there is no configuration
+   *         file.
+   * @throws IOException If the configuration file exists but can't be read.
+   */
+  public static Properties readProperties() throws IOException {
+    Path path = Paths.get(System.getProperty(CONFIG_PROPERTY, DEFAULT_CONFIG_FILE));
+    Properties properties = new Properties();
+    if (Files.exists(path)) {
+      try (InputStream in = Files.newInputStream(path)) {
+        properties.load(in);
+      }
+    }
+    return properties;
+  }
+
+  /**
+   * Returns the path to the jdbc Driver class.
+   * 
+   * @return Value of driverClassName, empty if the driver is found by
+   *         DriverManager.
+   */
+  String getDriverClassName() {
+    return driverClassName;
+  }
+
+  /**
+   * Returns the string used to connect to the database: the JDBC URL if it has
+   * been set, else the URL of the MySQL database built from the other
+   * settings.
+   * 
+   * @return The connection string.
+   */
+  String getConnectionString() {
+    if (url != null) {
+      return url;
+    }
+    return dbms + "://" + server + ":" + port + "/" + database + "?user=" + userId + "&password="
+        + password + "&serverTimezone=UTC&useCursorFetch=true";
+  }
+
+  /**
+   * Returns the maximum number of connections open at the same time.
+   * 
+   * @return Value of maxConnections.
+   */
+  public int getMaxConnections() {
+    return maxConnections;
+  }
+
+  /**
+   * Returns the milliseconds after which a connection not in use is closed.
+   * 
+   * @return Value of idleTimeout.
+   */
+  public long getIdleTimeout() {
+    return idleTimeout;
+  }
+
+  /**
+   * Returns the milliseconds to wait for a connection before giving up.
+   * 
+   * @return Value of borrowTimeout.
+   */
+  public long getBorrowTimeout() {
+    return borrowTimeout;
+  }
+
+  /**
+   * Returns the seconds to wait for a connection to answer when it's validated.
+   * 
+   * @return Value of validationTimeout.
+   */
+  public int getValidationTimeout() {
+    return validationTimeout;
+  }
+
+  /**
+   * Returns a string containing all the class info, except the password.
+   */
+  @Override
+  public String toString() {
+    String target = url != null ? url : dbms + "://" + server + ":" + port + "/" + database;
+    return target + " user=" + userId
+        + " maxConnections=" + maxConnections + " idleTimeout=" + idleTimeout
+        + " borrowTimeout=" + borrowTimeout + " validationTimeout=" + validationTimeout;
+  }
+
+}
@@ -0,0 +1,115 @@
+package database;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Stores a block of consecutive rows of a table, column by column, while they
+ * are streamed from the database.
+ * 
+ * @author Fabio
+ *
+ */
+public class ExampleBatch {
+  /**
+   * Values of the numerical columns, indexed by column and row. The entries of
+   * the other columns are null.
+   */
+  private final double[][] numbers;
+  /**
+   * Values of the non numerical columns, indexed by column and row. The entries
+   * of the numerical columns are null.
+   */
+  private final String[][] strings;
+  /**
+   * Position of each column in the result set the rows are read from.
+   */
+  private final int[] positions;
+  /**
+   * Maximum number of rows the batch can hold.
+   */
+  private final int capacity;
+  /**
+   * Number of rows stored in the batch.
+   */
+  private int size = 0;
+
+  /**
+   * Initializes an empty batch.
+   * 
+   * @param schema   schema of the table the rows are read from.
+   * @param capacity maximum number of rows the batch can hold.
+   */
+  ExampleBatch(TableSchema schema, int capacity) {
+    numbers = new double[schema.getNumberOfAttributes()][];
+    strings = new String[schema.getNumberOfAttributes()][];
+    positions = new int[schema.getNumberOfAttributes()];
+    for (int i = 0; i < schema.getNumberOfAttributes(); i++) {
+      positions[i] = schema.getColumn(i).getPosition();
+      if (schema.getColumn(i).isNumber()) {
+        numbers[i] = new double[capacity];
+      } else {
+        strings[i] = new String[capacity];
+      }
+    }
+    this.capacity = capacity;
+  }
+
+  /**
+   * Decodes the current row of the result set and appends it to the batch.
+   * 
+   * @param rs result set positioned on the row to read.
+   * @throws SQLException If there are problems reading the row.
+   */
+  void add(ResultSet rs) throws SQLException {
+    for (int i = 0; i < numbers.length; i++) {
+      if (numbers[i] != null) {
+        numbers[i][size] = rs.getDouble(positions[i]);
+      } else {
+        strings[i][size] = rs.getString(positions[i]);
+      }
+    }
+    size++;
+  }
+
+  /**
+   * Checks if the batch can't hold any more rows.
+   * 
+   * @return True if the batch is full, else False.
+   */
+  boolean isFull() {
+    return size == capacity;
+  }
+
+  /**
+   * Returns the number of rows stored in the batch.
+   * 
+   * @return Value of size.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns the value of a numerical column for a row of the batch.
+   * 
+   * @param row    index of the row in the batch.
+   * @param column index of the column in the table.
+   * @return The value of the column.
+   */
+  public double getNumber(int row, int column) {
+    return numbers[column][row];
+  }
+
+  /**
+   * Returns the value of a non numerical column for a row of the batch.
+   * 
+   * @param row    index of the row in the batch.
+   * @param column index of the column in the table.
+   * @return The value of the column, null if it's missing.
+   */
+  public String getString(int row, int column) {
+    return strings[column][row];
+  }
+
+}
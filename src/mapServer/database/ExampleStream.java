@@ -0,0 +1,191 @@
+package database;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Streams the rows of a query in batches. The rows are read and decoded by a
+ * producer thread, while the consumer takes the batches from a bounded queue,
+ * so that reading from the database overlaps with the use of the rows and no
+ * more than a few batches are held in memory at the same time.
+ * 
+ * @author Fabio
+ *
+ */
+public class ExampleStream implements AutoCloseable {
+  /**
+   * Number of rows in each batch.
+   */
+  private static final int BATCH_SIZE = 4096;
+  /**
+   * Maximum number of batches waiting to be consumed.
+   */
+  private static final int QUEUE_CAPACITY = 4;
+  /**
+   * Batch put in the queue after the last one.
+   */
+  private final ExampleBatch end;
+  /**
+   * Schema of the rows of the stream.
+   */
+  private final TableSchema schema;
+  /**
+   * Batches read by the producer and not yet consumed.
+   */
+  private final BlockingQueue<ExampleBatch> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+  /**
+   * Statement that produced the rows, closed with the stream.
+   */
+  private final Statement statement;
+  /**
+   * Thread reading the rows from the database.
+   */
+  private final Thread producer;
+  /**
+   * Exception thrown while reading the rows, if any.
+   */
+  private volatile SQLException error;
+  /**
+   * Set when the consumer doesn't need any more rows.
+   */
+  private volatile boolean closed = false;
+  /**
+   * Set when the last batch has been consumed.
+   */
+  private boolean finished = false;
+
+  /**
+   * Starts the producer thread reading the result set.
+   * 
+   * @param statement statement that produced the result set, closed with it.
+   * @param rs        result set to read.
+   * @param schema    schema of the rows of the result set.
+   */
+  ExampleStream(Statement statement, ResultSet rs, TableSchema schema) {
+    this.schema = schema;
+    this.statement = statement;
+    end = new ExampleBatch(schema, 0);
+    producer = new Thread(() -> produce(statement, rs, schema), "example-stream");
+    producer.setDaemon(true);
+    producer.start();
+  }
+
+  /**
+   * Body of the producer thread. Reads the result set in batches until it's
+   * over or the stream is closed, then closes it and marks the end of the
+   * stream.
+   * 
+   * @param statement statement that produced the result set.
+   * @param rs        result set to read.
+   * @param schema    schema of the rows of the result set.
+   */
+  private void produce(Statement statement, ResultSet rs, TableSchema schema) {
+    try {
+      boolean more = true;
+      while (more && !closed) {
+        ExampleBatch batch = new ExampleBatch(schema, BATCH_SIZE);
+        while (!batch.isFull() && (more = rs.next())) {
+          batch.add(rs);
+        }
+        if (batch.size() > 0) {
+          queue.put(batch);
+        }
+      }
+    } catch (SQLException e) {
+      error = e;
+    } catch (InterruptedException e) {
+      return;
+    } finally {
+      try {
+        rs.close();
+        statement.close();
+      } catch (SQLException e) {
+        if (error == null) {
+          error = e;
+        }
+      }
+    }
+    try {
+      queue.put(end);
+    } catch (InterruptedException e) {
+      return;
+    }
+  }
+
+  /**
+   * Returns the schema of the rows of the stream.
+   * 
+   * @return Value of schema.
+   */
+  public TableSchema getSchema() {
+    return schema;
+  }
+
+  /**
+   * Returns the next batch of rows, waiting for the producer to read it.
+   * 
+   * @return The next batch, or null if there are no more rows.
+   * @throws SQLException If there were problems reading the rows.
+   */
+  public ExampleBatch nextBatch() throws SQLException {
+    if (finished) {
+      return null;
+    }
+    ExampleBatch batch;
+    try {
+      batch = queue.take();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SQLException(e);
+    }
+    if (batch == end) {
+      finished = true;
+      if (error != null) {
+        throw error;
+      }
+      return null;
+    }
+    return batch;
+  }
+
+  /**
+   * Stops the producer thread, discarding the rows not yet consumed. The query
+   * is cancelled if it's still being read, and the producer is waited for and
+   * the statement closed before returning, so that nothing is left running
+   * on the connection once the stream is closed and the connection can be
+   * handed back to the pool.
+   */
+  @Override
+  public void close() {
+    closed = true;
+    if (producer.isAlive()) {
+      try {
+        statement.cancel();
+      } catch (SQLException e) {
+        // The producer stops at the end of the current batch anyway.
+      }
+    }
+    producer.interrupt();
+    queue.clear();
+    boolean interrupted = false;
+    while (producer.isAlive()) {
+      try {
+        producer.join();
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    try {
+      statement.close();
+    } catch (SQLException e) {
+      // The statement has already been closed by the producer.
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+}
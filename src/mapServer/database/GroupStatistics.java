@@ -0,0 +1,91 @@
+package database;
+
+/**
+ * Count, sum and sum of squares of the class values of a group of rows of a
+ * table, as computed by the database, together with the value identifying the
+ * group.
+ * 
+ * @author Fabio
+ *
+ */
+public class GroupStatistics {
+  /**
+   * Value identifying the group: the value of the column the rows are grouped
+   * by, or the greatest value of the column in a bucket of values. Null if the
+   * group is the whole set of rows.
+   */
+  private final Object value;
+  /**
+   * Number of rows of the group.
+   */
+  private final long count;
+  /**
+   * Sum of the class values of the rows of the group.
+   */
+  private final double sum;
+  /**
+   * Sum of the squares of the class values of the rows of the group.
+   */
+  private final double sumOfSquares;
+
+  /**
+   * Initializes the class attributes.
+   * 
+   * @param value        value identifying the group.
+   * @param count        number of rows of the group.
+   * @param sum          sum of the class values of the rows.
+   * @param sumOfSquares sum of the squares of the class values of the rows.
+   */
+  public GroupStatistics(Object value, long count, double sum, double sumOfSquares) {
+    this.value = value;
+    this.count = count;
+    this.sum = sum;
+    this.sumOfSquares = sumOfSquares;
+  }
+
+  /**
+   * Returns the value identifying the group.
+   * 
+   * @return Value of value.
+   */
+  public Object getValue() {
+    return value;
+  }
+
+  /**
+   * Returns the number of rows of the group.
+   * 
+   * @return Value of count.
+   */
+  public long getCount() {
+    return count;
+  }
+
+  /**
+   * Returns the sum of the class values of the rows of the group.
+   * 
+   * @return Value of sum.
+   */
+  public double getSum() {
+    return sum;
+  }
+
+  /**
+   * Returns the sum of the squares of the class values of the rows of the
+   * group.
+   * 
+   * @return Value of sumOfSquares.
+   */
+  public double getSumOfSquares() {
+    return sumOfSquares;
+  }
+
+  /**
+   * Returns a string containing all the class info.
+   */
+  @Override
+  public String toString() {
+    return value + " count=" + count + " sum=" + sum + " sumOfSquares=" + sumOfSquares;
+  }
+
+}
@@ -1,9 +1,10 @@
 package database;
 
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 import java.util.TreeSet;
@@ -19,6 +20,10 @@ public class TableData {
    * Object of class DbAccess used to query the database.
    */
   private final DbAccess db;
+  /**
+   * Number of rows fetched from the database at a time while streaming.
+   */
+  private static final int FETCH_SIZE = 10000;
 
   /**
    * Initializes the attribute db.
@@ -30,52 +35,331 @@ public class TableData {
   }
 
   /**
-   * Queries the database to get a list of examples that represent out table.
+   * Queries the database to stream the examples that represent our table. The
+   * query runs on a forward only, read only cursor that fetches FETCH_SIZE rows
+   * at a time, and the rows are decoded into batches by a separate thread
+   * while they arrive, so the table is never buffered as a whole. The schema of
+   * the table is taken from the result set of the same query, and replaces the
+   * known schema of the table.
    * 
    * @param table Name of the table in the database.
-   * @return List of Example contained in our table.
-   * @throws SQLException      If there are problems executing the query
-   * @throws EmptySetException If the table is the empty.
-   */
-  public List<Example> getTransitions(String table) throws SQLException, EmptySetException {
-    LinkedList<Example> transSet = new LinkedList<Example>();
-    TableSchema ts = new TableSchema(db, table);
-    String query = "SELECT ";
-    for (int i = 0; i < ts.getNumberOfAttributes(); i++) {
-      Column c = ts.getColumn(i);
-      if (i > 0) {
-        query += ",";
+   * @return Stream of the batches of examples contained in our table.
+   * @throws SQLException If there are problems executing the query
+   */
+  public ExampleStream streamTransitions(String table) throws SQLException {
+    return streamTransitions(table, TableRange.ALL);
+  }
+
+  /**
+   * Queries the database to stream the examples of our table that fall in the
+   * given range, like streamTransitions(String).
+   * 
+   * @param table Name of the table in the database.
+   * @param range Range of the rows to read.
+   * @return Stream of the batches of examples contained in the range.
+   * @throws SQLException If there are problems executing the query
+   */
+  public ExampleStream streamTransitions(String table, TableRange range) throws SQLException {
+    String query = "SELECT * FROM " + table + range.getClause();
+
+    PreparedStatement statement = db.getConnection().prepareStatement(query,
+        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+    ResultSet rs;
+    TableSchema ts;
+    try {
+      statement.setFetchSize(FETCH_SIZE);
+      Object[] parameters = range.getParameters();
+      for (int i = 0; i < parameters.length; i++) {
+        statement.setObject(i + 1, parameters[i]);
       }
-      query += c.getColumnName();
+      rs = statement.executeQuery();
+      ts = new TableSchema(rs.getMetaData());
+    } catch (SQLException e) {
+      statement.close();
+      TableSchema.invalidate(table);
+      throw e;
     }
+    TableSchema.update(table, ts);
+    return new ExampleStream(statement, rs, ts);
+  }
 
-    if (ts.getNumberOfAttributes() == 0) {
-      throw new SQLException();
+  /**
+   * Splits the table into numberOfRanges disjoint ranges of equal width over
+   * the values of a numerical key column, between its minimum and maximum
+   * value. Rows with a null key fall in the first range. The bounds of the
+   * ranges are bound to the query as parameters.
+   * 
+   * @param table          Name of the table in the database.
+   * @param keyColumn      Name of the numerical key column.
+   * @param numberOfRanges Number of ranges to create.
+   * @return The ranges, covering all the rows of the table.
+   * @throws SQLException If there are problems executing the query.
+   */
+  public TableRange[] splitByKey(String table, String keyColumn, int numberOfRanges)
+      throws SQLException {
+    double[] range = getValueRange(table, keyColumn);
+    if (range == null || numberOfRanges < 2) {
+      return new TableRange[] { TableRange.ALL };
     }
-    query += (" FROM " + table);
-
-    Statement statement = db.getConnection().createStatement();
-    ResultSet rs = statement.executeQuery(query);
-    boolean empty = true;
-    while (rs.next()) {
-      empty = false;
-      Example currentTuple = new Example();
-      for (int i = 0; i < ts.getNumberOfAttributes(); i++) {
-        if (ts.getColumn(i).isNumber()) {
-          currentTuple.add(rs.getDouble(i + 1));
-        } else {
-          currentTuple.add(rs.getString(i + 1));
-        }
+
+    double min = range[0];
+    double max = range[1];
+    TableRange[] ranges = new TableRange[numberOfRanges];
+    double lower = min;
+    for (int i = 0; i < numberOfRanges; i++) {
+      String clause = " WHERE (" + keyColumn + " >= ?";
+      Object[] bounds;
+      if (i == numberOfRanges - 1) {
+        clause += ")";
+        bounds = new Object[] { lower };
+      } else {
+        double upper = min + (max - min) * (i + 1) / numberOfRanges;
+        clause += " AND " + keyColumn + " < ?)";
+        bounds = new Object[] { lower, upper };
+        lower = upper;
+      }
+      if (i == 0) {
+        clause += " OR " + keyColumn + " IS NULL";
       }
-      transSet.add(currentTuple);
+      ranges[i] = new TableRange(clause, bounds);
     }
-    statement.close();
-    rs.close();
-    if (empty) {
-      throw new EmptySetException();
+    return ranges;
+  }
+
+  /**
+   * Splits the table into numberOfRanges disjoint windows of consecutive rows of
+   * about the same size, selected with LIMIT and OFFSET. The last window has no
+   * limit, so that rows added after counting are not lost. The windows are
+   * disjoint only as long as the database returns the rows of the table in the
+   * same order to every query, as MySQL does when scanning a table by its
+   * primary key: when the table has a numerical key, splitByKey should be
+   * preferred.
+   * 
+   * @param table          Name of the table in the database.
+   * @param numberOfRanges Number of windows to create.
+   * @return The windows, covering all the rows of the table.
+   * @throws SQLException If there are problems executing the query.
+   */
+  public TableRange[] splitByWindows(String table, int numberOfRanges) throws SQLException {
+    long numberOfRows;
+    try (Statement s = db.getConnection().createStatement();
+        ResultSet r = s.executeQuery("SELECT COUNT(*) FROM " + table)) {
+      r.next();
+      numberOfRows = r.getLong(1);
+    }
+    if (numberOfRanges < 2) {
+      return new TableRange[] { TableRange.ALL };
+    }
+
+    long windowSize = (numberOfRows + numberOfRanges - 1) / numberOfRanges;
+    TableRange[] ranges = new TableRange[numberOfRanges];
+    for (int i = 0; i < numberOfRanges; i++) {
+      long limit = i == numberOfRanges - 1 ? Long.MAX_VALUE : windowSize;
+      ranges[i] = new TableRange(" LIMIT " + limit + " OFFSET " + (i * windowSize));
+    }
+    return ranges;
+  }
+
+  /**
+   * Queries the database for a fingerprint of the content of the table, made of
+   * its number of rows and the checksum computed by CHECKSUM TABLE. The
+   * fingerprint changes whenever a row of the table is added, removed or
+   * updated. CHECKSUM TABLE is specific to MySQL, so on other databases the
+   * query fails.
+   * 
+   * @param table Name of the table in the database.
+   * @return The fingerprint of the table, or null if the table does not exist.
+   * @throws SQLException If there are problems executing the queries, or the
+   *                      database does not support CHECKSUM TABLE.
+   */
+  public String getFingerprint(String table) throws SQLException {
+    try (Statement s = db.getConnection().createStatement()) {
+      ResultSet r = s.executeQuery("CHECKSUM TABLE " + table);
+      long checksum = 0;
+      boolean missing = true;
+      if (r.next()) {
+        checksum = r.getLong(2);
+        missing = r.wasNull();
+      }
+      r.close();
+      if (missing) {
+        return null;
+      }
+      r = s.executeQuery("SELECT COUNT(*) FROM " + table);
+      r.next();
+      long numberOfRows = r.getLong(1);
+      r.close();
+      return numberOfRows + ":" + checksum;
     }
-    return transSet;
+  }
 
+  /**
+   * Queries the database for the minimum and maximum value of a numerical
+   * column.
+   * 
+   * @param table  Name of the table in the database.
+   * @param column Name of the numerical column.
+   * @return The minimum and the maximum value, or null if the column has no
+   *         values.
+   * @throws SQLException If there are problems executing the query.
+   */
+  public double[] getValueRange(String table, String column) throws SQLException {
+    try (Statement s = db.getConnection().createStatement();
+        ResultSet r = s.executeQuery(
+            "SELECT MIN(" + column + "), MAX(" + column + ") FROM " + table)) {
+      r.next();
+      double min = r.getDouble(1);
+      boolean empty = r.wasNull();
+      double max = r.getDouble(2);
+      return empty ? null : new double[] { min, max };
+    }
+  }
+
+  /**
+   * Queries the database for the count, sum and sum of squares of the values of
+   * the class column over the rows of the table passing all the conditions.
+   * 
+   * @param table       Name of the table in the database.
+   * @param classColumn Name of the numerical class column.
+   * @param conditions  Conditions the rows must pass.
+   * @return The statistics of the rows, whose value is null.
+   * @throws SQLException If there are problems executing the query.
+   */
+  public GroupStatistics getClassStatistics(String table, String classColumn,
+      List<Condition> conditions) throws SQLException {
+    PreparedStatement s = prepare("SELECT COUNT(*), SUM(" + classColumn + "), SUM(" + classColumn
+        + " * " + classColumn + ") FROM " + table + whereClause(conditions), conditions);
+    try {
+      ResultSet r = s.executeQuery();
+      r.next();
+      GroupStatistics statistics = new GroupStatistics(null, r.getLong(1), r.getDouble(2),
+          r.getDouble(3));
+      r.close();
+      return statistics;
+    } finally {
+      s.close();
+    }
+  }
+
+  /**
+   * Queries the database for the count, sum and sum of squares of the values of
+   * the class column over the rows of the table passing all the conditions,
+   * grouped by the value of a non numerical column.
+   * 
+   * @param table       Name of the table in the database.
+   * @param column      Name of the column the rows are grouped by.
+   * @param classColumn Name of the numerical class column.
+   * @param conditions  Conditions the rows must pass.
+   * @return The statistics of each group, whose value is the value of the
+   *         column as a String, in no particular order.
+   * @throws SQLException       If there are problems executing the query.
+   * @throws NullTupleException If the column contains a null value.
+   */
+  public List<GroupStatistics> getGroupStatistics(String table, String column,
+      String classColumn, List<Condition> conditions) throws SQLException, NullTupleException {
+    return readGroups(prepare("SELECT " + column + ", COUNT(*), SUM(" + classColumn + "), SUM("
+        + classColumn + " * " + classColumn + ") FROM " + table + whereClause(conditions)
+        + " GROUP BY " + column, conditions), false);
+  }
+
+  /**
+   * Queries the database for the count, sum and sum of squares of the values of
+   * the class column over the rows of the table passing all the conditions,
+   * grouped into buckets of equal width of the values of a numerical column. The
+   * bucket of a value is FLOOR((value - origin) / width).
+   * 
+   * @param table       Name of the table in the database.
+   * @param column      Name of the numerical column the rows are grouped by.
+   * @param origin      Lower bound of the first bucket.
+   * @param width       Width of the buckets, greater than zero.
+   * @param classColumn Name of the numerical class column.
+   * @param conditions  Conditions the rows must pass.
+   * @return The statistics of each bucket holding at least a row, whose value
+   *         is the greatest value of the column in the bucket as a Double, in no
+   *         particular order.
+   * @throws SQLException       If there are problems executing the query.
+   * @throws NullTupleException If the column contains a null value.
+   */
+  public List<GroupStatistics> getBucketStatistics(String table, String column, double origin,
+      double width, String classColumn, List<Condition> conditions)
+      throws SQLException, NullTupleException {
+    return readGroups(prepare("SELECT MAX(" + column + "), COUNT(*), SUM(" + classColumn
+        + "), SUM(" + classColumn + " * " + classColumn + ") FROM " + table
+        + whereClause(conditions) + " GROUP BY FLOOR((" + column + " - " + origin + ") / "
+        + width + ")", conditions), true);
+  }
+
+  /**
+   * Builds the WHERE clause selecting the rows passing all the conditions.
+   * 
+   * @param conditions Conditions the rows must pass.
+   * @return The text of the clause, empty if there are no conditions.
+   */
+  private static String whereClause(List<Condition> conditions) {
+    if (conditions.isEmpty()) {
+      return "";
+    }
+    String clause = " WHERE ";
+    for (int i = 0; i < conditions.size(); i++) {
+      if (i > 0) {
+        clause += " AND ";
+      }
+      clause += conditions.get(i).getClause();
+    }
+    return clause;
+  }
+
+  /**
+   * Prepares a query and binds the values of the conditions to its parameters,
+   * in the order of the conditions.
+   * 
+   * @param query      Text of the query.
+   * @param conditions Conditions whose values are bound.
+   * @return The prepared statement.
+   * @throws SQLException If there are problems preparing the query.
+   */
+  private PreparedStatement prepare(String query, List<Condition> conditions)
+      throws SQLException {
+    PreparedStatement s = db.getConnection().prepareStatement(query);
+    try {
+      for (int i = 0; i < conditions.size(); i++) {
+        s.setObject(i + 1, conditions.get(i).getValue());
+      }
+    } catch (SQLException e) {
+      s.close();
+      throw e;
+    }
+    return s;
+  }
+
+  /**
+   * Executes a query returning a value, a count, a sum and a sum of squares for
+   * each group, and closes it.
+   * 
+   * @param s         Prepared query.
+   * @param numerical True if the value of the groups is numerical.
+   * @return The statistics of each group.
+   * @throws SQLException       If there are problems executing the query.
+   * @throws NullTupleException If the value of a group is null.
+   */
+  private static List<GroupStatistics> readGroups(PreparedStatement s, boolean numerical)
+      throws SQLException, NullTupleException {
+    List<GroupStatistics> groups = new ArrayList<GroupStatistics>();
+    try {
+      ResultSet r = s.executeQuery();
+      while (r.next()) {
+        Object value = numerical ? (Object) r.getDouble(1) : r.getString(1);
+        if (r.wasNull()) {
+          r.close();
+          throw new NullTupleException();
+        }
+        groups.add(new GroupStatistics(value, r.getLong(2), r.getDouble(3), r.getDouble(4)));
+      }
+      r.close();
+    } finally {
+      s.close();
+    }
+    return groups;
   }
 
   /**
@@ -0,0 +1,69 @@
+package database;
+
+import java.util.Arrays;
+
+/**
+ * Models a subset of the rows of a table, so that disjoint subsets can be read
+ * over separate connections. It is either a range of values of a numerical key
+ * column or a window of rows selected with LIMIT and OFFSET. The values of a
+ * range, such as the bounds of the key, are bound to the placeholders of its
+ * clause rather than written in it.
+ * 
+ * @author Fabio
+ *
+ */
+public class TableRange {
+  /**
+   * Range covering all the rows of a table.
+   */
+  public static final TableRange ALL = new TableRange("");
+  /**
+   * SQL clause appended to the query to select the rows of the range.
+   */
+  private final String clause;
+  /**
+   * Values bound, in order, to the placeholders of the clause.
+   */
+  private final Object[] parameters;
+
+  /**
+   * Initializes the attributes clause and parameters.
+   * 
+   * @param clause     SQL clause appended to the query to select the rows of
+   *                   the range.
+   * @param parameters Values bound, in order, to the placeholders of the
+   *                   clause.
+   */
+  TableRange(String clause, Object... parameters) {
+    this.clause = clause;
+    this.parameters = parameters;
+  }
+
+  /**
+   * Returns the SQL clause appended to the query to select the rows of the
+   * range.
+   * 
+   * @return Value of clause.
+   */
+  String getClause() {
+    return clause;
+  }
+
+  /**
+   * Returns the values bound, in order, to the placeholders of the clause.
+   * 
+   * @return Value of parameters.
+   */
+  Object[] getParameters() {
+    return parameters;
+  }
+
+  /**
+   * Returns a string containing all the class info.
+   */
+  @Override
+  public String toString() {
+    return clause + (parameters.length == 0 ? "" : " " + Arrays.toString(parameters));
+  }
+
+}
@@ -3,11 +3,14 @@ package database;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Class used to model the scheme of our table.
@@ -21,6 +24,27 @@ public class TableSchema implements Iterable<Column> {
    */
   private final List<Column> tableSchema = new ArrayList<Column>();
 
+  /**
+   * Last known schema of each table, by table name.
+   */
+  private static final Map<String, TableSchema> cachedSchemas = new ConcurrentHashMap<>();
+  /**
+   * Type used for the values of each supported SQL type, "string" or "number".
+   */
+  private static final Map<String, String> SQL_JAVA_TYPES = new HashMap<String, String>();
+
+  static {
+    SQL_JAVA_TYPES.put("CHAR", "string");
+    SQL_JAVA_TYPES.put("VARCHAR", "string");
+    SQL_JAVA_TYPES.put("LONGVARCHAR", "string");
+    SQL_JAVA_TYPES.put("BIT", "string");
+    SQL_JAVA_TYPES.put("SHORT", "number");
+    SQL_JAVA_TYPES.put("INT", "number");
+    SQL_JAVA_TYPES.put("LONG", "number");
+    SQL_JAVA_TYPES.put("FLOAT", "number");
+    SQL_JAVA_TYPES.put("DOUBLE", "number");
+  }
+
   /**
    * Initializes a List of Column by querying the database.
    * 
@@ -29,28 +53,15 @@ public class TableSchema implements Iterable<Column> {
    * @throws SQLException If there are problems communicating with the database,
    */
   public TableSchema(DbAccess db, String tableName) throws SQLException {
-
-    HashMap<String, String> mapSQL_JAVATypes = new HashMap<String, String>();
-
-    mapSQL_JAVATypes.put("CHAR", "string");
-    mapSQL_JAVATypes.put("VARCHAR", "string");
-    mapSQL_JAVATypes.put("LONGVARCHAR", "string");
-    mapSQL_JAVATypes.put("BIT", "string");
-    mapSQL_JAVATypes.put("SHORT", "number");
-    mapSQL_JAVATypes.put("INT", "number");
-    mapSQL_JAVATypes.put("LONG", "number");
-    mapSQL_JAVATypes.put("FLOAT", "number");
-    mapSQL_JAVATypes.put("DOUBLE", "number");
-
     Connection con = db.getConnection();
     DatabaseMetaData meta = con.getMetaData();
     ResultSet res = meta.getColumns(null, null, tableName, null);
 
     while (res.next()) {
-
-      if (mapSQL_JAVATypes.containsKey(res.getString("TYPE_NAME"))) {
-        tableSchema.add(new Column(res.getString("COLUMN_NAME"),
-            mapSQL_JAVATypes.get(res.getString("TYPE_NAME"))));
+      String type = SQL_JAVA_TYPES.get(res.getString("TYPE_NAME"));
+      if (type != null) {
+        tableSchema.add(
+            new Column(res.getString("COLUMN_NAME"), type, tableSchema.size() + 1));
       }
 
     }
@@ -58,6 +69,77 @@ public class TableSchema implements Iterable<Column> {
 
   }
 
+  /**
+   * Initializes a List of Column with the input names and types, for a table
+   * that is not read from a database.
+   * 
+   * @param names     Names of the columns.
+   * @param numerical For each column, true if it's numerical.
+   */
+  public TableSchema(String[] names, boolean[] numerical) {
+    for (int i = 0; i < names.length; i++) {
+      tableSchema.add(new Column(names[i], numerical[i] ? "number" : "string", i + 1));
+    }
+  }
+
+  /**
+   * Initializes a List of Column from the description of the columns of a
+   * result set, so that the schema of a table is known from the query reading
+   * its rows, without querying the database again.
+   * 
+   * @param meta Description of the columns of the result set.
+   * @throws SQLException If there are problems reading the description.
+   */
+  TableSchema(ResultSetMetaData meta) throws SQLException {
+    for (int i = 1; i <= meta.getColumnCount(); i++) {
+      String type = SQL_JAVA_TYPES.get(meta.getColumnTypeName(i));
+      if (type != null) {
+        tableSchema.add(new Column(meta.getColumnName(i), type, i));
+      }
+    }
+  }
+
+  /**
+   * Returns the schema of a table, querying the database only if the schema is
+   * not known yet.
+   * 
+   * @param db        DbAccess used to query the database.
+   * @param tableName Name of the table in our database.
+   * @return The schema of the table, empty if the table does not exist.
+   * @throws SQLException If there are problems communicating with the database.
+   */
+  public static TableSchema forTable(DbAccess db, String tableName) throws SQLException {
+    TableSchema schema = cachedSchemas.get(tableName);
+    if (schema == null) {
+      schema = new TableSchema(db, tableName);
+      if (schema.getNumberOfAttributes() > 0) {
+        cachedSchemas.put(tableName, schema);
+      }
+    }
+    return schema;
+  }
+
+  /**
+   * Records the schema of a table as seen by the last query reading its rows,
+   * replacing the known one if the table has been altered.
+   * 
+   * @param tableName Name of the table in our database.
+   * @param schema    Current schema of the table.
+   */
+  static void update(String tableName, TableSchema schema) {
+    cachedSchemas.put(tableName, schema);
+  }
+
+  /**
+   * Forgets the known schema of a table, so that it's read again from the
+   * database when needed.
+   * 
+   * @param tableName Name of the table in our database.
+   */
+  public static void invalidate(String tableName) {
+    cachedSchemas.remove(tableName);
+  }
+
   /**
    * Returns the number of columns contained in our table.
    * 
@@ -85,6 +167,22 @@ public class TableSchema implements Iterable<Column> {
     return tableSchema.iterator();
   }
 
+  /**
+   * Checks if the input object is a schema with the same columns.
+   */
+  @Override
+  public boolean equals(Object o) {
+    return o instanceof TableSchema && tableSchema.equals(((TableSchema) o).tableSchema);
+  }
+
+  /**
+   * Returns the hash code of the columns.
+   */
+  @Override
+  public int hashCode() {
+    return tableSchema.hashCode();
+  }
+
   /**
    * Returns a string containing all the class info.
    */
@@ -0,0 +1,78 @@
+package server;
+
+import database.DbConfig;
+import java.io.IOException;
+import java.util.Properties;
+
+/**
+ * Settings of the loading of the training sets, read from the configuration
+ * file of the server together with the settings of the database. Settings
+ * missing from the file keep their default value.
+ * 
+ * @author Fabio
+ *
+ */
+class LoadConfig {
+  /**
+   * Number of connections used at the same time to read a training table.
+   */
+  private final int connections;
+  /**
+   * True if the examples of a training set with the same explanatory values
+   * are grouped into a single row before learning.
+   */
+  private final boolean aggregate;
+
+  /**
+   * Initializes the settings from the input properties, using the default
+   * value of each missing one.
+   * 
+   * @param properties properties holding the settings.
+   * @throws IllegalArgumentException If the number of connections is not a
+   *                                  positive number.
+   */
+  LoadConfig(Properties properties) {
+    connections = (int) DbConfig.getPositive(properties, "load.connections", "1");
+    aggregate = Boolean.parseBoolean(properties.getProperty("load.aggregate", "false"));
+  }
+
+  /**
+   * Reads the settings from the configuration file, or returns the default
+   * settings if there is no configuration file.
+   * 
+   * @return The settings.
+   * @throws IOException If the configuration file exists but can't be read.
+   */
+  static LoadConfig load() throws IOException {
+    return new LoadConfig(DbConfig.readProperties());
+  }
+
+  /**
+   * Returns the number of connections used at the same time to read a training
+   * table.
+   * 
+   * @return Value of connections.
+   */
+  int getConnections() {
+    return connections;
+  }
+
+  /**
+   * Checks if the examples of a training set with the same explanatory values
+   * are grouped into a single row before learning.
+   * 
+   * @return Value of aggregate.
+   */
+  boolean isAggregate() {
+    return aggregate;
+  }
+
+  /**
+   * Returns a string containing all the class info.
+   */
+  @Override
+  public String toString() {
+    return "connections=" + connections + " aggregate=" + aggregate;
+  }
+
+}
@@ -1,8 +1,14 @@
 package server;
 
+import data.SnapshotCache;
+import database.ConnectionPool;
+import database.DatabaseConnectionException;
 import java.io.IOException;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.nio.file.Paths;
+import java.util.Properties;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Instantiates a ServerOneClient for every communication request.
@@ -16,17 +22,130 @@ public class MultiServer {
    * port used to connect to the server.
    */
   private final int port;
+  /**
+   * Pool shared by all the clients to learn the regression trees.
+   */
+  private final ForkJoinPool learningPool;
+  /**
+   * Cache of the snapshots of the training tables shared by all the clients.
+   */
+  private final SnapshotCache snapshotCache;
+  /**
+   * True if the examples of the training sets with the same explanatory values
+   * are grouped into a single row before learning.
+   */
+  private final boolean aggregate;
+  /**
+   * Directory holding the snapshots of the training tables.
+   */
+  private static final String SNAPSHOT_DIRECTORY = "snapshots";
 
   /**
-   * Initializes the attribute port.
+   * Initializes the attribute port and a learning pool with one thread for each
+   * available processor.
    * 
    * @param port port used to connect to the server.
    */
   public MultiServer(int port) {
+    this(port, new ForkJoinPool());
+  }
+
+  /**
+   * Initializes the attributes port and learningPool, and a snapshot cache in
+   * the directory SNAPSHOT_DIRECTORY, with the load settings of the
+   * configuration file.
+   * 
+   * @param port         port used to connect to the server.
+   * @param learningPool pool shared by all the clients to learn the regression
+   *                     trees, its parallelism bounds the number of threads
+   *                     used for learning.
+   */
+  public MultiServer(int port, ForkJoinPool learningPool) {
+    this(port, learningPool, getLoadConfig());
+  }
+
+  /**
+   * Initializes the attributes port and learningPool, and a snapshot cache in
+   * the directory SNAPSHOT_DIRECTORY, with the input load settings.
+   * 
+   * @param port         port used to connect to the server.
+   * @param learningPool pool shared by all the clients to learn the regression
+   *                     trees.
+   * @param loadConfig   settings of the loading of the training sets.
+   */
+  private MultiServer(int port, ForkJoinPool learningPool, LoadConfig loadConfig) {
+    this(port, learningPool,
+        new SnapshotCache(Paths.get(SNAPSHOT_DIRECTORY), getLoadConnections(loadConfig)),
+        loadConfig.isAggregate());
+  }
+
+  /**
+   * Initializes the attributes port, learningPool and snapshotCache.
+   * 
+   * @param port          port used to connect to the server.
+   * @param learningPool  pool shared by all the clients to learn the regression
+   *                      trees, its parallelism bounds the number of threads
+   *                      used for learning.
+   * @param snapshotCache cache of the snapshots of the training tables, used to
+   *                      avoid reading unchanged tables from the database.
+   */
+  public MultiServer(int port, ForkJoinPool learningPool, SnapshotCache snapshotCache) {
+    this(port, learningPool, snapshotCache, false);
+  }
+
+  /**
+   * Initializes the attributes port, learningPool, snapshotCache and aggregate.
+   * 
+   * @param port          port used to connect to the server.
+   * @param learningPool  pool shared by all the clients to learn the regression
+   *                      trees, its parallelism bounds the number of threads
+   *                      used for learning.
+   * @param snapshotCache cache of the snapshots of the training tables, used to
+   *                      avoid reading unchanged tables from the database.
+   * @param aggregate     true if the examples with the same explanatory values
+   *                      are grouped into a single row before learning.
+   */
+  public MultiServer(int port, ForkJoinPool learningPool, SnapshotCache snapshotCache,
+      boolean aggregate) {
     this.port = port;
+    this.learningPool = learningPool;
+    this.snapshotCache = snapshotCache;
+    this.aggregate = aggregate;
     run();
   }
 
+  /**
+   * Reads the settings of the loading of the training sets from the
+   * configuration file.
+   * 
+   * @return The settings, the default ones if the configuration can't be read.
+   */
+  private static LoadConfig getLoadConfig() {
+    try {
+      return LoadConfig.load();
+    } catch (IOException | IllegalArgumentException e) {
+      System.err.println("Cannot read the load settings, using the default ones: "
+          + e.getMessage());
+      return new LoadConfig(new Properties());
+    }
+  }
+
+  /**
+   * Returns the number of connections used at the same time to read a training
+   * table, never more than the maximum number of connections of the pool.
+   * 
+   * @param loadConfig settings of the loading of the training sets.
+   * @return The number of connections, 1 if the pool can't be created.
+   */
+  private static int getLoadConnections(LoadConfig loadConfig) {
+    try {
+      return Math.min(loadConfig.getConnections(),
+          ConnectionPool.getShared().getConfig().getMaxConnections());
+    } catch (DatabaseConnectionException e) {
+      return 1;
+    }
+  }
+
   /**
    * Instantiates a ServerSocket which will wait for a connection request from the
    * client. For every request instantiates a new ServerOneClient
@@ -47,7 +166,7 @@ public class MultiServer {
     while (true) {
       try {
         clientSocket = serverSocket.accept();
-        clientThread = new ServerOneClient(clientSocket);
+        clientThread = new ServerOneClient(clientSocket, learningPool, snapshotCache, aggregate);
         clientThread.start();
       } catch (IOException e) {
         System.err
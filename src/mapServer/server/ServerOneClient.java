@@ -1,13 +1,23 @@
 package server;
 
 import data.Data;
+import data.FileSource;
+import data.SnapshotCache;
+import data.TableStatistics;
 import data.TrainingDataException;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.net.Socket;
+import java.nio.file.Paths;
+import java.util.Properties;
+import java.util.concurrent.ForkJoinPool;
+import tree.GradientBoostedTrees;
 import tree.ImpossibleSerializationException;
+import tree.RegressionForest;
+import tree.RegressionModel;
 import tree.RegressionTree;
+import tree.TrainingConfig;
 
 /**
  * Class used to handle the various client communication requests.
@@ -36,29 +46,80 @@ class ServerOneClient extends Thread {
    * Id of the connected client.
    */
   private final int threadNumber;
+  /**
+   * Pool used to learn the regression tree.
+   */
+  private final ForkJoinPool learningPool;
+  /**
+   * Cache the training sets are loaded from.
+   */
+  private final SnapshotCache snapshotCache;
+  /**
+   * True if the examples with the same explanatory values are grouped into a
+   * single row before learning.
+   */
+  private final boolean aggregate;
+  /**
+   * Minimum number of examples a node must cover for its subtrees to be learnt
+   * in parallel.
+   */
+  private static final int PARALLEL_THRESHOLD = 10000;
+  /**
+   * Prefix of the names of the training sets read from a file of DATA_DIRECTORY
+   * instead of a table of the database.
+   */
+  private static final String FILE_PREFIX = "file:";
+  /**
+   * Directory holding the files training sets can be read from.
+   */
+  private static final String DATA_DIRECTORY = "data";
+  /**
+   * Prefix of the names of the tables whose tree is learnt inside the database,
+   * reading only the statistics of the groups of examples.
+   */
+  private static final String DATABASE_PREFIX = "sql:";
+  /**
+   * Number of buckets the values of each continuous attribute are grouped into
+   * when the tree is learnt inside the database.
+   */
+  private static final int NUMBER_OF_BUCKETS = 256;
 
   /**
    * Initializes the class attributes and starts the thread.
    * 
-   * @param s Connection socket, used to open communication streams.
+   * @param s             Connection socket, used to open communication streams.
+   * @param learningPool  Pool used to learn the regression tree.
+   * @param snapshotCache Cache the training sets are loaded from.
+   * @param aggregate     True if the examples with the same explanatory values
+   *                      are grouped into a single row before learning.
    * @throws IOException If there are problems getting the I/O strems from the
    *                     socket.
    */
-  public ServerOneClient(Socket s) throws IOException {
+  public ServerOneClient(Socket s, ForkJoinPool learningPool, SnapshotCache snapshotCache,
+      boolean aggregate) throws IOException {
     threadNumber = threadCount;
     threadCount++;
+    this.learningPool = learningPool;
+    this.snapshotCache = snapshotCache;
+    this.aggregate = aggregate;
     socket = s;
     in = new ObjectInputStream(socket.getInputStream());
     out = new ObjectOutputStream(socket.getOutputStream());
   }
 
   /**
-   * Overrides the method run() of class Thread.
+   * Overrides the method run() of class Thread. In the learning phase the
+   * client can send the limits of the tree, as a Properties object read by
+   * TrainingConfig, before the name of the training set; if it sends the name
+   * alone the default limits are used. If the limits ask for more than one
+   * tree a RegressionForest is learnt, saved and served in place of the tree,
+   * and if they ask for boosting rounds a GradientBoostedTrees is. A single
+   * tree can also be grown one depth level at a time.
    */
   @Override
   public void run() {
     System.out.println("Starting thread number [" + threadNumber + "]");
-    RegressionTree tree = null;
+    RegressionModel tree = null;
     String tableName;
     Data data = null;
     int phase;
@@ -66,9 +127,58 @@ class ServerOneClient extends Thread {
       phase = (int) in.readObject();
       if (phase == 0) {
         System.out.println("Thread [" + threadNumber + "] is starting learning phase");
-        tableName = in.readObject().toString();
-        data = new Data(tableName);
-        tree = new RegressionTree(data);
+        Object request = in.readObject();
+        TrainingConfig config = TrainingConfig.DEFAULT;
+        if (request instanceof Properties) {
+          config = new TrainingConfig((Properties) request);
+          request = in.readObject();
+        }
+        tableName = request.toString();
+        if (tableName.startsWith(DATABASE_PREFIX)) {
+          if (config.getNumberOfTrees() > 1) {
+            throw new IllegalArgumentException(
+                "A forest can't be learnt inside the database");
+          }
+          if (config.getNumberOfRounds() > 0) {
+            throw new IllegalArgumentException(
+                "Boosted trees can't be learnt inside the database");
+          }
+          if (config.getRandomThresholds() > 0) {
+            throw new IllegalArgumentException(
+                "Random thresholds can't be drawn inside the database");
+          }
+          if (config.isLevelWise()) {
+            throw new IllegalArgumentException(
+                "A tree can't be grown level-wise inside the database");
+          }
+          TableStatistics table = new TableStatistics(
+              tableName.substring(DATABASE_PREFIX.length()), NUMBER_OF_BUCKETS);
+          try {
+            tree = RegressionTree.learnInDatabase(table, config);
+          } finally {
+            table.close();
+          }
+        } else {
+          if (tableName.startsWith(FILE_PREFIX)) {
+            data = new Data(FileSource.inDirectory(Paths.get(DATA_DIRECTORY),
+                tableName.substring(FILE_PREFIX.length())));
+            data.presort();
+          } else {
+            data = snapshotCache.load(tableName);
+          }
+          if (aggregate) {
+            data = data.aggregate();
+          }
+          if (config.getNumberOfTrees() > 1) {
+            tree = new RegressionForest(data, learningPool, config);
+          } else if (config.getNumberOfRounds() > 0) {
+            tree = GradientBoostedTrees.learn(data, config);
+          } else if (config.isLevelWise()) {
+            tree = RegressionTree.learnLevelWise(data, config);
+          } else {
+            tree = new RegressionTree(data, learningPool, PARALLEL_THRESHOLD, config);
+          }
+        }
 
         out.writeObject("OK");
         phase = (int) in.readObject();
@@ -78,14 +188,14 @@ class ServerOneClient extends Thread {
           return;
         }
         System.out.println("Thread [" + threadNumber + "] is saving the tree");
-        tree.save(tableName + ".dmp");
+        tree.save(getTreeFileName(tableName));
         out.writeObject("OK");
 
       } else if (phase == 2) {
         System.out.println("Thread [" + threadNumber + "] is starting loading phase");
         tableName = in.readObject().toString();
 
-        tree = RegressionTree.load(tableName + ".dmp");
+        tree = RegressionModel.load(getTreeFileName(tableName));
 
         out.writeObject("OK");
       } else {
@@ -115,7 +225,7 @@ class ServerOneClient extends Thread {
       System.out.println("Closing thread number [" + threadNumber + "]");
 
     } catch (ClassNotFoundException | IOException | TrainingDataException
-        | ImpossibleSerializationException e) {
+        | ImpossibleSerializationException | IllegalArgumentException e) {
       try {
         out.writeObject(e.getMessage());
       } catch (IOException e1) {
@@ -125,6 +235,17 @@ class ServerOneClient extends Thread {
     }
   }
 
+  /**
+   * Returns the name of the file the tree learnt from a training set is saved
+   * to, replacing the characters that can't be part of a file name.
+   * 
+   * @param tableName name of the training set.
+   * @return The name of the file.
+   */
+  private static String getTreeFileName(String tableName) {
+    return tableName.replaceAll("[:/\\\\]", "_") + ".dmp";
+  }
+
   /**
    * Returns a string containing all the class info.
    */
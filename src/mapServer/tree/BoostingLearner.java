@@ -0,0 +1,356 @@
+package tree;
+
+import data.Data;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Learns a GradientBoostedTrees from a discretized training set, which is only
+ * read. The residual of every example is kept in a single array, updated in
+ * place after each round, and the trees are grown on histograms of the
+ * residuals, whose best split is found by a HistogramSplitFinder.
+ * The histograms of the children of a split are computed by scanning the
+ * examples of all the children but the largest one, whose histogram is the one
+ * of the parent minus the ones of its siblings. A random fraction of the
+ * examples is held out, and boosting stops when the squared error on them has
+ * not improved for a number of rounds, keeping the trees up to the best round.
+ * 
+ * @author Fabio
+ *
+ */
+class BoostingLearner {
+  /**
+   * Discretized training set, only read.
+   */
+  private final Data trainingSet;
+  /**
+   * Limits on the growth of the trees and settings of the boosting.
+   */
+  private final TrainingConfig config;
+  /**
+   * Finder of the best split of a node from its histogram.
+   */
+  private final HistogramSplitFinder splitFinder;
+  /**
+   * Indexes of the examples the trees are learnt from, partitioned among the
+   * nodes of the tree being learnt so that each node covers a range.
+   */
+  private final int[] trainingExamples;
+  /**
+   * Indexes of the examples held out for early stopping.
+   */
+  private final int[] validationExamples;
+  /**
+   * Support buffer used to partition trainingExamples.
+   */
+  private final int[] buffer;
+  /**
+   * Residual of the class value of each example, indexed by example index.
+   */
+  private final double[] residuals;
+  /**
+   * Weight of each example, indexed by example index.
+   */
+  private final double[] weights;
+
+  /**
+   * Initializes the learner on the input training set, drawing the examples
+   * held out from the seed of the configuration.
+   * 
+   * @param trainingSet Discretized training set, only read.
+   * @param config      Limits on the growth of the trees and settings of the
+   *                    boosting.
+   */
+  BoostingLearner(Data trainingSet, TrainingConfig config) {
+    this.trainingSet = trainingSet;
+    this.config = config;
+    splitFinder = new HistogramSplitFinder(trainingSet, false);
+    int numberOfExamples = trainingSet.getNumberOfExamples();
+    int[] training = new int[numberOfExamples];
+    int[] validation = new int[numberOfExamples];
+    int numberOfTraining = 0;
+    int numberOfValidation = 0;
+    SplittableRandom random = new SplittableRandom(config.getSeed());
+    for (int i = 0; i < numberOfExamples; i++) {
+      if (random.nextDouble() < config.getValidationFraction()) {
+        validation[numberOfValidation++] = i;
+      } else {
+        training[numberOfTraining++] = i;
+      }
+    }
+    if (numberOfTraining == 0) {
+      training = validation;
+      numberOfTraining = numberOfValidation;
+      numberOfValidation = 0;
+    }
+    trainingExamples = Arrays.copyOf(training, numberOfTraining);
+    validationExamples = Arrays.copyOf(validation, numberOfValidation);
+    buffer = new int[numberOfTraining];
+    residuals = new double[numberOfExamples];
+    weights = new double[numberOfExamples];
+  }
+
+  /**
+   * Learns the trees round by round, each one on the residuals left by the
+   * previous ones, until the maximum number of rounds is reached or the
+   * squared error on the held-out examples stops improving.
+   * 
+   * @return The learnt model, with the trees up to the round of lowest error
+   *         on the held-out examples, or all of them if no example is held
+   *         out.
+   */
+  GradientBoostedTrees learn() {
+    double trainingWeight = 0;
+    double trainingSum = 0;
+    for (int example : trainingExamples) {
+      weights[example] = trainingSet.getWeight(example);
+      trainingWeight += weights[example];
+      trainingSum += weights[example] * trainingSet.getClassValue(example);
+    }
+    for (int example : validationExamples) {
+      weights[example] = trainingSet.getWeight(example);
+    }
+    double initialValue = trainingSum / trainingWeight;
+    for (int example = 0; example < residuals.length; example++) {
+      residuals[example] = trainingSet.getClassValue(example) - initialValue;
+    }
+
+    List<RegressionTree> trees = new ArrayList<RegressionTree>();
+    int bestNumberOfTrees = 0;
+    double bestError = validationError();
+    for (int round = 0; round < config.getNumberOfRounds(); round++) {
+      trees.add(learnTree(round, trainingWeight));
+      if (validationExamples.length == 0) {
+        bestNumberOfTrees = trees.size();
+        continue;
+      }
+      double error = validationError();
+      if (error < bestError) {
+        bestError = error;
+        bestNumberOfTrees = trees.size();
+      } else if (trees.size() - bestNumberOfTrees >= config.getPatience()) {
+        break;
+      }
+    }
+    return new GradientBoostedTrees(initialValue, config.getLearningRate(),
+        trees.subList(0, bestNumberOfTrees).toArray(new RegressionTree[0]));
+  }
+
+  /**
+   * Returns the mean squared residual of the held-out examples.
+   * 
+   * @return The squared error on the held-out examples, 0 if there are none.
+   */
+  private double validationError() {
+    double weight = 0;
+    double error = 0;
+    for (int example : validationExamples) {
+      weight += weights[example];
+      error += weights[example] * residuals[example] * residuals[example];
+    }
+    return weight == 0 ? 0 : error / weight;
+  }
+
+  /**
+   * Learns the tree of a round on the current residuals, using an explicit
+   * stack of the subtrees still to be learnt, and subtracts its prediction,
+   * scaled by the learning rate, from the residual of every example.
+   * 
+   * @param round          Index of the round.
+   * @param trainingWeight Total weight of the examples the tree is learnt from.
+   * @return The learnt tree.
+   */
+  private RegressionTree learnTree(int round, double trainingWeight) {
+    TrainingRun run = new TrainingRun(config, trainingWeight, config.getSeed() + round);
+    double learningRate = config.getLearningRate();
+    int end = trainingExamples.length - 1;
+    double[] histogram = newHistogram(0, end);
+    RegressionTree[] tree = new RegressionTree[1];
+    Deque<PendingTree> stack = new ArrayDeque<PendingTree>();
+    stack.push(new PendingTree(tree, 0, 0, end, histogram, splitFinder.statisticsOf(histogram),
+        0));
+    while (!stack.isEmpty()) {
+      PendingTree pending = stack.pop();
+      SplitNode split = run.isLeaf(pending.statistics, pending.depth) ? null
+          : splitFinder.determineBestSplitNode(pending.histogram, pending.statistics,
+              pending.begin, pending.end, run.selectAttributes(
+                  splitFinder.getNumberOfAttributes(), pending.begin, pending.depth));
+      if (split == null || !run.acceptSplit(split)) {
+        LeafNode leaf = new LeafNode(pending.begin, pending.end, pending.statistics);
+        pending.parent[pending.child] = new RegressionTree(leaf, null);
+        double step = learningRate * leaf.getPredictedClassValue();
+        for (int i = pending.begin; i <= pending.end; i++) {
+          residuals[trainingExamples[i]] -= step;
+        }
+        continue;
+      }
+      partition(split, pending.begin, pending.end);
+      RegressionTree[] childTree = new RegressionTree[split.getNumberOfChildren()];
+      pending.parent[pending.child] = new RegressionTree(split, childTree);
+      double[][] childHistograms = childHistograms(split, pending.histogram);
+      for (int i = childTree.length - 1; i >= 0; i--) {
+        SplitNode.SplitInfo splitInfo = split.getSplitInfo(i);
+        stack.push(new PendingTree(childTree, i, splitInfo.getBeginIndex(),
+            splitInfo.getEndIndex(), childHistograms[i], splitInfo.getStatistics(),
+            pending.depth + 1));
+      }
+    }
+    for (int example : validationExamples) {
+      residuals[example] -= learningRate * tree[0].predict(trainingSet, example);
+    }
+    return tree[0];
+  }
+
+  /**
+   * Accumulates the histogram of the residuals of the training examples in the
+   * range [begin,end].
+   * 
+   * @param begin Index of the first example of the range.
+   * @param end   Index of the last example of the range.
+   * @return The histogram of the range.
+   */
+  private double[] newHistogram(int begin, int end) {
+    double[] histogram = splitFinder.newHistogram();
+    for (int i = begin; i <= end; i++) {
+      int example = trainingExamples[i];
+      double weight = weights[example];
+      double weightedResidual = weight * residuals[example];
+      double weightedSquare = weightedResidual * residuals[example];
+      for (int a = 0; a < splitFinder.getNumberOfAttributes(); a++) {
+        splitFinder.add(histogram, a, example, weight, weightedResidual, weightedSquare);
+      }
+    }
+    return histogram;
+  }
+
+  /**
+   * Computes the histograms of the children of a split, scanning the examples
+   * of every child but the one covering the most examples, whose histogram is
+   * the histogram of the parent minus the ones of its siblings. The histogram
+   * of the parent is overwritten.
+   * 
+   * @param split     Split whose examples have been partitioned.
+   * @param histogram Histogram of the node of the split.
+   * @return The histogram of each child.
+   */
+  private double[][] childHistograms(SplitNode split, double[] histogram) {
+    int numberOfChildren = split.getNumberOfChildren();
+    int largest = 0;
+    for (int i = 1; i < numberOfChildren; i++) {
+      if (size(split.getSplitInfo(i)) > size(split.getSplitInfo(largest))) {
+        largest = i;
+      }
+    }
+    double[][] childHistograms = new double[numberOfChildren][];
+    for (int i = 0; i < numberOfChildren; i++) {
+      if (i != largest) {
+        SplitNode.SplitInfo splitInfo = split.getSplitInfo(i);
+        childHistograms[i] = newHistogram(splitInfo.getBeginIndex(), splitInfo.getEndIndex());
+        HistogramSplitFinder.subtract(histogram, childHistograms[i]);
+      }
+    }
+    childHistograms[largest] = histogram;
+    return childHistograms;
+  }
+
+  /**
+   * Returns the number of examples covered by a child.
+   * 
+   * @param splitInfo SplitInfo of the child.
+   * @return The number of examples of the child.
+   */
+  private static int size(SplitNode.SplitInfo splitInfo) {
+    return splitInfo.getEndIndex() - splitInfo.getBeginIndex() + 1;
+  }
+
+  /**
+   * Stably partitions the training examples in the range [begin,end] among
+   * the children of a split, so that each child covers the range of its
+   * SplitInfo.
+   * 
+   * @param split Split of the node covering the range.
+   * @param begin Index of the first example of the range.
+   * @param end   Index of the last example of the range.
+   */
+  private void partition(SplitNode split, int begin, int end) {
+    int[] offsets = new int[split.getNumberOfChildren()];
+    for (int i = 0; i < offsets.length; i++) {
+      offsets[i] = split.getSplitInfo(i).getBeginIndex();
+    }
+    for (int i = begin; i <= end; i++) {
+      int example = trainingExamples[i];
+      buffer[offsets[split.testExample(trainingSet, example)]++] = example;
+    }
+    System.arraycopy(buffer, begin, trainingExamples, begin, end - begin + 1);
+  }
+
+  /**
+   * Subtree still to be learnt by learnTree, with the range of training
+   * examples it covers, their histogram and the slot of its parent where it
+   * is stored.
+   * 
+   * @author Fabio
+   *
+   */
+  private static class PendingTree {
+    /**
+     * Child trees of the parent, or a single slot for the whole tree.
+     */
+    private final RegressionTree[] parent;
+    /**
+     * Index of the subtree among the child trees of the parent.
+     */
+    private final int child;
+    /**
+     * Index of the first training example covered by the subtree.
+     */
+    private final int begin;
+    /**
+     * Index of the last training example covered by the subtree.
+     */
+    private final int end;
+    /**
+     * Histogram of the residuals of the examples covered by the subtree.
+     */
+    private final double[] histogram;
+    /**
+     * Statistics of the residuals of the examples covered by the subtree.
+     */
+    private final NodeStatistics statistics;
+    /**
+     * Depth of the subtree.
+     */
+    private final int depth;
+
+    /**
+     * Initializes the subtree to be learnt.
+     * 
+     * @param parent     Child trees of the parent, or a single slot for the
+     *                   whole tree.
+     * @param child      Index of the subtree among the child trees of the
+     *                   parent.
+     * @param begin      Index of the first training example covered by the
+     *                   subtree.
+     * @param end        Index of the last training example covered by the
+     *                   subtree.
+     * @param histogram  Histogram of the residuals of the examples.
+     * @param statistics Statistics of the residuals of the examples.
+     * @param depth      Depth of the subtree.
+     */
+    PendingTree(RegressionTree[] parent, int child, int begin, int end, double[] histogram,
+        NodeStatistics statistics, int depth) {
+      this.parent = parent;
+      this.child = child;
+      this.begin = begin;
+      this.end = end;
+      this.histogram = histogram;
+      this.statistics = statistics;
+      this.depth = depth;
+    }
+  }
+
+}
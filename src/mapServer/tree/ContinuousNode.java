@@ -4,7 +4,9 @@ import data.Attribute;
 import data.ContinuousAttribute;
 import data.Data;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.SplittableRandom;
 
 /**
  * Class used to model the abstraction of the entity "split node", relative to
@@ -24,6 +26,8 @@ class ContinuousNode extends SplitNode {
    * @param endExampleIndex   Index of the last example of the training set
    *                          covered by the node.
    * @param attribute         Independent attribute that defines the split.
+   * @param statistics        Statistics of the class values covered by the
+   *                          node.
    * @throws NoBestExplanatoryValueFoundException When the node is defined on a
    *                                              subset of the training set of
    *                                              length zero or less
@@ -31,14 +35,77 @@ class ContinuousNode extends SplitNode {
    *                                              beginExampleIndex &lt;= 0 )
    */
   ContinuousNode(Data trainingSet, int beginExampleIndex, int endExampleIndex,
-      ContinuousAttribute attribute) throws NoBestExplanatoryValueFoundException {
-    super(trainingSet, beginExampleIndex, endExampleIndex, attribute);
+      ContinuousAttribute attribute, NodeStatistics statistics)
+      throws NoBestExplanatoryValueFoundException {
+    super(trainingSet, beginExampleIndex, endExampleIndex, attribute, statistics);
+  }
+
+  /**
+   * Instantiates a ContinuousNode with no SplitInfo, such as one learnt from the
+   * statistics computed by the database. Its SplitInfo are added by
+   * addSplitInfo.
+   * 
+   * @param beginExampleIndex Index of the first example of the training set
+   *                          covered by the node.
+   * @param endExampleIndex   Index of the last example of the training set
+   *                          covered by the node.
+   * @param statistics        Statistics of the class values covered by the
+   *                          node.
+   * @param attribute         Independent attribute that defines the split.
+   */
+  ContinuousNode(int beginExampleIndex, int endExampleIndex, NodeStatistics statistics,
+      ContinuousAttribute attribute) {
+    super(beginExampleIndex, endExampleIndex, statistics, attribute);
+  }
+
+  /**
+   * Computes the split SSE of the best ContinuousNode of the input attribute
+   * on the examples in the range [beginExampleIndex,endExampleIndex], without
+   * instantiating it. Unless the training set is discretized, the range is
+   * sorted by the attribute first.
+   * 
+   * @param trainingSet       Collection of learning examples.
+   * @param beginExampleIndex Index of the first example of the training set
+   *                          covered by the node.
+   * @param endExampleIndex   Index of the last example of the training set
+   *                          covered by the node.
+   * @param attribute         Independent attribute that defines the split.
+   * @param statistics        Statistics of the class values covered by the
+   *                          node.
+   * @return The sum of the SSEs of the children of the best split.
+   * @throws NoBestExplanatoryValueFoundException When all the examples have the
+   *                                              same value, or fall in the
+   *                                              same bin.
+   */
+  static double evaluate(Data trainingSet, int beginExampleIndex, int endExampleIndex,
+      ContinuousAttribute attribute, NodeStatistics statistics)
+      throws NoBestExplanatoryValueFoundException {
+    SplitScratch scratch = SplitScratch.get();
+    int best;
+    if (trainingSet.isDiscretized()) {
+      best = findBestBin(trainingSet, beginExampleIndex, endExampleIndex, attribute, statistics,
+          scratch);
+    } else {
+      trainingSet.sort(attribute, beginExampleIndex, endExampleIndex);
+      best = findBestThreshold(trainingSet, beginExampleIndex, endExampleIndex, attribute,
+          statistics, scratch.getLeft());
+    }
+    if (best == -1) {
+      throw new NoBestExplanatoryValueFoundException();
+    }
+    double[] left = scratch.getLeft();
+    return NodeStatistics.variance(left[0], left[1], left[2])
+        + NodeStatistics.variance(statistics.getCount() - left[0],
+            statistics.getSum() - left[1], statistics.getSumOfSquares() - left[2]);
   }
 
   /**
    * Method implemented from the abstract super class SplitNode, instantiates
-   * SplitInfo objects with each of the possible continuous values that the
-   * attribute might assume in the given subset.
+   * the SplitInfo objects of the best threshold of the attribute in the given
+   * subset, found by findBestThreshold, or by findBestBin if the training set
+   * is discretized. The examples on the right of the threshold get no child of
+   * their own if their total weight is 1, so that a weighted training set gives
+   * the same children as the one with its rows repeated.
    * 
    * @param trainingSet       Collection of learning examples.
    * @param beginExampleIndex Index of the first example of the training set
@@ -54,43 +121,430 @@ class ContinuousNode extends SplitNode {
    */
   void setSplitInfo(Data trainingSet, int beginExampleIndex, int endExampleIndex,
       Attribute attribute) throws NoBestExplanatoryValueFoundException {
-    Double currentSplitValue = (Double) trainingSet.getExplanatoryValue(beginExampleIndex,
-        attribute.getIndex());
+    ContinuousAttribute continuousAttribute = (ContinuousAttribute) attribute;
+    if (trainingSet.isDiscretized()) {
+      setSplitInfoFromHistogram(trainingSet, beginExampleIndex, endExampleIndex,
+          continuousAttribute);
+      return;
+    }
+    NodeStatistics statistics = getStatistics();
+    double[] leftStatistics = SplitScratch.get().getLeft();
+    int splitIndex = findBestThreshold(trainingSet, beginExampleIndex, endExampleIndex,
+        continuousAttribute, statistics, leftStatistics);
+    if (splitIndex == -1) {
+      throw new NoBestExplanatoryValueFoundException();
+    }
+    double splitValue = trainingSet.getContinuous(splitIndex - 1, continuousAttribute);
+    NodeStatistics left = new NodeStatistics(leftStatistics[0], leftStatistics[1],
+        leftStatistics[2]);
+    List<SplitInfo> bestMapSplit = new ArrayList<SplitInfo>();
+    bestMapSplit.add(new SplitInfo(splitValue, beginExampleIndex, splitIndex - 1, 0, "<=", left));
+    NodeStatistics right = statistics.subtract(left);
+    if (right.getCount() != 1) {
+      bestMapSplit.add(new SplitInfo(splitValue, splitIndex, endExampleIndex, 1, ">", right));
+    }
+    setMapSplit(bestMapSplit);
+  }
+
+  /**
+   * Finds the best threshold of the attribute among the examples in the range
+   * [beginExampleIndex,endExampleIndex], sorted by the attribute. The candidate
+   * thresholds are scored in a single sweep over the range, keeping running
+   * sum and sum of squares of the class values on the left of the threshold,
+   * so that the statistics of the right side are those of the node minus the
+   * ones of the left side and the SSE of both sides is obtained in constant
+   * time for every threshold. The thresholds leaving no weight on a side are
+   * skipped.
+   * 
+   * @param trainingSet       Collection of learning examples, sorted by the
+   *                          attribute.
+   * @param beginExampleIndex Index of the first example of the training set
+   *                          covered by the node.
+   * @param endExampleIndex   Index of the last example of the training set
+   *                          covered by the node.
+   * @param attribute         Independent attribute that defines the split.
+   * @param statistics        Statistics of the class values covered by the
+   *                          node.
+   * @param left              Array where the number, sum and sum of squares
+   *                          of the class values on the left of the best
+   *                          threshold are stored.
+   * @return The index of the first example on the right of the best threshold,
+   *         or -1 if all the examples with a weight have the same value.
+   */
+  private static int findBestThreshold(Data trainingSet, int beginExampleIndex,
+      int endExampleIndex, ContinuousAttribute attribute, NodeStatistics statistics,
+      double[] left) {
+    double currentSplitValue = trainingSet.getContinuous(beginExampleIndex, attribute);
+    double totalSum = statistics.getSum();
+    double totalSumOfSquares = statistics.getSumOfSquares();
+    double totalCount = statistics.getCount();
+    int bestSplitIndex = -1;
     double bestInfoVariance = 0;
-    List<SplitInfo> bestMapSplit = null;
 
+    double leftCount = 0;
+    double leftSum = 0;
+    double leftSumOfSquares = 0;
     for (int i = beginExampleIndex + 1; i <= endExampleIndex; i++) {
-      Double value = (Double) trainingSet.getExplanatoryValue(i, attribute.getIndex());
-      if (value.doubleValue() != currentSplitValue.doubleValue()) {
-        double localVariance = new LeafNode(trainingSet, beginExampleIndex, i - 1).getVariance();
-        double candidateSplitVariance = localVariance;
-        localVariance = new LeafNode(trainingSet, i, endExampleIndex).getVariance();
-        candidateSplitVariance += localVariance;
-        if (bestMapSplit == null) {
-          bestMapSplit = new ArrayList<SplitInfo>();
-          bestMapSplit.add(new SplitInfo(currentSplitValue, beginExampleIndex, i - 1, 0, "<="));
-          bestMapSplit.add(new SplitInfo(currentSplitValue, i, endExampleIndex, 1, ">"));
-          bestInfoVariance = candidateSplitVariance;
-        } else {
-
-          if (candidateSplitVariance < bestInfoVariance) {
+      leftSum += trainingSet.getClassSum(i - 1);
+      leftSumOfSquares += trainingSet.getClassSumOfSquares(i - 1);
+      leftCount += trainingSet.getWeight(i - 1);
+      double value = trainingSet.getContinuous(i, attribute);
+      if (value != currentSplitValue) {
+        double rightCount = totalCount - leftCount;
+        if (leftCount > 0 && rightCount > 0) {
+          double rightSum = totalSum - leftSum;
+          double candidateSplitVariance = leftSumOfSquares - leftSum * leftSum / leftCount
+              + (totalSumOfSquares - leftSumOfSquares) - rightSum * rightSum / rightCount;
+          if (bestSplitIndex == -1 || candidateSplitVariance < bestInfoVariance) {
+            bestSplitIndex = i;
             bestInfoVariance = candidateSplitVariance;
-            bestMapSplit.set(0,
-                new SplitInfo(currentSplitValue, beginExampleIndex, i - 1, 0, "<="));
-            bestMapSplit.set(1, new SplitInfo(currentSplitValue, i, endExampleIndex, 1, ">"));
+            left[0] = leftCount;
+            left[1] = leftSum;
+            left[2] = leftSumOfSquares;
           }
         }
         currentSplitValue = value;
       }
     }
-    if (bestMapSplit == null) {
+    return bestSplitIndex;
+  }
+
+  /**
+   * Instantiates the SplitInfo objects when the training set is discretized,
+   * at the boundary between bins found by findBestBin. The split value is the
+   * greatest value of the attribute falling in the last bin on the left of the
+   * boundary. As in setSplitInfo, the examples on the right get no child if
+   * their total weight is 1.
+   * 
+   * @param trainingSet       Collection of learning examples, sorted by bin.
+   * @param beginExampleIndex Index of the first example of the training set
+   *                          covered by the node.
+   * @param endExampleIndex   Index of the last example of the training set
+   *                          covered by the node.
+   * @param attribute         Independent attribute that defines the split.
+   * @throws NoBestExplanatoryValueFoundException When all the examples covered by
+   *                                              the node fall in the same bin.
+   */
+  private void setSplitInfoFromHistogram(Data trainingSet, int beginExampleIndex,
+      int endExampleIndex, ContinuousAttribute attribute)
+      throws NoBestExplanatoryValueFoundException {
+    NodeStatistics statistics = getStatistics();
+    SplitScratch scratch = SplitScratch.get();
+    int bestBin = findBestBin(trainingSet, beginExampleIndex, endExampleIndex, attribute,
+        statistics, scratch);
+    if (bestBin == -1) {
       throw new NoBestExplanatoryValueFoundException();
     }
+    int splitIndex = beginExampleIndex;
+    int[] rows = scratch.getRows();
+    for (int bin = 0; bin <= bestBin; bin++) {
+      splitIndex += rows[bin];
+    }
+    double[] leftStatistics = scratch.getLeft();
+    NodeStatistics left = new NodeStatistics(leftStatistics[0], leftStatistics[1],
+        leftStatistics[2]);
+    Double splitValue = trainingSet.getBinUpperBound(attribute, bestBin);
+    List<SplitInfo> bestMapSplit = new ArrayList<SplitInfo>();
+    bestMapSplit.add(new SplitInfo(splitValue, beginExampleIndex, splitIndex - 1, 0, "<=", left));
+    NodeStatistics right = statistics.subtract(left);
+    if (right.getCount() != 1) {
+      bestMapSplit.add(new SplitInfo(splitValue, splitIndex, endExampleIndex, 1, ">", right));
+    }
     setMapSplit(bestMapSplit);
-    if ((getMapSplit().get(1).getBeginIndex() == getMapSplit().get(1).getEndIndex())) {
-      getMapSplit().remove(1);
+  }
+
+  /**
+   * Finds the best boundary between the bins of the attribute among the
+   * examples in the range [beginExampleIndex,endExampleIndex], in any order.
+   * The count, sum and sum of squares of the class values are accumulated for
+   * each bin of the attribute in the buffers of the thread, each row counting
+   * as its weight, then the boundaries between bins are scored in a single
+   * sweep over the histogram, the statistics of the right side being those of
+   * the node minus the ones of the left side. The boundaries leaving no weight
+   * on a side are skipped.
+   * 
+   * @param trainingSet       Collection of learning examples.
+   * @param beginExampleIndex Index of the first example of the training set
+   *                          covered by the node.
+   * @param endExampleIndex   Index of the last example of the training set
+   *                          covered by the node.
+   * @param attribute         Independent attribute that defines the split.
+   * @param statistics        Statistics of the class values covered by the
+   *                          node.
+   * @param scratch           Buffers of the thread, where the histogram and
+   *                          the statistics on the left of the best boundary
+   *                          are stored.
+   * @return The last bin on the left of the best boundary, or -1 if all the
+   *         examples with a weight fall in the same bin.
+   */
+  private static int findBestBin(Data trainingSet, int beginExampleIndex, int endExampleIndex,
+      ContinuousAttribute attribute, NodeStatistics statistics, SplitScratch scratch) {
+    int numberOfBins = trainingSet.getNumberOfBins(attribute);
+    scratch.clear(numberOfBins);
+    int[] rows = scratch.getRows();
+    double[] counts = scratch.getCounts();
+    double[] sums = scratch.getSums();
+    double[] sumsOfSquares = scratch.getSumsOfSquares();
+    for (int i = beginExampleIndex; i <= endExampleIndex; i++) {
+      int bin = trainingSet.getBin(i, attribute);
+      rows[bin]++;
+      counts[bin] += trainingSet.getWeight(i);
+      sums[bin] += trainingSet.getClassSum(i);
+      sumsOfSquares[bin] += trainingSet.getClassSumOfSquares(i);
+    }
+    double totalSum = statistics.getSum();
+    double totalSumOfSquares = statistics.getSumOfSquares();
+    double totalCount = statistics.getCount();
+    int totalRows = endExampleIndex - beginExampleIndex + 1;
+
+    double[] left = scratch.getLeft();
+    int bestBin = -1;
+    double bestInfoVariance = 0;
+    int leftRows = 0;
+    double leftCount = 0;
+    double leftSum = 0;
+    double leftSumOfSquares = 0;
+    for (int bin = 0; bin < numberOfBins - 1; bin++) {
+      leftRows += rows[bin];
+      leftCount += counts[bin];
+      leftSum += sums[bin];
+      leftSumOfSquares += sumsOfSquares[bin];
+      double rightCount = totalCount - leftCount;
+      if (rows[bin] == 0 || leftRows == totalRows || leftCount <= 0 || rightCount <= 0) {
+        continue;
+      }
+      double rightSum = totalSum - leftSum;
+      double candidateSplitVariance = leftSumOfSquares - leftSum * leftSum / leftCount
+          + (totalSumOfSquares - leftSumOfSquares) - rightSum * rightSum / rightCount;
+      if (bestBin == -1 || candidateSplitVariance < bestInfoVariance) {
+        bestBin = bin;
+        bestInfoVariance = candidateSplitVariance;
+        left[0] = leftCount;
+        left[1] = leftSum;
+        left[2] = leftSumOfSquares;
+      }
+    }
+    return bestBin;
+  }
+
+  /**
+   * Computes the split SSE of the best ContinuousNode of the input attribute
+   * among a number of thresholds drawn at random, Extra-Trees style, without
+   * instantiating it and without sorting the examples in the range
+   * [beginExampleIndex,endExampleIndex], so that the time does not depend on
+   * the number of distinct values of the attribute.
+   * 
+   * @param trainingSet        Collection of learning examples.
+   * @param beginExampleIndex  Index of the first example of the training set
+   *                           covered by the node.
+   * @param endExampleIndex    Index of the last example of the training set
+   *                           covered by the node.
+   * @param attribute          Independent attribute that defines the split.
+   * @param statistics         Statistics of the class values covered by the
+   *                           node.
+   * @param random             Generator of the thresholds.
+   * @param numberOfThresholds Number of thresholds to draw.
+   * @return The sum of the SSEs of the children of the best split.
+   * @throws NoBestExplanatoryValueFoundException When all the examples have the
+   *                                              same value, or fall in the
+   *                                              same bin.
+   */
+  static double evaluateRandom(Data trainingSet, int beginExampleIndex, int endExampleIndex,
+      ContinuousAttribute attribute, NodeStatistics statistics, SplittableRandom random,
+      int numberOfThresholds) throws NoBestExplanatoryValueFoundException {
+    double[] left = SplitScratch.get().getLeft();
+    if (Double.isNaN(findBestRandomThreshold(trainingSet, beginExampleIndex, endExampleIndex,
+        attribute, statistics, random, numberOfThresholds, left))) {
+      throw new NoBestExplanatoryValueFoundException();
+    }
+    return NodeStatistics.variance(left[0], left[1], left[2])
+        + NodeStatistics.variance(statistics.getCount() - left[0],
+            statistics.getSum() - left[1], statistics.getSumOfSquares() - left[2]);
+  }
 
+  /**
+   * Instantiates the ContinuousNode of the best threshold of the attribute
+   * among the ones drawn at random by the input generator, which must draw
+   * the same thresholds as the one given to evaluateRandom. The range is then
+   * partitioned around the threshold in a single pass, without sorting it, so
+   * that the examples on the left of the threshold come first. The split value
+   * is the greatest value of the attribute not greater than the threshold, or
+   * the greatest value falling in the bin of the threshold if the training set
+   * is discretized.
+   * 
+   * @param trainingSet        Collection of learning examples.
+   * @param beginExampleIndex  Index of the first example of the training set
+   *                           covered by the node.
+   * @param endExampleIndex    Index of the last example of the training set
+   *                           covered by the node.
+   * @param attribute          Independent attribute that defines the split.
+   * @param statistics         Statistics of the class values covered by the
+   *                           node.
+   * @param random             Generator of the thresholds.
+   * @param numberOfThresholds Number of thresholds to draw.
+   * @return The ContinuousNode.
+   * @throws NoBestExplanatoryValueFoundException When all the examples have the
+   *                                              same value, or fall in the
+   *                                              same bin.
+   */
+  static ContinuousNode newRandomNode(Data trainingSet, int beginExampleIndex,
+      int endExampleIndex, ContinuousAttribute attribute, NodeStatistics statistics,
+      SplittableRandom random, int numberOfThresholds)
+      throws NoBestExplanatoryValueFoundException {
+    double[] leftStatistics = SplitScratch.get().getLeft();
+    double threshold = findBestRandomThreshold(trainingSet, beginExampleIndex, endExampleIndex,
+        attribute, statistics, random, numberOfThresholds, leftStatistics);
+    if (Double.isNaN(threshold)) {
+      throw new NoBestExplanatoryValueFoundException();
+    }
+    NodeStatistics left = new NodeStatistics(leftStatistics[0], leftStatistics[1],
+        leftStatistics[2]);
+    int splitIndex = trainingSet.partition(attribute, threshold, beginExampleIndex,
+        endExampleIndex);
+    double splitValue;
+    if (trainingSet.isDiscretized()) {
+      splitValue = trainingSet.getBinUpperBound(attribute, (int) threshold);
+    } else {
+      splitValue = Double.NEGATIVE_INFINITY;
+      for (int i = beginExampleIndex; i < splitIndex; i++) {
+        splitValue = Math.max(splitValue, trainingSet.getContinuous(i, attribute));
+      }
     }
+    ContinuousNode node = new ContinuousNode(beginExampleIndex, endExampleIndex, statistics,
+        attribute);
+    node.addSplitInfo(splitValue, beginExampleIndex, splitIndex - 1, "<=", left);
+    node.addSplitInfo(splitValue, splitIndex, endExampleIndex, ">", statistics.subtract(left));
+    return node;
+  }
+
+  /**
+   * Finds the best threshold of the attribute among a number of thresholds
+   * drawn uniformly between the least and the greatest value of the examples
+   * with a weight in the range [beginExampleIndex,endExampleIndex], in any
+   * order, or between their least and greatest bin if the training set is
+   * discretized. The count, sum and sum of squares of the class values are
+   * accumulated for each interval between consecutive thresholds, finding the
+   * interval of each example by binary search, then the thresholds are scored
+   * in a single sweep over the intervals. The thresholds leaving no weight on
+   * a side are skipped.
+   * 
+   * @param trainingSet        Collection of learning examples.
+   * @param beginExampleIndex  Index of the first example of the training set
+   *                           covered by the node.
+   * @param endExampleIndex    Index of the last example of the training set
+   *                           covered by the node.
+   * @param attribute          Independent attribute that defines the split.
+   * @param statistics         Statistics of the class values covered by the
+   *                           node.
+   * @param random             Generator of the thresholds.
+   * @param numberOfThresholds Number of thresholds to draw.
+   * @param left               Array where the number, sum and sum of squares
+   *                           of the class values on the left of the best
+   *                           threshold are stored.
+   * @return The best threshold, a bin if the training set is discretized, or
+   *         NaN if all the examples with a weight have the same value.
+   */
+  private static double findBestRandomThreshold(Data trainingSet, int beginExampleIndex,
+      int endExampleIndex, ContinuousAttribute attribute, NodeStatistics statistics,
+      SplittableRandom random, int numberOfThresholds, double[] left) {
+    double min = Double.POSITIVE_INFINITY;
+    double max = Double.NEGATIVE_INFINITY;
+    for (int i = beginExampleIndex; i <= endExampleIndex; i++) {
+      if (trainingSet.getWeight(i) > 0) {
+        double key = getKey(trainingSet, i, attribute);
+        min = Math.min(min, key);
+        max = Math.max(max, key);
+      }
+    }
+    if (!(min < max)) {
+      return Double.NaN;
+    }
+    double[] thresholds = new double[numberOfThresholds];
+    for (int j = 0; j < numberOfThresholds; j++) {
+      thresholds[j] = trainingSet.isDiscretized()
+          ? min + random.nextInt((int) (max - min))
+          : min + random.nextDouble() * (max - min);
+    }
+    Arrays.sort(thresholds);
+
+    SplitScratch scratch = SplitScratch.get();
+    scratch.clear(numberOfThresholds + 1);
+    double[] counts = scratch.getCounts();
+    double[] sums = scratch.getSums();
+    double[] sumsOfSquares = scratch.getSumsOfSquares();
+    for (int i = beginExampleIndex; i <= endExampleIndex; i++) {
+      int interval = countBelow(thresholds, getKey(trainingSet, i, attribute));
+      counts[interval] += trainingSet.getWeight(i);
+      sums[interval] += trainingSet.getClassSum(i);
+      sumsOfSquares[interval] += trainingSet.getClassSumOfSquares(i);
+    }
+    double totalSum = statistics.getSum();
+    double totalSumOfSquares = statistics.getSumOfSquares();
+    double totalCount = statistics.getCount();
+
+    int best = -1;
+    double bestInfoVariance = 0;
+    double leftCount = 0;
+    double leftSum = 0;
+    double leftSumOfSquares = 0;
+    for (int j = 0; j < numberOfThresholds; j++) {
+      leftCount += counts[j];
+      leftSum += sums[j];
+      leftSumOfSquares += sumsOfSquares[j];
+      double rightCount = totalCount - leftCount;
+      if (leftCount <= 0 || rightCount <= 0) {
+        continue;
+      }
+      double rightSum = totalSum - leftSum;
+      double candidateSplitVariance = leftSumOfSquares - leftSum * leftSum / leftCount
+          + (totalSumOfSquares - leftSumOfSquares) - rightSum * rightSum / rightCount;
+      if (best == -1 || candidateSplitVariance < bestInfoVariance) {
+        best = j;
+        bestInfoVariance = candidateSplitVariance;
+        left[0] = leftCount;
+        left[1] = leftSum;
+        left[2] = leftSumOfSquares;
+      }
+    }
+    return best == -1 ? Double.NaN : thresholds[best];
+  }
+
+  /**
+   * Returns the value of the attribute for an example, or its bin if the
+   * training set is discretized.
+   * 
+   * @param trainingSet  Collection of learning examples.
+   * @param exampleIndex Index of the example.
+   * @param attribute    Continuous attribute.
+   * @return The value or the bin of the example.
+   */
+  private static double getKey(Data trainingSet, int exampleIndex,
+      ContinuousAttribute attribute) {
+    return trainingSet.isDiscretized() ? trainingSet.getBin(exampleIndex, attribute)
+        : trainingSet.getContinuous(exampleIndex, attribute);
+  }
+
+  /**
+   * Returns the number of thresholds lower than the key, that is the index of
+   * the interval between consecutive thresholds the key falls in, the key
+   * belonging to the interval on the left of a threshold equal to it.
+   * 
+   * @param thresholds Thresholds in ascending order.
+   * @param key        Value or bin of an example.
+   * @return The number of thresholds lower than key.
+   */
+  private static int countBelow(double[] thresholds, double key) {
+    int low = 0;
+    int high = thresholds.length;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (thresholds[middle] < key) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
   }
 
   /**
@@ -111,6 +565,26 @@ class ContinuousNode extends SplitNode {
     return -1;
   }
 
+  /**
+   * Method implemented from the abstract super class SplitNode, compares the
+   * value of the attribute of the example with the split value: the example
+   * belongs to the first child if its value is not greater, else to the second
+   * one, if any.
+   * 
+   * @param trainingSet  Collection of examples.
+   * @param exampleIndex Index of the example to test.
+   * @return Index of the SplitInfo of the example, or -1 if its value is
+   *         greater than the split value and the node has a single child.
+   */
+  @Override
+  int testExample(Data trainingSet, int exampleIndex) {
+    double value = trainingSet.getContinuous(exampleIndex, (ContinuousAttribute) getAttribute());
+    if (value <= (Double) getSplitInfo(0).getSplitValue()) {
+      return 0;
+    }
+    return getNumberOfChildren() > 1 ? 1 : -1;
+  }
+
   /**
    * Returns a string containing all the class info.
    */
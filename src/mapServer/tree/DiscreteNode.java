@@ -23,6 +23,8 @@ class DiscreteNode extends SplitNode {
    * @param endExampleIndex   Index of the last example of the training set
    *                          covered by the node.
    * @param attribute         Independent attribute that defines the split.
+   * @param statistics        Statistics of the class values covered by the
+   *                          node.
    * @throws NoBestExplanatoryValueFoundException When the node is defined on a
    *                                              subset of the training set of
    *                                              length zero or less
@@ -30,14 +32,77 @@ class DiscreteNode extends SplitNode {
    *                                              beginExampleIndex &lt;= 0 )
    */
   DiscreteNode(Data trainingSet, int beginExampleIndex, int endExampleIndex,
-      DiscreteAttribute attribute) throws NoBestExplanatoryValueFoundException {
-    super(trainingSet, beginExampleIndex, endExampleIndex, attribute);
+      DiscreteAttribute attribute, NodeStatistics statistics)
+      throws NoBestExplanatoryValueFoundException {
+    super(trainingSet, beginExampleIndex, endExampleIndex, attribute, statistics);
+  }
+
+  /**
+   * Instantiates a DiscreteNode with no SplitInfo, such as one learnt from the
+   * statistics computed by the database. Its SplitInfo are added by
+   * addSplitInfo.
+   * 
+   * @param beginExampleIndex Index of the first example of the training set
+   *                          covered by the node.
+   * @param endExampleIndex   Index of the last example of the training set
+   *                          covered by the node.
+   * @param statistics        Statistics of the class values covered by the
+   *                          node.
+   * @param attribute         Independent attribute that defines the split.
+   */
+  DiscreteNode(int beginExampleIndex, int endExampleIndex, NodeStatistics statistics,
+      DiscreteAttribute attribute) {
+    super(beginExampleIndex, endExampleIndex, statistics, attribute);
+  }
+
+  /**
+   * Computes the split SSE of the DiscreteNode of the input attribute on the
+   * examples in the range [beginExampleIndex,endExampleIndex], without
+   * instantiating it nor sorting the range: the count, sum and sum of squares
+   * of the class values of each discrete value are accumulated in the buffers
+   * of the thread. The values whose examples have no weight make no child.
+   * 
+   * @param trainingSet       Collection of learning examples.
+   * @param beginExampleIndex Index of the first example of the training set
+   *                          covered by the node.
+   * @param endExampleIndex   Index of the last example of the training set
+   *                          covered by the node.
+   * @param attribute         Independent attribute that defines the split.
+   * @return The sum of the SSEs of the children of the split.
+   */
+  static double evaluate(Data trainingSet, int beginExampleIndex, int endExampleIndex,
+      DiscreteAttribute attribute) {
+    int numberOfValues = attribute.getNumberOfDistinctValues();
+    SplitScratch scratch = SplitScratch.get();
+    scratch.clear(numberOfValues);
+    double[] counts = scratch.getCounts();
+    double[] sums = scratch.getSums();
+    double[] sumsOfSquares = scratch.getSumsOfSquares();
+    for (int i = beginExampleIndex; i <= endExampleIndex; i++) {
+      int code = trainingSet.getDiscreteCode(i, attribute);
+      counts[code] += trainingSet.getWeight(i);
+      sums[code] += trainingSet.getClassSum(i);
+      sumsOfSquares[code] += trainingSet.getClassSumOfSquares(i);
+    }
+    double splitVariance = 0;
+    for (int code = 0; code < numberOfValues; code++) {
+      if (counts[code] > 0) {
+        splitVariance += NodeStatistics.variance(counts[code], sums[code], sumsOfSquares[code]);
+      }
+    }
+    return splitVariance;
   }
 
   /**
    * Method implemented from the abstract super class SplitNode, instantiates
    * SplitInfo objects with each of the possible discrete values that the
-   * attribute might assume in the given subset.
+   * attribute might assume in the given subset. The split value of each
+   * SplitInfo is the code of the discrete value. The statistics of each child
+   * are accumulated in the same scan that finds its range, except for the ones
+   * of the last child, which are those of the node minus the ones of its
+   * siblings. The examples of a value with no weight make no child of their
+   * own, and are covered by the child of the next value, or of the previous
+   * one if it is the last value.
    * 
    * @param trainingSet       Collection of learning examples.
    * @param beginExampleIndex Index of the first example of the training set
@@ -54,22 +119,41 @@ class DiscreteNode extends SplitNode {
   void setSplitInfo(Data trainingSet, int beginExampleIndex, int endExampleIndex,
       Attribute attribute) throws NoBestExplanatoryValueFoundException {
 
+    DiscreteAttribute discreteAttribute = (DiscreteAttribute) attribute;
     setMapSplit(new ArrayList<>());
     int mapSplitPos = 0;
     int j = beginExampleIndex;
+    NodeStatistics siblings = NodeStatistics.EMPTY;
+    double count = 0;
+    double sum = 0;
+    double sumOfSquares = 0;
     for (int i = beginExampleIndex; i < endExampleIndex; i++) {
-      if (!trainingSet.getExplanatoryValue(i, attribute.getIndex())
-          .equals(trainingSet.getExplanatoryValue(i + 1, attribute.getIndex()))) {
-
-        getMapSplit().add(new SplitInfo(trainingSet.getExplanatoryValue(i, attribute.getIndex()), j,
-            i, mapSplitPos));
+      int code = trainingSet.getDiscreteCode(i, discreteAttribute);
+      count += trainingSet.getWeight(i);
+      sum += trainingSet.getClassSum(i);
+      sumOfSquares += trainingSet.getClassSumOfSquares(i);
+      if (code != trainingSet.getDiscreteCode(i + 1, discreteAttribute) && count > 0) {
+        NodeStatistics statistics = new NodeStatistics(count, sum, sumOfSquares);
+        getMapSplit().add(new SplitInfo(code, j, i, mapSplitPos, statistics));
+        siblings = siblings.add(statistics);
+        count = 0;
+        sum = 0;
+        sumOfSquares = 0;
         j = i + 1;
         mapSplitPos++;
       }
     }
-    getMapSplit()
-        .add(new SplitInfo(trainingSet.getExplanatoryValue(endExampleIndex, attribute.getIndex()),
-            j, endExampleIndex, mapSplitPos));
+    count += trainingSet.getWeight(endExampleIndex);
+    NodeStatistics last = getStatistics().subtract(siblings);
+    if (count > 0 || mapSplitPos == 0) {
+      getMapSplit().add(new SplitInfo(
+          trainingSet.getDiscreteCode(endExampleIndex, discreteAttribute), j, endExampleIndex,
+          mapSplitPos, last));
+    } else {
+      SplitInfo previous = getMapSplit().remove(mapSplitPos - 1);
+      getMapSplit().add(new SplitInfo(previous.getSplitValue(), previous.getBeginIndex(),
+          endExampleIndex, mapSplitPos - 1, previous.getStatistics().add(last)));
+    }
 
   }
 
@@ -79,18 +163,52 @@ class DiscreteNode extends SplitNode {
    * the SplitInfo inside the ArrayList mapSplit. If it is equal to one of them,
    * returns its index in the list, else returns -1.
    * 
-   * @param value Value of the discrete attribute that we want to find.
+   * @param value Value of the discrete attribute that we want to find, either as
+   *              a String or as its code.
    * @return Index of the SplitInfo associated with value inside mapSplit.
    */
   int testCondition(Object value) {
-    for (SplitInfo splitInfo : getMapSplit()) {
-      if (splitInfo.getSplitValue().equals(value)) {
-        return getMapSplit().indexOf(splitInfo);
+    int code;
+    if (value instanceof String) {
+      code = ((DiscreteAttribute) getAttribute()).getCode((String) value);
+    } else {
+      code = (Integer) value;
+    }
+    for (int i = 0; i < getMapSplit().size(); i++) {
+      if ((Integer) getMapSplit().get(i).getSplitValue() == code) {
+        return i;
       }
     }
     return -1;
   }
 
+  /**
+   * Method implemented from the abstract super class SplitNode, tests the code
+   * of the value of the attribute of the example against the split values.
+   * 
+   * @param trainingSet  Collection of examples.
+   * @param exampleIndex Index of the example to test.
+   * @return Index of the SplitInfo of the value of the example, or -1 if no
+   *         child holds the value.
+   */
+  @Override
+  int testExample(Data trainingSet, int exampleIndex) {
+    return testCondition(trainingSet.getDiscreteCode(exampleIndex,
+        (DiscreteAttribute) getAttribute()));
+  }
+
+  /**
+   * Decodes the code stored as split value into the discrete value it stands
+   * for.
+   * 
+   * @param splitValue code of the discrete value.
+   * @return The discrete value associated with the code.
+   */
+  @Override
+  Object decodeSplitValue(Object splitValue) {
+    return ((DiscreteAttribute) getAttribute()).getValue((Integer) splitValue);
+  }
+
   /**
    * Returns a string containing all the class info.
    */
@@ -0,0 +1,118 @@
+package tree;
+
+import data.Data;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import server.UnknownValueException;
+
+/**
+ * Class used to model an ensemble of regression trees learnt by gradient
+ * boosting on the squared error: each tree predicts the residuals left by the
+ * trees before it, and the predicted class value is the average class value of
+ * the training set plus the predictions of all the trees, each one scaled by
+ * the learning rate.
+ * 
+ * @author Fabio
+ *
+ */
+@SuppressWarnings("serial")
+public class GradientBoostedTrees extends RegressionModel {
+  /**
+   * Average class value of the training set, predicted before any tree.
+   */
+  private final double initialValue;
+  /**
+   * Fraction of the prediction of each tree added to the model.
+   */
+  private final double learningRate;
+  /**
+   * Trees of the model, in the order they have been learnt.
+   */
+  private final RegressionTree[] trees;
+
+  /**
+   * Instantiates the model from its learnt parts.
+   * 
+   * @param initialValue Average class value of the training set.
+   * @param learningRate Fraction of the prediction of each tree added to the
+   *                     model.
+   * @param trees        Trees of the model, in the order they have been learnt.
+   */
+  GradientBoostedTrees(double initialValue, double learningRate, RegressionTree[] trees) {
+    this.initialValue = initialValue;
+    this.learningRate = learningRate;
+    this.trees = trees;
+  }
+
+  /**
+   * Learns a GradientBoostedTrees on the input training set, within the limits
+   * of the configuration for each tree, for at most the number of rounds of
+   * the configuration. The continuous attributes of the training set are
+   * discretized, unless they already are, and the bins are reused by every
+   * round.
+   * 
+   * @param trainingSet Collection of training examples.
+   * @param config      Limits on the growth of the trees and settings of the
+   *                    boosting.
+   * @return The learnt model.
+   */
+  public static GradientBoostedTrees learn(Data trainingSet, TrainingConfig config) {
+    if (!trainingSet.isDiscretized()) {
+      trainingSet.discretize(Data.MAX_BINS);
+    }
+    return new BoostingLearner(trainingSet, config).learn();
+  }
+
+  /**
+   * Returns the number of trees of the model.
+   * 
+   * @return The length of trees.
+   */
+  public int getNumberOfTrees() {
+    return trees.length;
+  }
+
+  /**
+   * Allows the user to make a prediction based on the current model, walking
+   * down every tree. A test shared by several trees is asked to the client only
+   * once.
+   * 
+   * @param in  Input stream to communicate with the client.
+   * @param out Output stream to communicate with the client.
+   * @return The predicted class value.
+   * @throws UnknownValueException  If the user input is not the index of a
+   *                                child of the split node.
+   * @throws IOException            If there are communication problems.
+   * @throws ClassNotFoundException If the user input is not an instance of a
+   *                                known class.
+   */
+  @Override
+  public Double predictClass(ObjectInputStream in, ObjectOutputStream out)
+      throws UnknownValueException, IOException, ClassNotFoundException {
+    Map<String, Integer> answers = new HashMap<String, Integer>();
+    double predictedValue = initialValue;
+    for (RegressionTree tree : trees) {
+      predictedValue += learningRate * tree.predict(in, out, answers);
+    }
+    out.writeObject("OK");
+    return predictedValue;
+  }
+
+  /**
+   * Returns a string containing all the class info.
+   */
+  @Override
+  public String toString() {
+    StringBuilder model = new StringBuilder("INITIAL VALUE : " + initialValue
+        + " LEARNING RATE : " + learningRate + "\n");
+    for (int i = 0; i < trees.length; i++) {
+      model.append("********* ROUND ").append(i).append(" *********\n").append(trees[i])
+          .append("\n");
+    }
+    return model.toString();
+  }
+
+}
@@ -0,0 +1,348 @@
+package tree;
+
+import data.Attribute;
+import data.ContinuousAttribute;
+import data.Data;
+import data.DiscreteAttribute;
+
+/**
+ * Finds the best split of a node of a discretized training set from the
+ * histogram of the node, which holds, for each bin of each continuous attribute
+ * and for each value of each discrete one, the number of rows and the count,
+ * sum and sum of squares of the values the tree is learnt on. The bins of all
+ * the attributes are laid out one after the other in a single array, so that
+ * the learners can build, add and subtract histograms without knowing the
+ * attributes.
+ * 
+ * @author Fabio
+ *
+ */
+final class HistogramSplitFinder {
+  /**
+   * Number of values kept for each bin of a histogram: the number of rows,
+   * the count, sum and sum of squares of their values.
+   */
+  static final int BIN_SIZE = 4;
+  /**
+   * Discretized training set, only read.
+   */
+  private final Data trainingSet;
+  /**
+   * Explanatory attributes of the training set, indexed by attribute index.
+   */
+  private final Attribute[] attributes;
+  /**
+   * Index of the first bin of each attribute in a histogram, the last entry
+   * being the number of bins of a histogram.
+   */
+  private final int[] histogramOffsets;
+  /**
+   * True if the splits follow the rules of the depth-first learning of a
+   * RegressionTree: a node is a leaf if the best attribute is a discrete one
+   * with a single value, and a continuous split gives no child of its own to
+   * the rows on its right if their total weight is 1. If false, the discrete
+   * attributes with a single value are skipped, as the continuous attributes
+   * whose rows all fall in one bin always are.
+   */
+  private final boolean matchDepthFirst;
+
+  /**
+   * Lays out the bins of the attributes of the input training set.
+   * 
+   * @param trainingSet     Discretized training set, only read.
+   * @param matchDepthFirst True if the splits follow the rules of the
+   *                        depth-first learning, false if the attributes that
+   *                        can't split a node are skipped.
+   */
+  HistogramSplitFinder(Data trainingSet, boolean matchDepthFirst) {
+    this.trainingSet = trainingSet;
+    this.matchDepthFirst = matchDepthFirst;
+    int numberOfAttributes = trainingSet.getNumberOfExplanatoryAttributes();
+    attributes = new Attribute[numberOfAttributes];
+    histogramOffsets = new int[numberOfAttributes + 1];
+    for (int i = 0; i < numberOfAttributes; i++) {
+      attributes[i] = trainingSet.getExplanatoryAttribute(i);
+      histogramOffsets[i + 1] = histogramOffsets[i] + (attributes[i] instanceof DiscreteAttribute
+          ? ((DiscreteAttribute) attributes[i]).getNumberOfDistinctValues()
+          : trainingSet.getNumberOfBins((ContinuousAttribute) attributes[i]));
+    }
+  }
+
+  /**
+   * Returns the number of explanatory attributes.
+   * 
+   * @return The length of attributes.
+   */
+  int getNumberOfAttributes() {
+    return attributes.length;
+  }
+
+  /**
+   * Returns a new empty histogram.
+   * 
+   * @return An array of BIN_SIZE zeros for each bin of each attribute.
+   */
+  double[] newHistogram() {
+    return new double[histogramOffsets[attributes.length] * BIN_SIZE];
+  }
+
+  /**
+   * Adds a row to the bin of an attribute it falls in.
+   * 
+   * @param histogram    Histogram of a node.
+   * @param attribute    Index of the attribute.
+   * @param exampleIndex Index of the example of the row.
+   * @param count        Count of the value of the row.
+   * @param sum          Sum of the value of the row.
+   * @param sumOfSquares Sum of squares of the value of the row.
+   */
+  void add(double[] histogram, int attribute, int exampleIndex, double count, double sum,
+      double sumOfSquares) {
+    int bin = histogramOffsets[attribute] + (attributes[attribute] instanceof DiscreteAttribute
+        ? trainingSet.getDiscreteCode(exampleIndex, (DiscreteAttribute) attributes[attribute])
+        : trainingSet.getBin(exampleIndex, (ContinuousAttribute) attributes[attribute]));
+    int k = bin * BIN_SIZE;
+    histogram[k]++;
+    histogram[k + 1] += count;
+    histogram[k + 2] += sum;
+    histogram[k + 3] += sumOfSquares;
+  }
+
+  /**
+   * Subtracts a histogram from another one.
+   * 
+   * @param histogram  Histogram that is overwritten by the difference.
+   * @param subtrahend Histogram to subtract.
+   */
+  static void subtract(double[] histogram, double[] subtrahend) {
+    for (int k = 0; k < histogram.length; k++) {
+      histogram[k] -= subtrahend[k];
+    }
+  }
+
+  /**
+   * Returns the statistics of a node from its histogram, summing the bins of
+   * the first attribute.
+   * 
+   * @param histogram Histogram of the node.
+   * @return The statistics of the node.
+   */
+  NodeStatistics statisticsOf(double[] histogram) {
+    return statisticsOf(histogram, histogramOffsets[0], histogramOffsets[1] - 1);
+  }
+
+  /**
+   * Returns the statistics of the bins in the range [firstBin,lastBin] of a
+   * histogram.
+   * 
+   * @param histogram Histogram of a node.
+   * @param firstBin  First bin of the range.
+   * @param lastBin   Last bin of the range.
+   * @return The statistics of the bins.
+   */
+  private static NodeStatistics statisticsOf(double[] histogram, int firstBin, int lastBin) {
+    double count = 0;
+    double sum = 0;
+    double sumOfSquares = 0;
+    for (int bin = firstBin; bin <= lastBin; bin++) {
+      count += histogram[bin * BIN_SIZE + 1];
+      sum += histogram[bin * BIN_SIZE + 2];
+      sumOfSquares += histogram[bin * BIN_SIZE + 3];
+    }
+    return new NodeStatistics(count, sum, sumOfSquares);
+  }
+
+  /**
+   * Determines the best split of a node among the input attributes: each
+   * attribute is scored on the histogram of the node, and only the SplitNode
+   * of the attribute of lowest split SSE is instantiated, the earlier
+   * attribute winning a tie. The children of the SplitNode cover consecutive
+   * ranges starting at begin, as long as the number of rows of their bins. A
+   * continuous attribute whose rows all fall in one bin is skipped, and so is
+   * a discrete attribute with a single value, unless the finder follows the
+   * rules of the depth-first learning.
+   * 
+   * @param histogram  Histogram of the node.
+   * @param statistics Statistics of the node.
+   * @param begin      Index of the first row covered by the node.
+   * @param end        Index of the last row covered by the node.
+   * @param selected   Indexes of the attributes to be scored.
+   * @return The best split, or null if the node must be a leaf.
+   */
+  SplitNode determineBestSplitNode(double[] histogram, NodeStatistics statistics, int begin,
+      int end, int[] selected) {
+    int best = -1;
+    int bestBin = -1;
+    double bestSplitVariance = 0;
+    boolean bestSplittable = false;
+    for (int a : selected) {
+      double splitVariance;
+      int bin = -1;
+      boolean splittable = true;
+      if (attributes[a] instanceof DiscreteAttribute) {
+        splitVariance = evaluateDiscrete(histogram, a);
+        if (Double.isNaN(splitVariance)) {
+          if (!matchDepthFirst) {
+            continue;
+          }
+          splittable = false;
+          splitVariance = statistics.getVariance();
+        }
+      } else {
+        bin = findBestBin(histogram, a, statistics, end - begin + 1);
+        if (bin == -1) {
+          continue;
+        }
+        NodeStatistics left = statisticsOf(histogram, histogramOffsets[a],
+            histogramOffsets[a] + bin);
+        splitVariance = left.getVariance() + statistics.subtract(left).getVariance();
+      }
+      if (best == -1 || SplitNode.compareVariances(splitVariance, bestSplitVariance) < 0) {
+        best = a;
+        bestBin = bin;
+        bestSplitVariance = splitVariance;
+        bestSplittable = splittable;
+      }
+    }
+    if (best == -1 || !bestSplittable) {
+      return null;
+    }
+    return attributes[best] instanceof DiscreteAttribute
+        ? newDiscreteNode(histogram, statistics, begin, end, best)
+        : newContinuousNode(histogram, statistics, begin, end, best, bestBin);
+  }
+
+  /**
+   * Finds the best boundary between the bins of a continuous attribute in a
+   * sweep over its histogram, the statistics of the right side being those of
+   * the node minus the ones of the left side. The boundaries leaving no rows
+   * or no weight on a side are skipped.
+   * 
+   * @param histogram    Histogram of the node.
+   * @param attribute    Index of the continuous attribute.
+   * @param statistics   Statistics of the node.
+   * @param numberOfRows Number of rows covered by the node.
+   * @return The last bin on the left of the best boundary, or -1 if there is
+   *         no boundary.
+   */
+  private int findBestBin(double[] histogram, int attribute, NodeStatistics statistics,
+      int numberOfRows) {
+    int offset = histogramOffsets[attribute];
+    int numberOfBins = histogramOffsets[attribute + 1] - offset;
+    int bestBin = -1;
+    double bestInfoVariance = 0;
+    double leftRows = 0;
+    double leftCount = 0;
+    double leftSum = 0;
+    double leftSumOfSquares = 0;
+    for (int bin = 0; bin < numberOfBins - 1; bin++) {
+      int k = (offset + bin) * BIN_SIZE;
+      leftRows += histogram[k];
+      leftCount += histogram[k + 1];
+      leftSum += histogram[k + 2];
+      leftSumOfSquares += histogram[k + 3];
+      double rightCount = statistics.getCount() - leftCount;
+      if (histogram[k] == 0 || leftRows == numberOfRows || leftCount <= 0 || rightCount <= 0) {
+        continue;
+      }
+      double candidateSplitVariance = NodeStatistics.variance(leftCount, leftSum,
+          leftSumOfSquares) + NodeStatistics.variance(rightCount,
+              statistics.getSum() - leftSum, statistics.getSumOfSquares() - leftSumOfSquares);
+      if (bestBin == -1 || candidateSplitVariance < bestInfoVariance) {
+        bestBin = bin;
+        bestInfoVariance = candidateSplitVariance;
+      }
+    }
+    return bestBin;
+  }
+
+  /**
+   * Computes the split SSE of a discrete attribute, with a child for each of
+   * its values found among the rows of the node.
+   * 
+   * @param histogram Histogram of the node.
+   * @param attribute Index of the discrete attribute.
+   * @return The split SSE, or NaN if the rows have fewer than two values or a
+   *         value has no weight.
+   */
+  private double evaluateDiscrete(double[] histogram, int attribute) {
+    int numberOfValues = 0;
+    double splitVariance = 0;
+    for (int bin = histogramOffsets[attribute]; bin < histogramOffsets[attribute + 1]; bin++) {
+      int k = bin * BIN_SIZE;
+      if (histogram[k] > 0) {
+        if (histogram[k + 1] <= 0) {
+          return Double.NaN;
+        }
+        numberOfValues++;
+        splitVariance += NodeStatistics.variance(histogram[k + 1], histogram[k + 2],
+            histogram[k + 3]);
+      }
+    }
+    return numberOfValues < 2 ? Double.NaN : splitVariance;
+  }
+
+  /**
+   * Instantiates the ContinuousNode splitting a node at the boundary after the
+   * input bin, whose split value is the greatest value falling in the bin. If
+   * the finder follows the depth-first learning, the rows on the right get no
+   * child if their total weight is 1, as in a ContinuousNode.
+   * 
+   * @param histogram  Histogram of the node.
+   * @param statistics Statistics of the node.
+   * @param begin      Index of the first row covered by the node.
+   * @param end        Index of the last row covered by the node.
+   * @param attribute  Index of the continuous attribute.
+   * @param bin        Last bin on the left of the boundary.
+   * @return The ContinuousNode.
+   */
+  private SplitNode newContinuousNode(double[] histogram, NodeStatistics statistics, int begin,
+      int end, int attribute, int bin) {
+    ContinuousAttribute continuousAttribute = (ContinuousAttribute) attributes[attribute];
+    int offset = histogramOffsets[attribute];
+    int leftRows = 0;
+    for (int i = offset; i <= offset + bin; i++) {
+      leftRows += (int) histogram[i * BIN_SIZE];
+    }
+    NodeStatistics left = statisticsOf(histogram, offset, offset + bin);
+    Double splitValue = trainingSet.getBinUpperBound(continuousAttribute, bin);
+    SplitNode node = new ContinuousNode(begin, end, statistics, continuousAttribute);
+    int splitIndex = begin + leftRows;
+    node.addSplitInfo(splitValue, begin, splitIndex - 1, "<=", left);
+    NodeStatistics right = statistics.subtract(left);
+    if (!matchDepthFirst || right.getCount() != 1) {
+      node.addSplitInfo(splitValue, splitIndex, end, ">", right);
+    }
+    return node;
+  }
+
+  /**
+   * Instantiates the DiscreteNode with a child for each value of the attribute
+   * found among the rows of a node, in the order of the codes of the values.
+   * 
+   * @param histogram  Histogram of the node.
+   * @param statistics Statistics of the node.
+   * @param begin      Index of the first row covered by the node.
+   * @param end        Index of the last row covered by the node.
+   * @param attribute  Index of the discrete attribute.
+   * @return The DiscreteNode.
+   */
+  private SplitNode newDiscreteNode(double[] histogram, NodeStatistics statistics, int begin,
+      int end, int attribute) {
+    SplitNode node = new DiscreteNode(begin, end, statistics,
+        (DiscreteAttribute) attributes[attribute]);
+    int offset = histogramOffsets[attribute];
+    int childBegin = begin;
+    for (int bin = offset; bin < histogramOffsets[attribute + 1]; bin++) {
+      int rows = (int) histogram[bin * BIN_SIZE];
+      if (rows > 0) {
+        int childEnd = childBegin + rows - 1;
+        node.addSplitInfo(bin - offset, childBegin, childEnd, "=",
+            statisticsOf(histogram, bin, bin));
+        childBegin = childEnd + 1;
+      }
+    }
+    return node;
+  }
+
+}
@@ -0,0 +1,279 @@
+package tree;
+
+import data.Attribute;
+import data.ContinuousAttribute;
+import data.DiscreteAttribute;
+import data.TableStatistics;
+import data.TrainingDataException;
+import database.Condition;
+import database.GroupStatistics;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Learns a regression tree from the statistics computed by the database, so that
+ * the examples are never read. For each node and each explanatory attribute the
+ * database groups the examples covered by the node, selected by the conditions
+ * on the path from the root, by the value of a discrete attribute or by bucket
+ * of a continuous attribute, and returns the count, sum and sum of squares of
+ * the class values of each group. The split SSE of every candidate split is
+ * computed from these, and the statistics of the children of the chosen split
+ * are those of its groups, so that only the tree is built in memory.
+ * The examples covered by a node are numbered as if the table were sorted by
+ * the splits on the path to the node, like the tree learnt from a Data.
+ * 
+ * @author Fabio
+ *
+ */
+class InDatabaseLearner {
+  /**
+   * Training set left in the database.
+   */
+  private final TableStatistics table;
+  /**
+   * State of the learning of the tree, holding its limits.
+   */
+  private final TrainingRun run;
+
+  /**
+   * Initializes the learner of a tree on the input table, within the input
+   * limits.
+   * 
+   * @param table  Training set left in the database.
+   * @param config Limits on the growth of the tree.
+   */
+  InDatabaseLearner(TableStatistics table, TrainingConfig config) {
+    this.table = table;
+    run = new TrainingRun(config, table.getTotalStatistics().getCount());
+  }
+
+  /**
+   * Learns the tree on all the examples of the table, using an explicit stack
+   * of the subtrees still to be learnt instead of recursion. Each subtree
+   * popped from the stack is stored in the slot of its parent, and the
+   * subtrees of the children of a split are pushed in reverse order, so that
+   * they are learnt depth-first from the first child.
+   * 
+   * @return The learnt tree.
+   * @throws TrainingDataException If there are problems querying the database.
+   */
+  RegressionTree learn() throws TrainingDataException {
+    RegressionTree[] tree = new RegressionTree[1];
+    Deque<PendingTree> stack = new ArrayDeque<PendingTree>();
+    stack.push(new PendingTree(tree, 0, new ArrayList<Condition>(),
+        toNodeStatistics(table.getTotalStatistics()), 0, 0));
+    while (!stack.isEmpty()) {
+      PendingTree pending = stack.pop();
+      int begin = pending.begin;
+      NodeStatistics statistics = pending.statistics;
+      int end = (int) (begin + statistics.getCount() - 1);
+      SplitNode split = determineBestSplitNode(pending.conditions, statistics, begin, end,
+          pending.depth);
+      if (split == null) {
+        pending.parent[pending.child] = newLeaf(begin, end, statistics);
+        continue;
+      }
+      RegressionTree[] childTree = new RegressionTree[split.getNumberOfChildren()];
+      pending.parent[pending.child] = new RegressionTree(split, childTree);
+      for (int i = childTree.length - 1; i >= 0; i--) {
+        SplitNode.SplitInfo splitInfo = split.getSplitInfo(i);
+        List<Condition> childConditions = new ArrayList<>(pending.conditions);
+        childConditions.add(new Condition(split.getAttribute().getName(),
+            splitInfo.getComparator(), split.decodeSplitValue(splitInfo.getSplitValue())));
+        stack.push(new PendingTree(childTree, i, childConditions, splitInfo.getStatistics(),
+            splitInfo.getBeginIndex(), pending.depth + 1));
+      }
+    }
+    return tree[0];
+  }
+
+  /**
+   * Determines the best split of the examples that pass all the conditions. If
+   * the examples must be covered by a leaf node according to the limits, or
+   * the best split is not accepted by them, there is no split.
+   * 
+   * @param conditions Conditions on the path from the root to the node.
+   * @param statistics Statistics of the examples covered by the node.
+   * @param begin      Index of the first example covered by the node.
+   * @param end        Index of the last example covered by the node.
+   * @param depth      Depth of the node.
+   * @return The best split, or null if the node is a leaf.
+   * @throws TrainingDataException If there are problems querying the database.
+   */
+  private SplitNode determineBestSplitNode(List<Condition> conditions,
+      NodeStatistics statistics, int begin, int end, int depth)
+      throws TrainingDataException {
+    if (run.isLeaf(statistics, depth)) {
+      return null;
+    }
+
+    TreeSet<SplitNode> ts = new TreeSet<SplitNode>();
+    for (int i = 0; i < table.getNumberOfExplanatoryAttributes(); i++) {
+      Attribute attribute = table.getExplanatoryAttribute(i);
+      List<GroupStatistics> groups = table.getSplitStatistics(attribute, conditions);
+      if (attribute instanceof DiscreteAttribute) {
+        ts.add(newDiscreteNode(begin, end, statistics, (DiscreteAttribute) attribute, groups));
+      } else {
+        SplitNode candidate = newContinuousNode(begin, end, statistics,
+            (ContinuousAttribute) attribute, groups);
+        if (candidate == null) {
+          return null;
+        }
+        ts.add(candidate);
+      }
+    }
+    SplitNode min = ts.first();
+    return run.acceptSplit(min) ? min : null;
+  }
+
+  /**
+   * Subtree still to be learnt by learn, with the conditions selecting the
+   * examples it covers and the slot of its parent where it is stored.
+   * 
+   * @author Fabio
+   *
+   */
+  private static class PendingTree {
+    /**
+     * Child trees of the parent, or a single slot for the whole tree.
+     */
+    private final RegressionTree[] parent;
+    /**
+     * Index of the subtree among the child trees of the parent.
+     */
+    private final int child;
+    /**
+     * Conditions on the path from the root to the subtree.
+     */
+    private final List<Condition> conditions;
+    /**
+     * Statistics of the examples covered by the subtree.
+     */
+    private final NodeStatistics statistics;
+    /**
+     * Index of the first example covered by the subtree.
+     */
+    private final int begin;
+    /**
+     * Depth of the subtree.
+     */
+    private final int depth;
+
+    /**
+     * Initializes the subtree to be learnt.
+     * 
+     * @param parent     Child trees of the parent, or a single slot for the
+     *                   whole tree.
+     * @param child      Index of the subtree among the child trees of the
+     *                   parent.
+     * @param conditions Conditions on the path from the root to the subtree.
+     * @param statistics Statistics of the examples covered by the subtree.
+     * @param begin      Index of the first example covered by the subtree.
+     * @param depth      Depth of the subtree.
+     */
+    PendingTree(RegressionTree[] parent, int child, List<Condition> conditions,
+        NodeStatistics statistics, int begin, int depth) {
+      this.parent = parent;
+      this.child = child;
+      this.conditions = conditions;
+      this.statistics = statistics;
+      this.begin = begin;
+      this.depth = depth;
+    }
+  }
+
+  /**
+   * Instantiates a tree made of a leaf covering a group of examples.
+   * 
+   * @param begin      Index of the first example covered by the leaf.
+   * @param end        Index of the last example covered by the leaf.
+   * @param statistics Statistics of the examples covered by the leaf.
+   * @return The tree made of the leaf.
+   */
+  private static RegressionTree newLeaf(int begin, int end, NodeStatistics statistics) {
+    return new RegressionTree(new LeafNode(begin, end, statistics), null);
+  }
+
+  /**
+   * Instantiates the DiscreteNode with a child for each value of the attribute
+   * found among the examples, in the order of the codes of the values.
+   * 
+   * @param begin      Index of the first example covered by the node.
+   * @param end        Index of the last example covered by the node.
+   * @param statistics Statistics of the examples covered by the node.
+   * @param attribute  Discrete attribute that defines the split.
+   * @param groups     Statistics of the examples with each value of the
+   *                   attribute, ordered by code.
+   * @return The DiscreteNode.
+   */
+  private static SplitNode newDiscreteNode(int begin, int end, NodeStatistics statistics,
+      DiscreteAttribute attribute, List<GroupStatistics> groups) {
+    SplitNode node = new DiscreteNode(begin, end, statistics, attribute);
+    int childBegin = begin;
+    for (GroupStatistics group : groups) {
+      int childEnd = Math.toIntExact(childBegin + group.getCount() - 1);
+      node.addSplitInfo(attribute.getCode((String) group.getValue()), childBegin, childEnd, "=",
+          toNodeStatistics(group));
+      childBegin = childEnd + 1;
+    }
+    return node;
+  }
+
+  /**
+   * Instantiates the ContinuousNode splitting the examples at the best
+   * boundary between the buckets of a continuous attribute, found in a single
+   * sweep over the buckets keeping the statistics of the examples on the left
+   * of the boundary. The statistics of the examples on the right are those of
+   * the node minus the ones on the left, and the split value is the greatest
+   * value of the last bucket on the left.
+   * 
+   * @param begin      Index of the first example covered by the node.
+   * @param end        Index of the last example covered by the node.
+   * @param statistics Statistics of the examples covered by the node.
+   * @param attribute  Continuous attribute that defines the split.
+   * @param buckets    Statistics of the examples in each bucket, ordered by the
+   *                   greatest value of the bucket.
+   * @return The ContinuousNode, or null if all the examples fall in the same
+   *         bucket.
+   */
+  private static SplitNode newContinuousNode(int begin, int end, NodeStatistics statistics,
+      ContinuousAttribute attribute, List<GroupStatistics> buckets) {
+    if (buckets.size() < 2) {
+      return null;
+    }
+    NodeStatistics bestLeft = null;
+    Object bestSplitValue = null;
+    double bestInfoVariance = 0;
+    NodeStatistics left = NodeStatistics.EMPTY;
+    for (int i = 0; i < buckets.size() - 1; i++) {
+      left = left.add(toNodeStatistics(buckets.get(i)));
+      double candidateSplitVariance = left.getVariance()
+          + statistics.subtract(left).getVariance();
+      if (bestLeft == null || candidateSplitVariance < bestInfoVariance) {
+        bestLeft = left;
+        bestSplitValue = buckets.get(i).getValue();
+        bestInfoVariance = candidateSplitVariance;
+      }
+    }
+    SplitNode node = new ContinuousNode(begin, end, statistics, attribute);
+    int splitIndex = (int) (begin + bestLeft.getCount());
+    node.addSplitInfo(bestSplitValue, begin, splitIndex - 1, "<=", bestLeft);
+    node.addSplitInfo(bestSplitValue, splitIndex, end, ">", statistics.subtract(bestLeft));
+    return node;
+  }
+
+  /**
+   * Converts the statistics of a group computed by the database into the
+   * statistics held by the nodes.
+   * 
+   * @param group Statistics of the group computed by the database.
+   * @return The statistics of the group.
+   */
+  private static NodeStatistics toNodeStatistics(GroupStatistics group) {
+    return new NodeStatistics(group.getCount(), group.getSum(), group.getSumOfSquares());
+  }
+
+}
@@ -1,7 +1,5 @@
 package tree;
 
-import data.Data;
-
 /**
  * Models the abstraction "leaf node".
  * 
@@ -18,22 +16,19 @@ class LeafNode extends Node {
   /**
    * Instantiates a LeafNode by calling the super constructor and initializes the
    * attribute predictedClassValue as the average between the class values that
-   * fall in the interval [beginExampleIndex,endExampleIndex].
+   * fall in the interval [beginExampleIndex,endExampleIndex], obtained from
+   * their statistics.
    * 
-   * @param trainingSet       Collection of learning examples.
    * @param beginExampleIndex Index of the first example of the training set
    *                          covered by the node.
    * @param endExampleIndex   Index of the last example of the training set
    *                          covered by the node.
+   * @param statistics        Statistics of the class values covered by the
+   *                          node.
    */
-  LeafNode(Data trainingSet, int beginExampleIndex, int endExampleIndex) {
-    super(trainingSet, beginExampleIndex, endExampleIndex);
-    int numberOfExamples = endExampleIndex - beginExampleIndex;
-    double sum = 0;
-    for (int i = beginExampleIndex; i < endExampleIndex; i++) {
-      sum += trainingSet.getClassValue(i);
-    }
-    predictedClassValue = sum / numberOfExamples;
+  LeafNode(int beginExampleIndex, int endExampleIndex, NodeStatistics statistics) {
+    super(beginExampleIndex, endExampleIndex, statistics);
+    predictedClassValue = statistics.getMean();
   }
 
   /**
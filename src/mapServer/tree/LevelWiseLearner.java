@@ -0,0 +1,273 @@
+package tree;
+
+import data.Data;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Learns a RegressionTree from a discretized training set one depth level at a
+ * time, instead of one node at a time. Every row is assigned to the node of
+ * the frontier, the nodes of the current level, it falls in, and a single
+ * pass over each column accumulates the histograms of all the frontier nodes
+ * together, so that the columns are read sequentially and the number of
+ * passes over the training set is bounded by the depth of the tree. The best
+ * split of each node is then found on its histogram by a HistogramSplitFinder,
+ * and one more pass moves every row to its child. The rows of the child
+ * covering the most rows of a split are not scanned, its histogram being the
+ * one of the parent minus the ones of its siblings. The training set is only
+ * read, never sorted, and the ranges of the nodes are the ones the examples
+ * would cover if they were sorted as the tree.
+ * 
+ * @author Fabio
+ *
+ */
+class LevelWiseLearner {
+  /**
+   * Discretized training set, only read.
+   */
+  private final Data trainingSet;
+  /**
+   * Limits on the growth of the tree.
+   */
+  private final TrainingConfig config;
+  /**
+   * Finder of the best split of a node from its histogram.
+   */
+  private final HistogramSplitFinder splitFinder;
+  /**
+   * Weight of each example, indexed by example index.
+   */
+  private final double[] weights;
+  /**
+   * Weighted class value of each example, indexed by example index.
+   */
+  private final double[] classSums;
+  /**
+   * Weighted squared class value of each example, indexed by example index.
+   */
+  private final double[] classSumsOfSquares;
+  /**
+   * Index of the frontier node each example falls in, -1 once it falls in a
+   * leaf.
+   */
+  private final int[] frontierIndexes;
+
+  /**
+   * Initializes the learner on the input training set, reading the class
+   * values once.
+   * 
+   * @param trainingSet Discretized training set, only read.
+   * @param config      Limits on the growth of the tree.
+   */
+  LevelWiseLearner(Data trainingSet, TrainingConfig config) {
+    this.trainingSet = trainingSet;
+    this.config = config;
+    splitFinder = new HistogramSplitFinder(trainingSet, true);
+    int numberOfExamples = trainingSet.getNumberOfExamples();
+    weights = new double[numberOfExamples];
+    classSums = new double[numberOfExamples];
+    classSumsOfSquares = new double[numberOfExamples];
+    for (int i = 0; i < numberOfExamples; i++) {
+      weights[i] = trainingSet.getWeight(i);
+      classSums[i] = trainingSet.getClassSum(i);
+      classSumsOfSquares[i] = trainingSet.getClassSumOfSquares(i);
+    }
+    frontierIndexes = new int[numberOfExamples];
+  }
+
+  /**
+   * Learns the tree level by level: the histograms of the frontier are
+   * accumulated, each frontier node becomes a leaf or a SplitNode whose
+   * children make the next frontier, and the rows of the split nodes are moved
+   * to their children, until the frontier is empty. The splits are accepted in
+   * breadth-first order, so when the maximum number of nodes is reached the
+   * tree keeps its upper levels.
+   * 
+   * @return The learnt tree.
+   */
+  RegressionTree learn() {
+    int end = weights.length - 1;
+    NodeStatistics statistics = NodeStatistics.of(trainingSet, 0, end);
+    TrainingRun run = new TrainingRun(config, statistics.getCount());
+    RegressionTree[] tree = new RegressionTree[1];
+    List<FrontierNode> frontier = new ArrayList<FrontierNode>();
+    frontier.add(new FrontierNode(tree, 0, 0, end, statistics, splitFinder.newHistogram(),
+        true));
+    for (int depth = 0; !frontier.isEmpty(); depth++) {
+      accumulate(frontier);
+      List<FrontierNode> nextFrontier = new ArrayList<FrontierNode>();
+      SplitNode[] splits = new SplitNode[frontier.size()];
+      int[] firstChildIndexes = new int[frontier.size()];
+      for (int f = 0; f < splits.length; f++) {
+        FrontierNode node = frontier.get(f);
+        SplitNode split = run.isLeaf(node.statistics, depth) ? null
+            : splitFinder.determineBestSplitNode(node.histogram, node.statistics, node.begin,
+                node.end, run.selectAttributes(splitFinder.getNumberOfAttributes(), node.begin,
+                    depth));
+        if (split == null || !run.acceptSplit(split)) {
+          node.parent[node.child] = new RegressionTree(
+              new LeafNode(node.begin, node.end, node.statistics), null);
+          continue;
+        }
+        splits[f] = split;
+        firstChildIndexes[f] = nextFrontier.size();
+        RegressionTree[] childTree = new RegressionTree[split.getNumberOfChildren()];
+        node.parent[node.child] = new RegressionTree(split, childTree);
+        addChildren(node, split, childTree, nextFrontier);
+      }
+      for (int i = 0; i < frontierIndexes.length; i++) {
+        int f = frontierIndexes[i];
+        if (f != -1) {
+          frontierIndexes[i] = splits[f] == null ? -1
+              : firstChildIndexes[f] + splits[f].testExample(trainingSet, i);
+        }
+      }
+      frontier = nextFrontier;
+    }
+    return tree[0];
+  }
+
+  /**
+   * Accumulates the histograms of the frontier nodes to be scanned in a single
+   * pass over each column, then computes the histogram of every other
+   * frontier node by subtracting the ones of its siblings from the histogram
+   * of its parent.
+   * 
+   * @param frontier Nodes of the current level.
+   */
+  private void accumulate(List<FrontierNode> frontier) {
+    double[][] histograms = new double[frontier.size()][];
+    for (int f = 0; f < histograms.length; f++) {
+      if (frontier.get(f).scanned) {
+        histograms[f] = frontier.get(f).histogram;
+      }
+    }
+    for (int a = 0; a < splitFinder.getNumberOfAttributes(); a++) {
+      for (int i = 0; i < frontierIndexes.length; i++) {
+        int f = frontierIndexes[i];
+        if (f != -1 && histograms[f] != null) {
+          splitFinder.add(histograms[f], a, i, weights[i], classSums[i],
+              classSumsOfSquares[i]);
+        }
+      }
+    }
+    for (FrontierNode node : frontier) {
+      if (node.siblings != null) {
+        for (FrontierNode sibling : node.siblings) {
+          HistogramSplitFinder.subtract(node.histogram, sibling.histogram);
+        }
+      }
+    }
+  }
+
+  /**
+   * Adds the children of a split node to the next frontier. Every child but
+   * the one covering the most rows gets an empty histogram to be scanned,
+   * while that one takes over the histogram of the parent and its siblings.
+   * 
+   * @param node         Frontier node that has been split.
+   * @param split        Split of the node.
+   * @param childTree    Child trees of the split, filled in by the next levels.
+   * @param nextFrontier Nodes of the next level.
+   */
+  private void addChildren(FrontierNode node, SplitNode split, RegressionTree[] childTree,
+      List<FrontierNode> nextFrontier) {
+    int largest = 0;
+    for (int i = 1; i < childTree.length; i++) {
+      if (size(split.getSplitInfo(i)) > size(split.getSplitInfo(largest))) {
+        largest = i;
+      }
+    }
+    FrontierNode[] children = new FrontierNode[childTree.length];
+    List<FrontierNode> siblings = new ArrayList<FrontierNode>();
+    for (int i = 0; i < childTree.length; i++) {
+      SplitNode.SplitInfo splitInfo = split.getSplitInfo(i);
+      children[i] = new FrontierNode(childTree, i, splitInfo.getBeginIndex(),
+          splitInfo.getEndIndex(), splitInfo.getStatistics(),
+          i == largest ? node.histogram : splitFinder.newHistogram(), i != largest);
+      if (i != largest) {
+        siblings.add(children[i]);
+      }
+      nextFrontier.add(children[i]);
+    }
+    children[largest].siblings = siblings;
+  }
+
+  /**
+   * Returns the number of rows covered by a child.
+   * 
+   * @param splitInfo SplitInfo of the child.
+   * @return The number of rows of the child.
+   */
+  private static int size(SplitNode.SplitInfo splitInfo) {
+    return splitInfo.getEndIndex() - splitInfo.getBeginIndex() + 1;
+  }
+
+  /**
+   * Node of the frontier, with the range of rows it covers, their histogram
+   * and the slot of its parent where its subtree is stored.
+   * 
+   * @author Fabio
+   *
+   */
+  private static class FrontierNode {
+    /**
+     * Child trees of the parent, or a single slot for the whole tree.
+     */
+    private final RegressionTree[] parent;
+    /**
+     * Index of the node among the child trees of the parent.
+     */
+    private final int child;
+    /**
+     * Index of the first row covered by the node.
+     */
+    private final int begin;
+    /**
+     * Index of the last row covered by the node.
+     */
+    private final int end;
+    /**
+     * Statistics of the class values of the rows covered by the node.
+     */
+    private final NodeStatistics statistics;
+    /**
+     * Histogram of the class values of the rows covered by the node.
+     */
+    private final double[] histogram;
+    /**
+     * True if the histogram is accumulated from the rows of the node.
+     */
+    private final boolean scanned;
+    /**
+     * Siblings whose histograms are subtracted from the one of the parent to
+     * get the histogram of the node, null if the node is scanned.
+     */
+    private List<FrontierNode> siblings;
+
+    /**
+     * Initializes the frontier node.
+     * 
+     * @param parent     Child trees of the parent, or a single slot for the
+     *                   whole tree.
+     * @param child      Index of the node among the child trees of the parent.
+     * @param begin      Index of the first row covered by the node.
+     * @param end        Index of the last row covered by the node.
+     * @param statistics Statistics of the class values of the rows.
+     * @param histogram  Histogram of the node, empty if it is scanned, else the
+     *                   one of the parent.
+     * @param scanned    True if the histogram is accumulated from the rows.
+     */
+    FrontierNode(RegressionTree[] parent, int child, int begin, int end,
+        NodeStatistics statistics, double[] histogram, boolean scanned) {
+      this.parent = parent;
+      this.child = child;
+      this.begin = begin;
+      this.end = end;
+      this.statistics = statistics;
+      this.histogram = histogram;
+      this.scanned = scanned;
+    }
+  }
+
+}
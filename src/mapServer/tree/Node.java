@@ -1,7 +1,7 @@
 package tree;
 
-import data.Data;
 import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Abstract class used to model a node (intermediate or leaf) of the decision
@@ -15,7 +15,7 @@ abstract class Node implements Serializable {
   /**
    * Used to know how many nodes are created.
    */
-  private static int idNodeCount = 0;
+  private static final AtomicInteger idNodeCount = new AtomicInteger();
   /**
    * Id of this node.
    */
@@ -29,37 +29,27 @@ abstract class Node implements Serializable {
    */
   private final int endExampleIndex;
   /**
-   * Variance computed for this node.
+   * Statistics of the class values of the examples covered by the node.
    */
-  private final double variance;
+  private final NodeStatistics statistics;
 
   /**
-   * Assigns the inputs to the class fields beginExampleIndex and endExampleIndex,
-   * Increases the node count and generates the node id. Lastly, calculates the
-   * SSE (Sum of Squared Errors) of the class attribute to predict in the subset
-   * of trainingSet covered by the node.
+   * Assigns the inputs to the class fields, increases the node count and
+   * generates the node id. The SSE (Sum of Squared Errors) of the class
+   * attribute in the examples covered by the node is computed from their
+   * statistics, which the caller derives from the ones of the parent node
+   * rather than scanning the examples again.
    * 
-   * @param trainingSet       Object of class Data containing the training set.
    * @param beginExampleIndex Index of the first example covered by the node.
    * @param endExampleIndex   Index of the last example covered by the node.
+   * @param statistics        Statistics of the class values of the examples
+   *                          covered by the node.
    */
-  Node(Data trainingSet, int beginExampleIndex, int endExampleIndex) {
-    double sumOfSquares = 0;
-    double squaresOfSum = 0;
-
-    idNode = idNodeCount;
-    idNodeCount++;
-
+  Node(int beginExampleIndex, int endExampleIndex, NodeStatistics statistics) {
+    idNode = idNodeCount.getAndIncrement();
     this.beginExampleIndex = beginExampleIndex;
     this.endExampleIndex = endExampleIndex;
-
-    for (int i = beginExampleIndex; i <= endExampleIndex; i++) {
-      squaresOfSum += trainingSet.getClassValue(i);
-      sumOfSquares += Math.pow(trainingSet.getClassValue(i), 2);
-    }
-    int numberOfExamples = endExampleIndex - beginExampleIndex + 1;
-
-    variance = sumOfSquares - Math.pow(squaresOfSum, 2) / numberOfExamples;
+    this.statistics = statistics;
   }
 
   /**
@@ -93,10 +83,20 @@ abstract class Node implements Serializable {
    * Returns the value of the SSE computed on the subset of examples covered by
    * the node.
    * 
-   * @return Value of variance.
+   * @return The SSE of the examples covered by the node.
    */
   double getVariance() {
-    return variance;
+    return statistics.getVariance();
+  }
+
+  /**
+   * Returns the statistics of the class values of the examples covered by the
+   * node.
+   * 
+   * @return Value of statistics.
+   */
+  NodeStatistics getStatistics() {
+    return statistics;
   }
 
   /**
@@ -112,6 +112,6 @@ abstract class Node implements Serializable {
   @Override
   public String toString() {
     return "Nodo: [Examples:" + beginExampleIndex + "-" + endExampleIndex + "] variance:"
-        + variance;
+        + statistics.getVariance();
   }
 }
\ No newline at end of file
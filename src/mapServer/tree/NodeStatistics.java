@@ -0,0 +1,160 @@
+package tree;
+
+import data.Data;
+import java.io.Serializable;
+
+/**
+ * Immutable sufficient statistics of the class values of a group of examples:
+ * their number, sum and sum of squares, each row of the training set counting
+ * as many times as its weight. The SSE and the average of the
+ * group are computed from them in constant time, and the statistics of a group
+ * can be derived from the ones of its parent and of its siblings by
+ * subtraction, without scanning the examples again.
+ * 
+ * @author Fabio
+ *
+ */
+@SuppressWarnings("serial")
+final class NodeStatistics implements Serializable {
+  /**
+   * Statistics of a group with no examples.
+   */
+  static final NodeStatistics EMPTY = new NodeStatistics(0, 0, 0);
+  /**
+   * Number of examples of the group.
+   */
+  private final double count;
+  /**
+   * Sum of the class values of the group.
+   */
+  private final double sum;
+  /**
+   * Sum of the squares of the class values of the group.
+   */
+  private final double sumOfSquares;
+
+  /**
+   * Initializes the statistics of a group.
+   * 
+   * @param count        Number of examples of the group.
+   * @param sum          Sum of the class values of the group.
+   * @param sumOfSquares Sum of the squares of the class values of the group.
+   */
+  NodeStatistics(double count, double sum, double sumOfSquares) {
+    this.count = count;
+    this.sum = sum;
+    this.sumOfSquares = sumOfSquares;
+  }
+
+  /**
+   * Computes the statistics of the examples in the range [begin,end] of the
+   * training set, in a single scan of the range.
+   * 
+   * @param trainingSet Collection of training examples.
+   * @param begin       Index of the first example of the group.
+   * @param end         Index of the last example of the group.
+   * @return The statistics of the group.
+   */
+  static NodeStatistics of(Data trainingSet, int begin, int end) {
+    double count = 0;
+    double sum = 0;
+    double sumOfSquares = 0;
+    for (int i = begin; i <= end; i++) {
+      count += trainingSet.getWeight(i);
+      sum += trainingSet.getClassSum(i);
+      sumOfSquares += trainingSet.getClassSumOfSquares(i);
+    }
+    return new NodeStatistics(count, sum, sumOfSquares);
+  }
+
+  /**
+   * Returns the statistics of the union of this group and the input one.
+   * 
+   * @param other Statistics of a group disjoint from this one.
+   * @return The statistics of the union of the two groups.
+   */
+  NodeStatistics add(NodeStatistics other) {
+    return new NodeStatistics(count + other.count, sum + other.sum,
+        sumOfSquares + other.sumOfSquares);
+  }
+
+  /**
+   * Returns the statistics of the examples of this group that are not in the
+   * input one, such as the statistics of the last child of a node given the
+   * ones of the node and of the other children.
+   * 
+   * @param other Statistics of a subset of this group.
+   * @return The statistics of the rest of this group.
+   */
+  NodeStatistics subtract(NodeStatistics other) {
+    return new NodeStatistics(count - other.count, sum - other.sum,
+        sumOfSquares - other.sumOfSquares);
+  }
+
+  /**
+   * Returns the number of examples of the group.
+   * 
+   * @return Value of count.
+   */
+  double getCount() {
+    return count;
+  }
+
+  /**
+   * Returns the sum of the class values of the group.
+   * 
+   * @return Value of sum.
+   */
+  double getSum() {
+    return sum;
+  }
+
+  /**
+   * Returns the sum of the squares of the class values of the group.
+   * 
+   * @return Value of sumOfSquares.
+   */
+  double getSumOfSquares() {
+    return sumOfSquares;
+  }
+
+  /**
+   * Returns the SSE (Sum of Squared Errors) of the class values of the group.
+   * 
+   * @return The SSE of the group.
+   */
+  double getVariance() {
+    return variance(count, sum, sumOfSquares);
+  }
+
+  /**
+   * Computes the SSE of the class values of a group from its statistics, with
+   * no need to instantiate them.
+   * 
+   * @param count        Number of examples of the group.
+   * @param sum          Sum of the class values of the group.
+   * @param sumOfSquares Sum of the squares of the class values of the group.
+   * @return The SSE of the group.
+   */
+  static double variance(double count, double sum, double sumOfSquares) {
+    return sumOfSquares - sum * sum / count;
+  }
+
+  /**
+   * Returns the average of the class values of the group.
+   * 
+   * @return The average class value of the group.
+   */
+  double getMean() {
+    return sum / count;
+  }
+
+  /**
+   * Returns a string containing all the class info.
+   */
+  @Override
+  public String toString() {
+    return "count=" + count + " sum=" + sum + " sumOfSquares=" + sumOfSquares;
+  }
+
+}
@@ -0,0 +1,224 @@
+package tree;
+
+import data.Data;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import server.UnknownValueException;
+
+/**
+ * Class used to model a bagged ensemble of regression trees, a random forest
+ * when the attributes scored at each node are drawn at random. Each tree is
+ * learnt by its own task from a bootstrap replica of the training set, which
+ * shares the columns of the training set and holds the number of times each
+ * row has been drawn as its weight, along with its own ordering of the rows
+ * and, if the training set is presorted, its own copy of the sorted lists. A
+ * replica is released as soon as its tree is learnt, and no more trees are
+ * learnt at once than the threads of the pool, so that the memory of the
+ * replicas grows with the parallelism of the pool rather than with the number
+ * of trees. The predicted class value is the mean of the ones of the trees.
+ * 
+ * @author Fabio
+ *
+ */
+@SuppressWarnings("serial")
+public class RegressionForest extends RegressionModel {
+  /**
+   * Trees of the forest.
+   */
+  private final RegressionTree[] trees;
+
+  /**
+   * Instantiates a RegressionForest and learns its trees in parallel on the
+   * given pool, as many as the number of trees of the configuration, each one
+   * within the limits of the configuration. The bootstrap sample and the seed
+   * of the attributes of each tree are drawn from the seed of the
+   * configuration, so that the same configuration learns the same forest
+   * whatever the order the tasks run in. A task is started only when the one
+   * started as many tasks before as the parallelism of the pool has been
+   * joined, so that at most that many replicas of the training set are alive.
+   * If the training set is aggregated, each row is drawn in proportion to the
+   * number of examples it groups, so that the replicas are drawn from the
+   * examples rather than from the groups.
+   * 
+   * @param trainingSet Collection of training examples, only read.
+   * @param pool        Pool whose threads learn the trees.
+   * @param config      Limits on the growth of the trees.
+   */
+  public RegressionForest(Data trainingSet, ForkJoinPool pool, TrainingConfig config) {
+    trees = new RegressionTree[config.getNumberOfTrees()];
+    SplittableRandom random = new SplittableRandom(config.getSeed());
+    double[] cumulativeGroupSizes = null;
+    if (trainingSet.isAggregated()) {
+      cumulativeGroupSizes = new double[trainingSet.getNumberOfExamples()];
+      double total = 0;
+      for (int row = 0; row < cumulativeGroupSizes.length; row++) {
+        total += trainingSet.getGroupSize(row);
+        cumulativeGroupSizes[row] = total;
+      }
+    }
+    int parallelism = pool.getParallelism();
+    LearnTreeTask[] tasks = new LearnTreeTask[trees.length];
+    for (int i = 0; i < tasks.length; i++) {
+      if (i >= parallelism) {
+        tasks[i - parallelism].join();
+      }
+      tasks[i] = new LearnTreeTask(i, trainingSet, cumulativeGroupSizes, config,
+          random.split());
+      pool.execute(tasks[i]);
+    }
+    for (LearnTreeTask task : tasks) {
+      task.join();
+    }
+  }
+
+  /**
+   * Task used to learn a tree of the forest in parallel with the other trees.
+   * 
+   * @author Fabio
+   *
+   */
+  private class LearnTreeTask extends RecursiveAction {
+    /**
+     * Index of the tree among the trees of the forest.
+     */
+    private final int index;
+    /**
+     * Collection of training examples, only read.
+     */
+    private final Data trainingSet;
+    /**
+     * Number of examples grouped in each row and in the rows before it, null
+     * unless the training set is aggregated.
+     */
+    private final double[] cumulativeGroupSizes;
+    /**
+     * Limits on the growth of the tree.
+     */
+    private final TrainingConfig config;
+    /**
+     * Generator of the bootstrap sample and of the seed of the tree.
+     */
+    private final SplittableRandom random;
+
+    /**
+     * Initializes the task attributes.
+     * 
+     * @param index                Index of the tree among the trees of the
+     *                             forest.
+     * @param trainingSet          Collection of training examples, only read.
+     * @param cumulativeGroupSizes Number of examples grouped in each row and in
+     *                             the rows before it, null unless the training
+     *                             set is aggregated.
+     * @param config               Limits on the growth of the tree.
+     * @param random               Generator of the bootstrap sample and of the
+     *                             seed of the tree.
+     */
+    LearnTreeTask(int index, Data trainingSet, double[] cumulativeGroupSizes,
+        TrainingConfig config, SplittableRandom random) {
+      this.index = index;
+      this.trainingSet = trainingSet;
+      this.cumulativeGroupSizes = cumulativeGroupSizes;
+      this.config = config;
+      this.random = random;
+    }
+
+    /**
+     * Draws as many rows as the training set has, with replacement, weighting
+     * each row by the number of times it has been drawn, and learns the tree
+     * from the weighted replica of the training set. If the training set is
+     * aggregated, as many examples as it groups are drawn instead, each row
+     * with a probability proportional to the number of its examples, and the
+     * weight of a row is divided by that number, so that the row weighs as
+     * many examples as have been drawn from it.
+     */
+    @Override
+    protected void compute() {
+      int numberOfRows = trainingSet.getNumberOfExamples();
+      double[] weights = new double[numberOfRows];
+      if (cumulativeGroupSizes == null) {
+        for (int i = 0; i < numberOfRows; i++) {
+          weights[random.nextInt(numberOfRows)]++;
+        }
+      } else {
+        double numberOfExamples = cumulativeGroupSizes[numberOfRows - 1];
+        for (long i = Math.round(numberOfExamples); i > 0; i--) {
+          int row = Arrays.binarySearch(cumulativeGroupSizes,
+              random.nextDouble() * numberOfExamples);
+          row = row < 0 ? -row - 1 : Math.min(row + 1, numberOfRows - 1);
+          weights[row]++;
+        }
+        for (int row = 0; row < numberOfRows; row++) {
+          weights[row] /= trainingSet.getGroupSize(row);
+        }
+      }
+      trees[index] = new RegressionTree(trainingSet.withWeights(weights), config,
+          random.nextLong());
+    }
+  }
+
+  /**
+   * Returns the number of trees of the forest.
+   * 
+   * @return The length of trees.
+   */
+  public int getNumberOfTrees() {
+    return trees.length;
+  }
+
+  /**
+   * Allows the user to make a prediction based on the current forest, walking
+   * down every tree and returning the mean of the class values predicted by
+   * the trees. A test shared by several trees is asked to the client only
+   * once.
+   * 
+   * @param in  Input stream to communicate with the client.
+   * @param out Output stream to communicate with the client.
+   * @return The predicted class value.
+   * @throws UnknownValueException  If the user input is not the index of a
+   *                                child of the split node.
+   * @throws IOException            If there are communication problems.
+   * @throws ClassNotFoundException If the user input is not an instance of a
+   *                                known class.
+   */
+  @Override
+  public Double predictClass(ObjectInputStream in, ObjectOutputStream out)
+      throws UnknownValueException, IOException, ClassNotFoundException {
+    Map<String, Integer> answers = new HashMap<String, Integer>();
+    double sum = 0;
+    for (RegressionTree tree : trees) {
+      sum += tree.predict(in, out, answers);
+    }
+    out.writeObject("OK");
+    return sum / trees.length;
+  }
+
+  /**
+   * Prints the rules of every tree to the screen.
+   */
+  public void printRules() {
+    for (RegressionTree tree : trees) {
+      tree.printRules();
+    }
+  }
+
+  /**
+   * Returns a string containing all the class info.
+   */
+  @Override
+  public String toString() {
+    StringBuilder forest = new StringBuilder();
+    for (int i = 0; i < trees.length; i++) {
+      forest.append("********* TREE ").append(i).append(" *********\n").append(trees[i])
+          .append("\n");
+    }
+    return forest.toString();
+  }
+
+}
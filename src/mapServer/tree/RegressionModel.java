@@ -0,0 +1,76 @@
+package tree;
+
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import server.UnknownValueException;
+
+/**
+ * Abstract class used to model a model learnt from a training set, either a
+ * single RegressionTree or a RegressionForest, that can be saved to a file,
+ * loaded back and used to predict the class value of the examples described by
+ * a client.
+ * 
+ * @author Fabio
+ *
+ */
+@SuppressWarnings("serial")
+public abstract class RegressionModel implements Serializable {
+
+  /**
+   * Allows the user to make a prediction based on the current model, asking
+   * the client the test of each split node met, until the predicted class
+   * value is found.
+   * 
+   * @param in  Input stream to communicate with the client.
+   * @param out Output stream to communicate with the client.
+   * @return The predicted class value.
+   * @throws UnknownValueException  If the user input is not the index of a
+   *                                child of the split node.
+   * @throws IOException            If there are communication problems.
+   * @throws ClassNotFoundException If the user input is not an instance of a
+   *                                known class.
+   */
+  public abstract Double predictClass(ObjectInputStream in, ObjectOutputStream out)
+      throws UnknownValueException, IOException, ClassNotFoundException;
+
+  /**
+   * Saves the model to a file.
+   * 
+   * @param fileName Name of the file where to save the model.
+   * @throws ImpossibleSerializationException If there are serialization problems.
+   */
+  public void save(String fileName) throws ImpossibleSerializationException {
+    try {
+      FileOutputStream outFile = new FileOutputStream(fileName);
+      ObjectOutputStream outStream = new ObjectOutputStream(outFile);
+      outStream.writeObject(this);
+      outStream.close();
+    } catch (IOException e) {
+      throw new ImpossibleSerializationException(e);
+    }
+  }
+
+  /**
+   * Loads a model, either a tree or a forest, from a file.
+   * 
+   * @param fileName Name of the file where the model is stored
+   * @return Object of class RegressionModel loaded from file.
+   * @throws ImpossibleSerializationException If there are serialization problems.
+   */
+  public static RegressionModel load(String fileName) throws ImpossibleSerializationException {
+    try {
+      FileInputStream inFile = new FileInputStream(fileName);
+      ObjectInputStream inStream = new ObjectInputStream(inFile);
+      RegressionModel loaded = (RegressionModel) inStream.readObject();
+      inStream.close();
+      return loaded;
+    } catch (IOException | ClassNotFoundException | ClassCastException e) {
+      throw new ImpossibleSerializationException(e);
+    }
+  }
+
+}
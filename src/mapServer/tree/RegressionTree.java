@@ -4,13 +4,19 @@ import data.Attribute;
 import data.ContinuousAttribute;
 import data.Data;
 import data.DiscreteAttribute;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
+import data.TableStatistics;
+import data.TrainingDataException;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
-import java.io.Serializable;
-import java.util.TreeSet;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
 import server.UnknownValueException;
 
 /**
@@ -20,15 +26,16 @@ import server.UnknownValueException;
  *
  */
 @SuppressWarnings("serial")
-public class RegressionTree implements Serializable {
+public class RegressionTree extends RegressionModel {
   /**
-   * Root of the tree.
+   * Root of the tree. The nodes are written by writeObject rather than by the
+   * default serialization, which would recurse through the child trees.
    */
-  private Node root;
+  private transient Node root;
   /**
    * Child trees of this tree.
    */
-  private RegressionTree[] childTree;
+  private transient RegressionTree[] childTree;
 
   /**
    * Instantiates a RegressionTree.
@@ -36,103 +43,605 @@ public class RegressionTree implements Serializable {
   private RegressionTree() {
   }
 
+  /**
+   * Instantiates a RegressionTree with the input root and child trees.
+   * 
+   * @param root      Root of the tree.
+   * @param childTree Child trees of the root, null if the root is a leaf.
+   */
+  RegressionTree(Node root, RegressionTree[] childTree) {
+    this.root = root;
+    this.childTree = childTree;
+  }
+
   /**
    * Instantiates a RegressionTree and starts the learning phase on the input
-   * training set.
+   * training set, with the default limits.
    * 
    * @param trainingSet Collection of training examples.
    */
   public RegressionTree(Data trainingSet) {
-    learnTree(trainingSet, 0, trainingSet.getNumberOfExamples() - 1,
-        trainingSet.getNumberOfExamples() * 10 / 100);
+    this(trainingSet, TrainingConfig.DEFAULT);
+  }
+
+  /**
+   * Instantiates a RegressionTree and starts the learning phase on the input
+   * training set, within the input limits.
+   * 
+   * @param trainingSet Collection of training examples.
+   * @param config      Limits on the growth of the tree.
+   */
+  public RegressionTree(Data trainingSet, TrainingConfig config) {
+    this(trainingSet, config, config.getSeed());
+  }
+
+  /**
+   * Instantiates a RegressionTree and starts the learning phase on the input
+   * training set within the input limits, drawing the attributes scored at
+   * each node from its own seed, such as a tree of a forest.
+   * 
+   * @param trainingSet Collection of training examples.
+   * @param config      Limits on the growth of the tree.
+   * @param seed        Seed of the attributes drawn at the nodes.
+   */
+  RegressionTree(Data trainingSet, TrainingConfig config, long seed) {
+    int end = trainingSet.getNumberOfExamples() - 1;
+    NodeStatistics statistics = NodeStatistics.of(trainingSet, 0, end);
+    learnTree(trainingSet, 0, end, statistics, 0,
+        new TrainingRun(config, statistics.getCount(), seed));
+  }
+
+  /**
+   * Instantiates a RegressionTree and starts the learning phase on the input
+   * training set, building the subtrees in parallel on the given pool. The
+   * children of a node are learnt by separate tasks as long as the node covers
+   * at least parallelThreshold examples, smaller subtrees are learnt
+   * sequentially by the task that reaches them.
+   * 
+   * @param trainingSet       Collection of training examples.
+   * @param pool              Pool whose threads learn the subtrees.
+   * @param parallelThreshold Minimum number of examples a node must cover for
+   *                          its children to be learnt in parallel.
+   */
+  public RegressionTree(Data trainingSet, ForkJoinPool pool, int parallelThreshold) {
+    this(trainingSet, pool, parallelThreshold, TrainingConfig.DEFAULT);
+  }
+
+  /**
+   * Instantiates a RegressionTree and starts the learning phase on the input
+   * training set within the input limits, building the subtrees in parallel
+   * on the given pool. If the configuration bounds the number of nodes, the
+   * subtrees are not learnt by separate tasks, since the subtrees cut when the
+   * maximum is reached would depend on the order the tasks run in: the tree is
+   * learnt depth-first, as by the sequential constructor, and only the
+   * candidate SplitNodes of the nodes covering at least parallelThreshold
+   * examples are computed in parallel, so that the learnt tree is always the
+   * same.
+   * 
+   * @param trainingSet       Collection of training examples.
+   * @param pool              Pool whose threads learn the subtrees.
+   * @param parallelThreshold Minimum number of examples a node must cover for
+   *                          its children to be learnt in parallel.
+   * @param config            Limits on the growth of the tree.
+   */
+  public RegressionTree(Data trainingSet, ForkJoinPool pool, int parallelThreshold,
+      TrainingConfig config) {
+    int end = trainingSet.getNumberOfExamples() - 1;
+    NodeStatistics statistics = NodeStatistics.of(trainingSet, 0, end);
+    pool.invoke(new LearnTreeTask(this, trainingSet, 0, end, statistics, 0,
+        new TrainingRun(config, statistics.getCount()), parallelThreshold));
+  }
+
+  /**
+   * Learns a RegressionTree inside the database, reading only the statistics
+   * of the groups of examples covered by each candidate split, never the
+   * examples themselves. Discrete splits are the same as the ones learnt from a
+   * Data, while continuous splits are searched among the boundaries of the
+   * buckets of the table.
+   * 
+   * @param table Training set left in the database.
+   * @return The learnt tree.
+   * @throws TrainingDataException If there are problems querying the database.
+   */
+  public static RegressionTree learnInDatabase(TableStatistics table)
+      throws TrainingDataException {
+    return learnInDatabase(table, TrainingConfig.DEFAULT);
+  }
+
+  /**
+   * Learns a RegressionTree inside the database within the input limits.
+   * 
+   * @param table  Training set left in the database.
+   * @param config Limits on the growth of the tree.
+   * @return The learnt tree.
+   * @throws TrainingDataException If there are problems querying the database.
+   */
+  public static RegressionTree learnInDatabase(TableStatistics table, TrainingConfig config)
+      throws TrainingDataException {
+    return new InDatabaseLearner(table, config).learn();
+  }
+
+  /**
+   * Learns a RegressionTree one depth level at a time within the input limits,
+   * reading each column of the training set once per level. The continuous
+   * attributes of the training set are discretized, unless they already are,
+   * and the splits are searched among the boundaries of their bins.
+   * 
+   * @param trainingSet Collection of training examples, only read.
+   * @param config      Limits on the growth of the tree.
+   * @return The learnt tree.
+   */
+  public static RegressionTree learnLevelWise(Data trainingSet, TrainingConfig config) {
+    if (!trainingSet.isDiscretized()) {
+      trainingSet.discretize(Data.MAX_BINS);
+    }
+    return new LevelWiseLearner(trainingSet, config).learn();
   }
 
   /**
-   * Checks if the sub set [begin,end] can be covered by a leaf node.
+   * Task used to learn a subtree in parallel with its siblings.
    * 
-   * @param trainingSet             Collection of training examples.
-   * @param begin                   Index of the first element of the sub set.
-   * @param end                     Index of the last element of the sub set.
-   * @param numberOfExamplesPerLeaf Minimum number of examples that a leaf should
-   *                                have.
-   * @return True if the sub set can be covered by a leaf node, else False.
+   * @author Fabio
+   *
    */
-  private boolean isLeaf(Data trainingSet, int begin, int end, int numberOfExamplesPerLeaf) {
-    return end - begin + 1 <= numberOfExamplesPerLeaf;
+  private static class LearnTreeTask extends RecursiveAction {
+    /**
+     * Tree to be learnt by this task.
+     */
+    private final RegressionTree tree;
+    /**
+     * Collection of training examples.
+     */
+    private final Data trainingSet;
+    /**
+     * Index of the first element of the sub set.
+     */
+    private final int begin;
+    /**
+     * Index of the last element of the sub set.
+     */
+    private final int end;
+    /**
+     * Statistics of the class values of the sub set.
+     */
+    private final NodeStatistics statistics;
+    /**
+     * Depth of the root of the tree.
+     */
+    private final int depth;
+    /**
+     * State of the learning the tree is part of.
+     */
+    private final TrainingRun run;
+    /**
+     * Minimum number of examples a node must cover for its children to be learnt
+     * in parallel.
+     */
+    private final int parallelThreshold;
+
+    /**
+     * Initializes the task attributes.
+     * 
+     * @param tree              Tree to be learnt by this task.
+     * @param trainingSet       Collection of training examples.
+     * @param begin             Index of the first element of the sub set.
+     * @param end               Index of the last element of the sub set.
+     * @param statistics        Statistics of the class values of the sub set.
+     * @param depth             Depth of the root of the tree.
+     * @param run               State of the learning the tree is part of.
+     * @param parallelThreshold Minimum number of examples a node must cover for
+     *                          its children to be learnt in parallel.
+     */
+    LearnTreeTask(RegressionTree tree, Data trainingSet, int begin, int end,
+        NodeStatistics statistics, int depth, TrainingRun run, int parallelThreshold) {
+      this.tree = tree;
+      this.trainingSet = trainingSet;
+      this.begin = begin;
+      this.end = end;
+      this.statistics = statistics;
+      this.depth = depth;
+      this.run = run;
+      this.parallelThreshold = parallelThreshold;
+    }
+
+    /**
+     * Learns the root of the tree, computing the candidate SplitNodes in
+     * parallel, and forks a task for each of its children, or learns the whole
+     * tree sequentially if the sub set is smaller than parallelThreshold. If
+     * the number of nodes is bounded no task is forked, and the whole tree is
+     * learnt depth-first by this task.
+     */
+    @Override
+    protected void compute() {
+      if (end - begin + 1 < parallelThreshold) {
+        tree.learnTree(trainingSet, begin, end, statistics, depth, run);
+      } else if (run.isNodeCountBounded()) {
+        tree.learnTree(trainingSet, begin, end, statistics, depth, run, parallelThreshold);
+      } else if (tree.learnRoot(trainingSet, begin, end, statistics, depth, run, true)) {
+        SplitNode root = (SplitNode) tree.root;
+        LearnTreeTask[] tasks = new LearnTreeTask[tree.childTree.length];
+        for (int i = 0; i < tasks.length; i++) {
+          SplitNode.SplitInfo splitInfo = root.getSplitInfo(i);
+          tasks[i] = new LearnTreeTask(tree.childTree[i], trainingSet,
+              splitInfo.getBeginIndex(), splitInfo.getEndIndex(), splitInfo.getStatistics(),
+              depth + 1, run, parallelThreshold);
+        }
+        invokeAll(tasks);
+      }
+    }
   }
 
   /**
-   * Instantiates a new SplitNode (Continuous or Discrete) for each independent
-   * attribute in the explanatory set, uses the one with the lower variance to
-   * sort the training set in the range [begin,end], and returns the SplitNode
-   * associated.
+   * Scores the split of each of the input independent attributes without
+   * instantiating it, and instantiates only the SplitNode (Continuous
+   * or Discrete) of the attribute whose split has the lowest variance, which
+   * sorts the training set in the range [begin,end]. If the training set is
+   * presorted, its sorted lists are partitioned among the children of the
+   * chosen SplitNode. In parallel mode every attribute is scored by a separate
+   * task, on its own view of the training set sorted by the attribute if the
+   * attribute is continuous and its values are all scored on a training set
+   * that is not discretized. The attributes that can't split the sub set,
+   * because all their values in it are equal, are skipped.
    * 
    * @param trainingSet Collection of training examples.
    * @param begin       Index of the first element of the sub set.
    * @param end         Index of the last element of the sub set.
+   * @param statistics  Statistics of the class values of the sub set.
+   * @param attributes  Indexes of the attributes to be scored, in ascending
+   *                    order.
+   * @param depth       Depth of the node.
+   * @param run         State of the learning the node is part of.
+   * @param parallel    True if the SplitNodes have to be computed in parallel,
+   *                    this requires the method to be called by a task of a
+   *                    ForkJoinPool.
    * @return The SplitNode with the lowest variance.
-   * @throws NoBestExplanatoryValueFoundException If all the explanatory values
-   *                                              for every example in the current
-   *                                              sub set are equal.
+   * @throws NoBestExplanatoryValueFoundException If none of the attributes can
+   *                                              split the sub set.
    */
-  private SplitNode determineBestSplitNode(Data trainingSet, int begin, int end)
+  private SplitNode determineBestSplitNode(Data trainingSet, int begin, int end,
+      NodeStatistics statistics, int[] attributes, int depth, TrainingRun run, boolean parallel)
       throws NoBestExplanatoryValueFoundException {
+    int numberOfAttributes = attributes.length;
+    double[] splitVariances = new double[numberOfAttributes];
+
+    if (parallel) {
+      SplitScoreTask[] tasks = new SplitScoreTask[numberOfAttributes];
+      for (int i = 0; i < tasks.length; i++) {
+        tasks[i] = new SplitScoreTask(trainingSet, begin, end, statistics,
+            trainingSet.getExplanatoryAttribute(attributes[i]), depth, run);
+      }
+      ForkJoinTask.invokeAll(tasks);
+      for (int i = 0; i < tasks.length; i++) {
+        Double splitVariance = tasks[i].join();
+        splitVariances[i] = splitVariance == null ? Double.NaN : splitVariance;
+      }
+    } else {
+      for (int i = 0; i < numberOfAttributes; i++) {
+        try {
+          splitVariances[i] = evaluateSplit(trainingSet, begin, end, statistics,
+              trainingSet.getExplanatoryAttribute(attributes[i]), depth, run);
+        } catch (NoBestExplanatoryValueFoundException e) {
+          splitVariances[i] = Double.NaN;
+        }
+      }
+    }
+    int best = -1;
+    for (int i = 0; i < numberOfAttributes; i++) {
+      if (!Double.isNaN(splitVariances[i]) && (best == -1
+          || SplitNode.compareVariances(splitVariances[i], splitVariances[best]) < 0)) {
+        best = i;
+      }
+    }
+    if (best == -1) {
+      throw new NoBestExplanatoryValueFoundException();
+    }
+    SplitNode min = newSplitNode(trainingSet, begin, end, statistics,
+        trainingSet.getExplanatoryAttribute(attributes[best]), depth, run);
+    if (min.getNumberOfChildren() > 1) {
+      int[] childBeginIndexes = new int[min.getNumberOfChildren()];
+      for (int i = 0; i < childBeginIndexes.length; i++) {
+        childBeginIndexes[i] = min.getSplitInfo(i).getBeginIndex();
+      }
+      trainingSet.split(begin, end, childBeginIndexes);
+    }
+    return min;
 
-    TreeSet<SplitNode> ts = new TreeSet<SplitNode>();
-    SplitNode min;
-    SplitNode currentNode;
+  }
 
-    for (int i = 0; i < trainingSet.getNumberOfExplanatoryAttributes(); i++) {
-      Attribute attribute = trainingSet.getExplanatoryAttribute(i);
-      if (attribute instanceof DiscreteAttribute) {
-        currentNode = new DiscreteNode(trainingSet, begin, end, (DiscreteAttribute) attribute);
-      } else {
-        currentNode = new ContinuousNode(trainingSet, begin, end, (ContinuousAttribute) attribute);
+  /**
+   * Computes the variance of the SplitNode (Continuous or Discrete) of the
+   * input attribute, without instantiating it. If the learning draws random
+   * thresholds, the ones of a continuous attribute are drawn from the seed of
+   * the tree, the position of the node and the attribute.
+   * 
+   * @param trainingSet Collection of training examples.
+   * @param begin       Index of the first element of the sub set.
+   * @param end         Index of the last element of the sub set.
+   * @param statistics  Statistics of the class values of the sub set.
+   * @param attribute   Independent attribute that defines the split.
+   * @param depth       Depth of the node.
+   * @param run         State of the learning the node is part of.
+   * @return The variance of the SplitNode of the attribute.
+   * @throws NoBestExplanatoryValueFoundException If all the values of a
+   *                                              continuous attribute in the
+   *                                              current sub set are equal.
+   */
+  private static double evaluateSplit(Data trainingSet, int begin, int end,
+      NodeStatistics statistics, Attribute attribute, int depth, TrainingRun run)
+      throws NoBestExplanatoryValueFoundException {
+    if (attribute instanceof DiscreteAttribute) {
+      return DiscreteNode.evaluate(trainingSet, begin, end, (DiscreteAttribute) attribute);
+    } else if (run.getRandomThresholds() > 0) {
+      return ContinuousNode.evaluateRandom(trainingSet, begin, end,
+          (ContinuousAttribute) attribute, statistics, run.thresholdRandom(begin, depth, attribute),
+          run.getRandomThresholds());
+    } else {
+      return ContinuousNode.evaluate(trainingSet, begin, end, (ContinuousAttribute) attribute,
+          statistics);
+    }
+  }
+
+  /**
+   * Instantiates a new SplitNode (Continuous or Discrete) for the input
+   * attribute, drawing the same random thresholds as evaluateSplit, if any.
+   * 
+   * @param trainingSet Collection of training examples.
+   * @param begin       Index of the first element of the sub set.
+   * @param end         Index of the last element of the sub set.
+   * @param statistics  Statistics of the class values of the sub set.
+   * @param attribute   Independent attribute that defines the split.
+   * @param depth       Depth of the node.
+   * @param run         State of the learning the node is part of.
+   * @return The SplitNode of the attribute.
+   * @throws NoBestExplanatoryValueFoundException If all the values of a
+   *                                              continuous attribute in the
+   *                                              current sub set are equal.
+   */
+  private static SplitNode newSplitNode(Data trainingSet, int begin, int end,
+      NodeStatistics statistics, Attribute attribute, int depth, TrainingRun run)
+      throws NoBestExplanatoryValueFoundException {
+    if (attribute instanceof DiscreteAttribute) {
+      return new DiscreteNode(trainingSet, begin, end, (DiscreteAttribute) attribute,
+          statistics);
+    } else if (run.getRandomThresholds() > 0) {
+      return ContinuousNode.newRandomNode(trainingSet, begin, end,
+          (ContinuousAttribute) attribute, statistics, run.thresholdRandom(begin, depth, attribute),
+          run.getRandomThresholds());
+    } else {
+      return new ContinuousNode(trainingSet, begin, end, (ContinuousAttribute) attribute,
+          statistics);
+    }
+  }
+
+  /**
+   * Task used to score the split of an attribute in parallel with the other
+   * attributes.
+   * 
+   * @author Fabio
+   *
+   */
+  private static class SplitScoreTask extends RecursiveTask<Double> {
+    /**
+     * Collection of training examples.
+     */
+    private final Data trainingSet;
+    /**
+     * Index of the first element of the sub set.
+     */
+    private final int begin;
+    /**
+     * Index of the last element of the sub set.
+     */
+    private final int end;
+    /**
+     * Statistics of the class values of the sub set.
+     */
+    private final NodeStatistics statistics;
+    /**
+     * Independent attribute that defines the split.
+     */
+    private final Attribute attribute;
+    /**
+     * Depth of the node.
+     */
+    private final int depth;
+    /**
+     * State of the learning the node is part of.
+     */
+    private final TrainingRun run;
+
+    /**
+     * Initializes the task attributes.
+     * 
+     * @param trainingSet Collection of training examples.
+     * @param begin       Index of the first element of the sub set.
+     * @param end         Index of the last element of the sub set.
+     * @param statistics  Statistics of the class values of the sub set.
+     * @param attribute   Independent attribute that defines the split.
+     * @param depth       Depth of the node.
+     * @param run         State of the learning the node is part of.
+     */
+    SplitScoreTask(Data trainingSet, int begin, int end, NodeStatistics statistics,
+        Attribute attribute, int depth, TrainingRun run) {
+      this.trainingSet = trainingSet;
+      this.begin = begin;
+      this.end = end;
+      this.statistics = statistics;
+      this.attribute = attribute;
+      this.depth = depth;
+      this.run = run;
+    }
 
+    /**
+     * Computes the variance of the SplitNode of the attribute, on a view of the
+     * training set sorted by the attribute if the split has to be searched
+     * among all the sorted values of a continuous attribute, else on the
+     * training set itself, which is only read.
+     * 
+     * @return The variance of the SplitNode of the attribute, or null if no
+     *         split could be found for it.
+     */
+    @Override
+    protected Double compute() {
+      Data data = attribute instanceof DiscreteAttribute || trainingSet.isDiscretized()
+          || run.getRandomThresholds() > 0
+          ? trainingSet
+          : trainingSet.sortedView(attribute, begin, end);
+      try {
+        return evaluateSplit(data, begin, end, statistics, attribute, depth, run);
+      } catch (NoBestExplanatoryValueFoundException e) {
+        return null;
       }
+    }
+  }
 
-      ts.add(currentNode);
+  /**
+   * Generates the regression tree covering the sub set [begin,end], using an
+   * explicit stack of the subtrees still to be learnt instead of recursion,
+   * so that the depth of the tree does not depend on the thread stack. Each
+   * subtree popped from the stack gets its root by learnRoot, and if the root
+   * is a SplitNode the child trees are pushed, with the sub set and the
+   * statistics of each child, in reverse order so that they are learnt
+   * depth-first from the first child, as a recursive visit would.
+   * 
+   * @param trainingSet Collection of training examples.
+   * @param begin       Index of the first element of the sub set.
+   * @param end         Index of the last element of the sub set.
+   * @param statistics  Statistics of the class values of the sub set.
+   * @param depth       Depth of the root of the tree.
+   * @param run         State of the learning the tree is part of.
+   */
+  private void learnTree(Data trainingSet, int begin, int end, NodeStatistics statistics,
+      int depth, TrainingRun run) {
+    learnTree(trainingSet, begin, end, statistics, depth, run, Integer.MAX_VALUE);
+  }
 
+  /**
+   * Generates the regression tree covering the sub set [begin,end] depth-first
+   * as learnTree, computing the candidate SplitNodes in parallel at the nodes
+   * covering at least parallelThreshold examples. This requires the method to
+   * be called by a task of a ForkJoinPool, unless no node is that large.
+   * 
+   * @param trainingSet       Collection of training examples.
+   * @param begin             Index of the first element of the sub set.
+   * @param end               Index of the last element of the sub set.
+   * @param statistics        Statistics of the class values of the sub set.
+   * @param depth             Depth of the root of the tree.
+   * @param run               State of the learning the tree is part of.
+   * @param parallelThreshold Minimum number of examples a node must cover for
+   *                          its SplitNodes to be computed in parallel.
+   */
+  private void learnTree(Data trainingSet, int begin, int end, NodeStatistics statistics,
+      int depth, TrainingRun run, int parallelThreshold) {
+    Deque<PendingTree> stack = new ArrayDeque<PendingTree>();
+    stack.push(new PendingTree(this, begin, end, statistics, depth));
+    while (!stack.isEmpty()) {
+      PendingTree pending = stack.pop();
+      RegressionTree tree = pending.tree;
+      if (tree.learnRoot(trainingSet, pending.begin, pending.end, pending.statistics,
+          pending.depth, run, pending.end - pending.begin + 1 >= parallelThreshold)) {
+        SplitNode root = (SplitNode) tree.root;
+        for (int i = tree.childTree.length - 1; i >= 0; i--) {
+          SplitNode.SplitInfo splitInfo = root.getSplitInfo(i);
+          stack.push(new PendingTree(tree.childTree[i], splitInfo.getBeginIndex(),
+              splitInfo.getEndIndex(), splitInfo.getStatistics(), pending.depth + 1));
+        }
+      }
     }
-    min = ts.first();
-    trainingSet.sort(min.getAttribute(), begin, end);
-    return min;
+  }
+
+  /**
+   * Subtree still to be learnt by learnTree, with the sub set of examples it
+   * covers.
+   * 
+   * @author Fabio
+   *
+   */
+  private static class PendingTree {
+    /**
+     * Tree to be learnt.
+     */
+    private final RegressionTree tree;
+    /**
+     * Index of the first element of the sub set.
+     */
+    private final int begin;
+    /**
+     * Index of the last element of the sub set.
+     */
+    private final int end;
+    /**
+     * Statistics of the class values of the sub set.
+     */
+    private final NodeStatistics statistics;
+    /**
+     * Depth of the root of the tree.
+     */
+    private final int depth;
 
+    /**
+     * Initializes the subtree to be learnt.
+     * 
+     * @param tree       Tree to be learnt.
+     * @param begin      Index of the first element of the sub set.
+     * @param end        Index of the last element of the sub set.
+     * @param statistics Statistics of the class values of the sub set.
+     * @param depth      Depth of the root of the tree.
+     */
+    PendingTree(RegressionTree tree, int begin, int end, NodeStatistics statistics,
+        int depth) {
+      this.tree = tree;
+      this.begin = begin;
+      this.end = end;
+      this.statistics = statistics;
+      this.depth = depth;
+    }
   }
 
   /**
-   * Recursive method used to generate the regression tree. If the current set of
-   * examples can be covered by a leaf node then the root of the tree gets
+   * Learns the root of the tree. If the current set of examples must be covered
+   * by a leaf node according to the limits of the learning, then the root gets
    * assigned a new LeafNode in that range, else the output of the method
-   * determineBestSplitNode gets assigned to the root and learnTree is recursively
-   * called for every child of root.
+   * determineBestSplitNode, among the attributes selected by the learning, gets
+   * assigned to the root and an empty child tree is created for every child of
+   * root, unless the split is not accepted by the limits and the root is a
+   * LeafNode as well.
    * 
-   * @param trainingSet             Collection of training examples.
-   * @param begin                   Index of the first element of the sub set.
-   * @param end                     Index of the last element of the sub set.
-   * @param numberOfExamplesPerLeaf Minimum number of examples that a leaf should
-   *                                have.
+   * @param trainingSet Collection of training examples.
+   * @param begin       Index of the first element of the sub set.
+   * @param end         Index of the last element of the sub set.
+   * @param statistics  Statistics of the class values of the sub set.
+   * @param depth       Depth of the root of the tree.
+   * @param run         State of the learning the tree is part of.
+   * @param parallel    True if the candidate SplitNodes have to be computed in
+   *                    parallel.
+   * @return True if the root is a SplitNode whose child trees have still to be
+   *         learnt, else False.
    */
-  private void learnTree(Data trainingSet, int begin, int end, int numberOfExamplesPerLeaf) {
-    if (isLeaf(trainingSet, begin, end, numberOfExamplesPerLeaf)) {
-      root = new LeafNode(trainingSet, begin, end);
+  private boolean learnRoot(Data trainingSet, int begin, int end, NodeStatistics statistics,
+      int depth, TrainingRun run, boolean parallel) {
+    if (run.isLeaf(statistics, depth)) {
+      root = new LeafNode(begin, end, statistics);
     } else {
       try {
-        root = determineBestSplitNode(trainingSet, begin, end);
-        if (root.getNumberOfChildren() > 1) {
+        int[] attributes = run.selectAttributes(trainingSet.getNumberOfExplanatoryAttributes(),
+            begin, depth);
+        root = determineBestSplitNode(trainingSet, begin, end, statistics, attributes, depth,
+            run, parallel);
+        if (run.acceptSplit((SplitNode) root)) {
           childTree = new RegressionTree[root.getNumberOfChildren()];
           for (int i = 0; i < root.getNumberOfChildren(); i++) {
             childTree[i] = new RegressionTree();
-            childTree[i].learnTree(trainingSet, ((SplitNode) root).getSplitInfo(i).getBeginIndex(),
-                ((SplitNode) root).getSplitInfo(i).getEndIndex(), numberOfExamplesPerLeaf);
           }
+          return true;
         } else {
-          root = new LeafNode(trainingSet, begin, end);
+          root = new LeafNode(begin, end, statistics);
         }
       } catch (NoBestExplanatoryValueFoundException e) {
-        root = new LeafNode(trainingSet, begin, end);
+        root = new LeafNode(begin, end, statistics);
       }
     }
+    return false;
   }
 
   /**
@@ -154,32 +663,39 @@ public class RegressionTree implements Serializable {
   }
 
   /**
-   * Support method for printRules(). Recursively scans the tree concatenating the
-   * current node info if it's a split node, else if it's a leaf node prints them
-   * to the screen.
+   * Support method for printRules(). Scans the tree with an explicit stack,
+   * concatenating the info of the split nodes on the path to each leaf, and
+   * prints the rule of each leaf to the screen, in the order of a depth-first
+   * visit.
    * 
    * @param current String containing the info to print.
    */
   private void printRules(String current) {
-    if (root instanceof LeafNode) {
-      System.out.println(current + " ==> Class=" + ((LeafNode) root).getPredictedClassValue());
-    } else {
-      current += ((SplitNode) root).getAttribute();
-      for (int i = 0; i < childTree.length; i++) {
-        String temp = new String(current);
-        SplitNode tempNode = (SplitNode) root;
-        temp += tempNode.getSplitInfo(i).getComparator() + tempNode.getSplitInfo(i).getSplitValue();
-        if (childTree[i].root instanceof LeafNode) {
-          childTree[i].printRules(temp);
-        } else {
-          childTree[i].printRules(temp + " AND ");
+    Deque<RegressionTree> trees = new ArrayDeque<RegressionTree>();
+    Deque<String> rules = new ArrayDeque<String>();
+    trees.push(this);
+    rules.push(current);
+    while (!trees.isEmpty()) {
+      RegressionTree tree = trees.pop();
+      String rule = rules.pop();
+      if (tree.root instanceof LeafNode) {
+        System.out.println(rule + " ==> Class=" + ((LeafNode) tree.root).getPredictedClassValue());
+      } else {
+        SplitNode splitNode = (SplitNode) tree.root;
+        rule += splitNode.getAttribute();
+        for (int i = tree.childTree.length - 1; i >= 0; i--) {
+          String temp = rule + splitNode.getSplitInfo(i).getComparator()
+              + splitNode.decodeSplitValue(splitNode.getSplitInfo(i).getSplitValue());
+          trees.push(tree.childTree[i]);
+          rules.push(tree.childTree[i].root instanceof LeafNode ? temp : temp + " AND ");
         }
       }
     }
   }
 
   /**
-   * Allows the user to make a prediction based on the current tree.
+   * Allows the user to make a prediction based on the current tree, walking
+   * down from the root to a leaf one answer at a time.
    * 
    * @param in  Input stream to communicate with the client.
    * @param out Output stream to communicate with the client.
@@ -190,39 +706,119 @@ public class RegressionTree implements Serializable {
    * @throws ClassNotFoundException If the user input is not an instance of a
    *                                known class.
    */
+  @Override
   public Double predictClass(ObjectInputStream in, ObjectOutputStream out)
       throws UnknownValueException, IOException, ClassNotFoundException {
-    if (root instanceof LeafNode) {
-      out.writeObject("OK");
-      return ((LeafNode) root).getPredictedClassValue();
-    } else {
-      int risp = -1;
-      out.writeObject("QUERY");
-      out.writeObject(((SplitNode) root).formulateQuery());
-      risp = (int) in.readObject();
-      if (risp < 0 || risp >= root.getNumberOfChildren()) {
-        throw new UnknownValueException("The answer should be an integer between 0 and "
-            + (root.getNumberOfChildren() - 1) + "!");
-      } else {
-        return childTree[risp].predictClass(in, out);
+    double predictedValue = predict(in, out, new HashMap<String, Integer>());
+    out.writeObject("OK");
+    return predictedValue;
+  }
+
+  /**
+   * Walks down the tree from the root to a leaf, asking the client the test of
+   * each split node met, unless the same test has already been answered, and
+   * returns the class value predicted by the leaf. The final OK is left to the
+   * caller, so that a forest can walk all its trees in a single prediction.
+   * 
+   * @param in      Input stream to communicate with the client.
+   * @param out     Output stream to communicate with the client.
+   * @param answers Answers already given by the client, by test.
+   * @return The predicted class value.
+   * @throws UnknownValueException  If the user input is not a integer between 0
+   *                                and root.getNumberOfChildren() -1.
+   * @throws IOException            If there are communication problems.
+   * @throws ClassNotFoundException If the user input is not an instance of a
+   *                                known class.
+   */
+  double predict(ObjectInputStream in, ObjectOutputStream out, Map<String, Integer> answers)
+      throws UnknownValueException, IOException, ClassNotFoundException {
+    RegressionTree tree = this;
+    while (!(tree.root instanceof LeafNode)) {
+      String query = ((SplitNode) tree.root).formulateQuery();
+      Integer risp = answers.get(query);
+      if (risp == null) {
+        out.writeObject("QUERY");
+        out.writeObject(query);
+        risp = (int) in.readObject();
+        if (risp < 0 || risp >= tree.root.getNumberOfChildren()) {
+          throw new UnknownValueException("The answer should be an integer between 0 and "
+              + (tree.root.getNumberOfChildren() - 1) + "!");
+        }
+        answers.put(query, risp);
       }
+      tree = tree.childTree[risp];
     }
+    return ((LeafNode) tree.root).getPredictedClassValue();
   }
 
   /**
-   * Saves the tree to a file.
+   * Walks down the tree from the root to a leaf testing an example of a
+   * training set, with no client involved, and returns the class value
+   * predicted by the leaf. If the example reaches a split node with no child
+   * for its value, the average class value of the node is returned.
+   *
+   * @param trainingSet  Collection of examples.
+   * @param exampleIndex Index of the example.
+   * @return The predicted class value.
+   */
+  double predict(Data trainingSet, int exampleIndex) {
+    RegressionTree tree = this;
+    while (!(tree.root instanceof LeafNode)) {
+      int child = ((SplitNode) tree.root).testExample(trainingSet, exampleIndex);
+      if (child == -1) {
+        return tree.root.getStatistics().getMean();
+      }
+      tree = tree.childTree[child];
+    }
+    return ((LeafNode) tree.root).getPredictedClassValue();
+  }
+
+  /**
+   * Writes the nodes of the tree in the order of a depth-first visit, using an
+   * explicit stack, so that serializing a deep tree does not recurse through
+   * the child trees.
+   * 
+   * @param out Stream the tree is written to.
+   * @throws IOException If there are problems writing to the stream.
+   */
+  private void writeObject(ObjectOutputStream out) throws IOException {
+    out.defaultWriteObject();
+    Deque<RegressionTree> stack = new ArrayDeque<RegressionTree>();
+    stack.push(this);
+    while (!stack.isEmpty()) {
+      RegressionTree tree = stack.pop();
+      out.writeObject(tree.root);
+      if (tree.root instanceof SplitNode) {
+        for (int i = tree.childTree.length - 1; i >= 0; i--) {
+          stack.push(tree.childTree[i]);
+        }
+      }
+    }
+  }
+
+  /**
+   * Reads the nodes written by writeObject and rebuilds the child trees, using
+   * an explicit stack of the trees whose root has still to be read.
    * 
-   * @param fileName Name of the file where to save the tree.
-   * @throws ImpossibleSerializationException If there are serialization problems.
+   * @param in Stream the tree is read from.
+   * @throws IOException            If there are problems reading from the
+   *                                stream.
+   * @throws ClassNotFoundException If the class of a node can not be found.
    */
-  public void save(String fileName) throws ImpossibleSerializationException {
-    try {
-      FileOutputStream outFile = new FileOutputStream(fileName);
-      ObjectOutputStream outStream = new ObjectOutputStream(outFile);
-      outStream.writeObject(this);
-      outStream.close();
-    } catch (IOException e) {
-      throw new ImpossibleSerializationException(e);
+  private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+    in.defaultReadObject();
+    Deque<RegressionTree> stack = new ArrayDeque<RegressionTree>();
+    stack.push(this);
+    while (!stack.isEmpty()) {
+      RegressionTree tree = stack.pop();
+      tree.root = (Node) in.readObject();
+      if (tree.root instanceof SplitNode) {
+        tree.childTree = new RegressionTree[tree.root.getNumberOfChildren()];
+        for (int i = tree.childTree.length - 1; i >= 0; i--) {
+          tree.childTree[i] = new RegressionTree();
+          stack.push(tree.childTree[i]);
+        }
+      }
     }
   }
 
@@ -231,34 +827,37 @@ public class RegressionTree implements Serializable {
    * 
    * @param fileName Name of the file where the tree is stored
    * @return Object of class RegressionTree loaded from file.
-   * @throws ImpossibleSerializationException If there are serialization problems.
+   * @throws ImpossibleSerializationException If there are serialization problems,
+   *                                          or the file holds a forest.
    */
   public static RegressionTree load(String fileName) throws ImpossibleSerializationException {
-    try {
-      FileInputStream inFile = new FileInputStream(fileName);
-      ObjectInputStream inStream = new ObjectInputStream(inFile);
-      RegressionTree loaded = (RegressionTree) inStream.readObject();
-      inStream.close();
-      return loaded;
-    } catch (IOException | ClassNotFoundException e) {
-      throw new ImpossibleSerializationException(e);
+    RegressionModel loaded = RegressionModel.load(fileName);
+    if (!(loaded instanceof RegressionTree)) {
+      throw new ImpossibleSerializationException(
+          "The file " + fileName + " does not hold a single tree");
     }
-
+    return (RegressionTree) loaded;
   }
 
   /**
-   * Returns a string containing all the class info.
+   * Returns a string containing all the class info, with the nodes in the
+   * order of a depth-first visit made with an explicit stack.
    */
   @Override
   public String toString() {
-    String tree = root.toString() + "\n";
-
-    if (root instanceof SplitNode) {
-      for (int i = 0; i < childTree.length; i++) {
-        tree += childTree[i];
+    StringBuilder tree = new StringBuilder();
+    Deque<RegressionTree> stack = new ArrayDeque<RegressionTree>();
+    stack.push(this);
+    while (!stack.isEmpty()) {
+      RegressionTree current = stack.pop();
+      tree.append(current.root).append("\n");
+      if (current.root instanceof SplitNode) {
+        for (int i = current.childTree.length - 1; i >= 0; i--) {
+          stack.push(current.childTree[i]);
+        }
       }
     }
-    return tree;
+    return tree.toString();
   }
 
 }
@@ -3,6 +3,7 @@ package tree;
 import data.Attribute;
 import data.Data;
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -42,6 +43,10 @@ abstract class SplitNode extends Node implements Comparable<SplitNode> {
      * Comparator used.
      */
     private String comparator = "=";
+    /**
+     * Statistics of the class values of the examples covered by the child.
+     */
+    private final NodeStatistics statistics;
 
     /**
      * Initializes the class attributes for a discrete node.
@@ -55,12 +60,16 @@ abstract class SplitNode extends Node implements Comparable<SplitNode> {
      *                    the node.
      * @param numberChild Number of children that the node has in the regression
      *                    tree.
+     * @param statistics  Statistics of the class values of the examples covered
+     *                    by the child.
      */
-    SplitInfo(Object splitValue, int beginIndex, int endIndex, int numberChild) {
+    SplitInfo(Object splitValue, int beginIndex, int endIndex, int numberChild,
+        NodeStatistics statistics) {
       this.splitValue = splitValue;
       this.beginIndex = beginIndex;
       this.endIndex = endIndex;
       this.numberChild = numberChild;
+      this.statistics = statistics;
     }
 
     /**
@@ -76,13 +85,17 @@ abstract class SplitNode extends Node implements Comparable<SplitNode> {
      *                    tree.
      * @param comparator  Mathematical operator that defines the test for the
      *                    current node.
+     * @param statistics  Statistics of the class values of the examples covered
+     *                    by the child.
      */
-    SplitInfo(Object splitValue, int beginIndex, int endIndex, int numberChild, String comparator) {
+    SplitInfo(Object splitValue, int beginIndex, int endIndex, int numberChild, String comparator,
+        NodeStatistics statistics) {
       this.splitValue = splitValue;
       this.beginIndex = beginIndex;
       this.endIndex = endIndex;
       this.numberChild = numberChild;
       this.comparator = comparator;
+      this.statistics = statistics;
     }
 
     /**
@@ -123,8 +136,19 @@ abstract class SplitNode extends Node implements Comparable<SplitNode> {
       return comparator;
     }
 
+    /**
+     * Returns the statistics of the class values of the examples covered by the
+     * child.
+     * 
+     * @return Value of statistics.
+     */
+    NodeStatistics getStatistics() {
+      return statistics;
+    }
+
     public String toString() {
-      return "child " + numberChild + " split value" + comparator + splitValue + "[Examples:"
+      return "child " + numberChild + " split value" + comparator
+          + decodeSplitValue(splitValue) + "[Examples:"
           + beginIndex + "-" + endIndex + "]";
     }
 
@@ -141,7 +165,7 @@ abstract class SplitNode extends Node implements Comparable<SplitNode> {
   /**
    * Variance of the split node.
    */
-  private final double splitVariance;
+  private double splitVariance;
   /**
    * Constant used for comparision between floating point numbers.
    */
@@ -150,8 +174,10 @@ abstract class SplitNode extends Node implements Comparable<SplitNode> {
   /**
    * Orders the values of the input attribute in the interval
    * [beginExampleIndex-endxampleIndex] e uses this ordering to determine the
-   * possible SplitInfo, which will be stored inside the ArrayList mapSplit.
-   * Finally computes the SSE as the sum of the SSEs computed for each split.
+   * possible SplitInfo, which will be stored inside the ArrayList mapSplit
+   * together with the statistics of the class values of each child. Finally
+   * computes the SSE as the sum of the SSEs of the children, obtained from
+   * their statistics.
    * 
    * 
    * @param trainingSet       Collection of learning examples.
@@ -160,25 +186,62 @@ abstract class SplitNode extends Node implements Comparable<SplitNode> {
    * @param endExampleIndex   Index of the last example of the training set
    *                          covered by the node.
    * @param attribute         Independent attribute that defines the split.
+   * @param statistics        Statistics of the class values covered by the
+   *                          node.
    * @throws NoBestExplanatoryValueFoundException When the node is defined on a
    *                                              subset of the training set of
    *                                              length zero or less
    *                                              (endExampleIndex -
    *                                              beginExampleIndex &lt;= 0 )
    */
-  SplitNode(Data trainingSet, int beginExampleIndex, int endExampleIndex, Attribute attribute)
-      throws NoBestExplanatoryValueFoundException {
-    super(trainingSet, beginExampleIndex, endExampleIndex);
-    double tempSplitVariance = 0;
+  SplitNode(Data trainingSet, int beginExampleIndex, int endExampleIndex, Attribute attribute,
+      NodeStatistics statistics) throws NoBestExplanatoryValueFoundException {
+    super(beginExampleIndex, endExampleIndex, statistics);
     this.attribute = attribute;
     trainingSet.sort(attribute, beginExampleIndex, endExampleIndex);
     setSplitInfo(trainingSet, beginExampleIndex, endExampleIndex, attribute);
     for (SplitInfo splitInfo : getMapSplit()) {
-      double localVariance = new LeafNode(trainingSet, splitInfo.getBeginIndex(),
-          splitInfo.getEndIndex()).getVariance();
-      tempSplitVariance += (localVariance);
+      splitVariance += splitInfo.getStatistics().getVariance();
     }
-    splitVariance = tempSplitVariance;
+  }
+
+  /**
+   * Initializes a SplitNode with no SplitInfo, such as one learnt from the
+   * statistics computed by the database. The SplitInfo are then added one for
+   * each child, in order, by addSplitInfo, which also adds the SSE of the child
+   * to the split SSE.
+   * 
+   * @param beginExampleIndex Index of the first example of the training set
+   *                          covered by the node.
+   * @param endExampleIndex   Index of the last example of the training set
+   *                          covered by the node.
+   * @param statistics        Statistics of the class values covered by the
+   *                          node.
+   * @param attribute         Independent attribute that defines the split.
+   */
+  SplitNode(int beginExampleIndex, int endExampleIndex, NodeStatistics statistics,
+      Attribute attribute) {
+    super(beginExampleIndex, endExampleIndex, statistics);
+    this.attribute = attribute;
+    mapSplit = new ArrayList<SplitInfo>();
+  }
+
+  /**
+   * Adds the SplitInfo of the next child of the node.
+   * 
+   * @param splitValue Value of the attribute that defines the child.
+   * @param beginIndex Index of the first example of the training set covered by
+   *                   the child.
+   * @param endIndex   Index of the last example of the training set covered by
+   *                   the child.
+   * @param comparator Mathematical operator that defines the test for the child.
+   * @param statistics Statistics of the class values covered by the child.
+   */
+  void addSplitInfo(Object splitValue, int beginIndex, int endIndex, String comparator,
+      NodeStatistics statistics) {
+    mapSplit.add(new SplitInfo(splitValue, beginIndex, endIndex, mapSplit.size(), comparator,
+        statistics));
+    splitVariance += statistics.getVariance();
   }
 
   /**
@@ -210,6 +273,17 @@ abstract class SplitNode extends Node implements Comparable<SplitNode> {
    */
   abstract int testCondition(Object value);
 
+  /**
+   * Abstract method to test an example of a training set against the split,
+   * returning the identifier of the child the example belongs to.
+   * 
+   * @param trainingSet  Collection of examples.
+   * @param exampleIndex Index of the example to test.
+   * @return Number of the split branch of the example, or -1 if no child holds
+   *         its value.
+   */
+  abstract int testExample(Data trainingSet, int exampleIndex);
+
   /**
    * Returns the independent attribute that defines the split.
    * 
@@ -219,6 +293,18 @@ abstract class SplitNode extends Node implements Comparable<SplitNode> {
     return attribute;
   }
 
+  /**
+   * Returns the value to be shown to the user for the split value of a
+   * SplitInfo. The split values are shown as they are, unless a subclass stores
+   * them in an encoded form.
+   * 
+   * @param splitValue split value of a SplitInfo.
+   * @return The split value to be shown.
+   */
+  Object decodeSplitValue(Object splitValue) {
+    return splitValue;
+  }
+
   @Override
   double getVariance() {
     return splitVariance;
@@ -271,7 +357,8 @@ abstract class SplitNode extends Node implements Comparable<SplitNode> {
     String query = "";
     int i = 0;
     for (SplitInfo splitInfo : getMapSplit()) {
-      query += (i + ":" + attribute + splitInfo.getComparator() + splitInfo.getSplitValue()) + "\n";
+      query += (i + ":" + attribute + splitInfo.getComparator()
+          + decodeSplitValue(splitInfo.getSplitValue())) + "\n";
       i++;
     }
     return query;
@@ -301,10 +388,23 @@ abstract class SplitNode extends Node implements Comparable<SplitNode> {
       return 0;
     }
     SplitNode splitNode = (SplitNode) o;
-    if (Math.abs((splitVariance - splitNode.getVariance())) < EPSILON) {
+    return compareVariances(splitVariance, splitNode.getVariance());
+  }
+
+  /**
+   * Compares two split SSEs, considering them equal if they differ by less than
+   * EPSILON.
+   * 
+   * @param variance      split SSE to compare.
+   * @param otherVariance split SSE to compare to.
+   * @return A negative number, zero or a positive number if variance is lower
+   *         than, equal to or greater than otherVariance.
+   */
+  static int compareVariances(double variance, double otherVariance) {
+    if (Math.abs((variance - otherVariance)) < EPSILON) {
       return 0;
     } else {
-      return splitVariance < splitNode.getVariance() ? -1 : 1;
+      return variance < otherVariance ? -1 : 1;
     }
   }
 
@@ -0,0 +1,118 @@
+package tree;
+
+import java.util.Arrays;
+
+/**
+ * Buffers reused by a thread to score the candidate splits of the nodes it
+ * learns, so that scoring a split allocates nothing. They hold the statistics
+ * of the class values of the examples grouped by discrete value or by bin, and
+ * the statistics of the examples on the left of the best threshold found by
+ * the last sweep over a continuous attribute.
+ * 
+ * @author Fabio
+ *
+ */
+final class SplitScratch {
+  /**
+   * Buffers of each thread.
+   */
+  private static final ThreadLocal<SplitScratch> SCRATCH =
+      ThreadLocal.withInitial(SplitScratch::new);
+  /**
+   * Number of rows of each group.
+   */
+  private int[] rows = new int[0];
+  /**
+   * Number of examples of each group.
+   */
+  private double[] counts = new double[0];
+  /**
+   * Sum of the class values of each group.
+   */
+  private double[] sums = new double[0];
+  /**
+   * Sum of the squares of the class values of each group.
+   */
+  private double[] sumsOfSquares = new double[0];
+  /**
+   * Number, sum and sum of squares of the class values of the examples on the
+   * left of the best threshold.
+   */
+  private final double[] left = new double[3];
+
+  /**
+   * Returns the buffers of the current thread.
+   * 
+   * @return The buffers of the current thread.
+   */
+  static SplitScratch get() {
+    return SCRATCH.get();
+  }
+
+  /**
+   * Empties the statistics of the first numberOfGroups groups, growing the
+   * buffers if they are too short.
+   * 
+   * @param numberOfGroups Number of groups to be accumulated.
+   */
+  void clear(int numberOfGroups) {
+    if (rows.length < numberOfGroups) {
+      rows = new int[numberOfGroups];
+      counts = new double[numberOfGroups];
+      sums = new double[numberOfGroups];
+      sumsOfSquares = new double[numberOfGroups];
+    } else {
+      Arrays.fill(rows, 0, numberOfGroups, 0);
+      Arrays.fill(counts, 0, numberOfGroups, 0);
+      Arrays.fill(sums, 0, numberOfGroups, 0);
+      Arrays.fill(sumsOfSquares, 0, numberOfGroups, 0);
+    }
+  }
+
+  /**
+   * Returns the number of rows of each group.
+   * 
+   * @return Value of rows.
+   */
+  int[] getRows() {
+    return rows;
+  }
+
+  /**
+   * Returns the number of examples of each group.
+   * 
+   * @return Value of counts.
+   */
+  double[] getCounts() {
+    return counts;
+  }
+
+  /**
+   * Returns the sum of the class values of each group.
+   * 
+   * @return Value of sums.
+   */
+  double[] getSums() {
+    return sums;
+  }
+
+  /**
+   * Returns the sum of the squares of the class values of each group.
+   * 
+   * @return Value of sumsOfSquares.
+   */
+  double[] getSumsOfSquares() {
+    return sumsOfSquares;
+  }
+
+  /**
+   * Returns the number, sum and sum of squares of the class values of the
+   * examples on the left of the best threshold.
+   * 
+   * @return Value of left.
+   */
+  double[] getLeft() {
+    return left;
+  }
+
+}
@@ -0,0 +1,343 @@
+package tree;
+
+import java.util.Properties;
+
+/**
+ * Limits on the growth of a regression tree, read from properties so that
+ * clients can send them in the learning phase. A node is a leaf if it covers
+ * no more than the minimum number of examples per leaf, if it's at the
+ * maximum depth, if its SSE is zero and pure nodes are not split, or if its
+ * best split does not reduce the SSE by at least the minimum gain or would
+ * make the tree exceed the maximum number of nodes. More than one tree makes
+ * a forest, whose nodes can score only some attributes drawn at random. A
+ * continuous attribute can be scored on a few random thresholds instead of
+ * all of its values. A number of rounds makes a model of gradient boosted
+ * trees. A single tree can also be grown one depth level at a time. Settings
+ * missing from the properties keep their default value, so that the default
+ * limits learn the same trees as before.
+ * 
+ * @author Fabio
+ *
+ */
+public class TrainingConfig {
+  /**
+   * Limits used when none are given.
+   */
+  public static final TrainingConfig DEFAULT = new TrainingConfig(new Properties());
+  /**
+   * Percentage of the examples of the training set that a node must exceed to
+   * be split.
+   */
+  private final double leafPercentage;
+  /**
+   * Number of examples that a node must exceed to be split, whatever the size
+   * of the training set.
+   */
+  private final int minLeafSize;
+  /**
+   * Maximum depth of a node, the root being at depth 0.
+   */
+  private final int maxDepth;
+  /**
+   * Minimum reduction of the SSE for a node to be split, 0 if any split is
+   * accepted.
+   */
+  private final double minGain;
+  /**
+   * Maximum number of nodes of the tree.
+   */
+  private final int maxNodes;
+  /**
+   * True if the nodes whose SSE is zero are not split.
+   */
+  private final boolean stopOnPureNodes;
+  /**
+   * Number of trees to learn, more than one making a RegressionForest.
+   */
+  private final int numberOfTrees;
+  /**
+   * Number of attributes drawn at random among which the split of each node
+   * is chosen, 0 if all the attributes are scored.
+   */
+  private final int featuresPerNode;
+  /**
+   * Number of thresholds drawn at random between the least and the greatest
+   * value of a continuous attribute at each node, among which its split is
+   * chosen, 0 if all the values are scored.
+   */
+  private final int randomThresholds;
+  /**
+   * Seed of the random draws of the bootstrap samples, of the attributes and
+   * of the thresholds.
+   */
+  private final long seed;
+  /**
+   * Maximum number of rounds of gradient boosting, 0 if no boosting is done.
+   */
+  private final int numberOfRounds;
+  /**
+   * Fraction of the prediction of each boosted tree added to the model.
+   */
+  private final double learningRate;
+  /**
+   * Fraction of the examples held out to decide when boosting stops.
+   */
+  private final double validationFraction;
+  /**
+   * Number of rounds without improvement on the held-out examples after which
+   * boosting stops.
+   */
+  private final int patience;
+  /**
+   * True if the tree is grown one depth level at a time, from the histograms
+   * of a discretized training set.
+   */
+  private final boolean levelWise;
+
+  /**
+   * Initializes the limits from the input properties, using the default value
+   * of each missing one.
+   * 
+   * @param properties properties holding the limits.
+   * @throws IllegalArgumentException If a limit is not a number or is out of
+   *                                  range.
+   */
+  public TrainingConfig(Properties properties) {
+    leafPercentage = Double.parseDouble(properties.getProperty("train.leafPercentage", "10"));
+    minLeafSize = Integer.parseInt(properties.getProperty("train.minLeafSize", "0"));
+    maxDepth = Integer.parseInt(
+        properties.getProperty("train.maxDepth", String.valueOf(Integer.MAX_VALUE)));
+    minGain = Double.parseDouble(properties.getProperty("train.minGain", "0"));
+    maxNodes = Integer.parseInt(
+        properties.getProperty("train.maxNodes", String.valueOf(Integer.MAX_VALUE)));
+    stopOnPureNodes = Boolean.parseBoolean(
+        properties.getProperty("train.stopOnPureNodes", "false"));
+    numberOfTrees = Integer.parseInt(properties.getProperty("train.trees", "1"));
+    featuresPerNode = Integer.parseInt(properties.getProperty("train.featuresPerNode", "0"));
+    randomThresholds = Integer.parseInt(properties.getProperty("train.randomThresholds", "0"));
+    seed = Long.parseLong(properties.getProperty("train.seed", "0"));
+    numberOfRounds = Integer.parseInt(properties.getProperty("train.rounds", "0"));
+    learningRate = Double.parseDouble(properties.getProperty("train.learningRate", "0.1"));
+    validationFraction = Double.parseDouble(
+        properties.getProperty("train.validationFraction", "0.1"));
+    patience = Integer.parseInt(properties.getProperty("train.patience", "10"));
+    levelWise = Boolean.parseBoolean(properties.getProperty("train.levelWise", "false"));
+    if (!(leafPercentage >= 0 && leafPercentage <= 100)) {
+      throw new IllegalArgumentException("The leaf percentage must be between 0 and 100");
+    }
+    if (minLeafSize < 0) {
+      throw new IllegalArgumentException("The minimum leaf size can't be negative");
+    }
+    if (maxDepth < 0) {
+      throw new IllegalArgumentException("The maximum depth can't be negative");
+    }
+    if (!(minGain >= 0)) {
+      throw new IllegalArgumentException("The minimum gain can't be negative");
+    }
+    if (maxNodes < 1) {
+      throw new IllegalArgumentException("The maximum number of nodes must be at least 1");
+    }
+    if (numberOfTrees < 1) {
+      throw new IllegalArgumentException("The number of trees must be at least 1");
+    }
+    if (featuresPerNode < 0) {
+      throw new IllegalArgumentException("The number of features per node can't be negative");
+    }
+    if (randomThresholds < 0) {
+      throw new IllegalArgumentException("The number of random thresholds can't be negative");
+    }
+    if (numberOfRounds < 0) {
+      throw new IllegalArgumentException("The number of rounds can't be negative");
+    }
+    if (numberOfRounds > 0 && numberOfTrees > 1) {
+      throw new IllegalArgumentException("A forest can't be boosted");
+    }
+    if (numberOfRounds > 0 && randomThresholds > 0) {
+      throw new IllegalArgumentException("Boosted trees can't use random thresholds");
+    }
+    if (!(learningRate > 0 && learningRate <= 1)) {
+      throw new IllegalArgumentException("The learning rate must be greater than 0 and at most 1");
+    }
+    if (!(validationFraction >= 0 && validationFraction < 1)) {
+      throw new IllegalArgumentException("The validation fraction must be between 0 and 1");
+    }
+    if (patience < 1) {
+      throw new IllegalArgumentException("The patience must be at least 1");
+    }
+    if (levelWise && (numberOfTrees > 1 || numberOfRounds > 0 || randomThresholds > 0)) {
+      throw new IllegalArgumentException(
+          "Only a single tree without random thresholds can be grown level-wise");
+    }
+  }
+
+  /**
+   * Returns the number of examples that a node must exceed to be split, that
+   * is the greater between the minimum leaf size and the leaf percentage of
+   * the examples of the training set.
+   * 
+   * @param numberOfExamples Number of examples of the training set.
+   * @return The minimum number of examples per leaf.
+   */
+  int getNumberOfExamplesPerLeaf(double numberOfExamples) {
+    return Math.max(minLeafSize, (int) (numberOfExamples * leafPercentage / 100));
+  }
+
+  /**
+   * Returns the maximum depth of a node.
+   * 
+   * @return Value of maxDepth.
+   */
+  public int getMaxDepth() {
+    return maxDepth;
+  }
+
+  /**
+   * Returns the minimum reduction of the SSE for a node to be split.
+   * 
+   * @return Value of minGain.
+   */
+  public double getMinGain() {
+    return minGain;
+  }
+
+  /**
+   * Returns the maximum number of nodes of the tree.
+   * 
+   * @return Value of maxNodes.
+   */
+  public int getMaxNodes() {
+    return maxNodes;
+  }
+
+  /**
+   * Checks if the nodes whose SSE is zero are not split.
+   * 
+   * @return Value of stopOnPureNodes.
+   */
+  public boolean isStopOnPureNodes() {
+    return stopOnPureNodes;
+  }
+
+  /**
+   * Returns the number of trees to learn.
+   * 
+   * @return Value of numberOfTrees.
+   */
+  public int getNumberOfTrees() {
+    return numberOfTrees;
+  }
+
+  /**
+   * Returns the number of attributes drawn at random at each node.
+   * 
+   * @return Value of featuresPerNode.
+   */
+  public int getFeaturesPerNode() {
+    return featuresPerNode;
+  }
+
+  /**
+   * Returns the number of thresholds drawn at random for a continuous
+   * attribute at each node.
+   * 
+   * @return Value of randomThresholds.
+   */
+  public int getRandomThresholds() {
+    return randomThresholds;
+  }
+
+  /**
+   * Returns the seed of the random draws.
+   * 
+   * @return Value of seed.
+   */
+  public long getSeed() {
+    return seed;
+  }
+
+  /**
+   * Returns the maximum number of rounds of gradient boosting.
+   * 
+   * @return Value of numberOfRounds.
+   */
+  public int getNumberOfRounds() {
+    return numberOfRounds;
+  }
+
+  /**
+   * Returns the learning rate of gradient boosting.
+   * 
+   * @return Value of learningRate.
+   */
+  public double getLearningRate() {
+    return learningRate;
+  }
+
+  /**
+   * Returns the fraction of the examples held out by gradient boosting.
+   * 
+   * @return Value of validationFraction.
+   */
+  public double getValidationFraction() {
+    return validationFraction;
+  }
+
+  /**
+   * Returns the number of rounds without improvement after which gradient
+   * boosting stops.
+   * 
+   * @return Value of patience.
+   */
+  public int getPatience() {
+    return patience;
+  }
+
+  /**
+   * Checks if the tree is grown one depth level at a time.
+   * 
+   * @return Value of levelWise.
+   */
+  public boolean isLevelWise() {
+    return levelWise;
+  }
+
+  /**
+   * Checks if a node can't be split whatever its best split, because it covers
+   * too few examples, it's at the maximum depth or it's pure.
+   * 
+   * @param statistics              Statistics of the class values covered by
+   *                                the node.
+   * @param depth                   Depth of the node.
+   * @param numberOfExamplesPerLeaf Minimum number of examples per leaf.
+   * @return True if the node must be a leaf.
+   */
+  boolean isLeaf(NodeStatistics statistics, int depth, int numberOfExamplesPerLeaf) {
+    return statistics.getCount() <= numberOfExamplesPerLeaf || depth >= maxDepth
+        || stopOnPureNodes && SplitNode.compareVariances(statistics.getVariance(), 0) <= 0;
+  }
+
+  /**
+   * Checks if a split reduces the SSE of its node by at least the minimum gain.
+   * 
+   * @param split Split of a node.
+   * @return True if the gain of the split is enough, always true if the minimum
+   *         gain is 0.
+   */
+  boolean hasEnoughGain(SplitNode split) {
+    return minGain == 0 || split.getStatistics().getVariance() - split.getVariance() >= minGain;
+  }
+
+  /**
+   * Returns a string containing all the class info.
+   */
+  @Override
+  public String toString() {
+    return "leafPercentage=" + leafPercentage + " minLeafSize=" + minLeafSize + " maxDepth="
+        + maxDepth + " minGain=" + minGain + " maxNodes=" + maxNodes + " stopOnPureNodes="
+        + stopOnPureNodes + " trees=" + numberOfTrees + " featuresPerNode=" + featuresPerNode
+        + " randomThresholds=" + randomThresholds + " seed=" + seed + " rounds=" + numberOfRounds
+        + " learningRate=" + learningRate + " validationFraction=" + validationFraction
+        + " patience=" + patience + " levelWise=" + levelWise;
+  }
+
+}
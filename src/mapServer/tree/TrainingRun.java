@@ -0,0 +1,173 @@
+package tree;
+
+import data.Attribute;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * State shared by the nodes learnt in a single learning of a tree: the limits
+ * of the training configuration, the minimum number of examples per leaf
+ * computed from the size of the training set, and the number of nodes of the
+ * tree so far, which the tasks learning subtrees in parallel update
+ * atomically. Subtrees are learnt in parallel only if the number of nodes is
+ * not bounded, so that the nodes cut by the maximum don't depend on the order
+ * the tasks run in. The attributes scored at a node, and the thresholds
+ * scored for each of them, are drawn from generators seeded by the seed of
+ * the tree and the position of the node, so that they don't depend on the
+ * order the tasks run in either.
+ * 
+ * @author Fabio
+ *
+ */
+class TrainingRun {
+  /**
+   * Odd constant spreading the seeds of the thresholds of the attributes.
+   */
+  private static final long THRESHOLD_SEED_STEP = 0x9E3779B97F4A7C15L;
+  /**
+   * Limits on the growth of the tree.
+   */
+  private final TrainingConfig config;
+  /**
+   * Minimum number of examples that a leaf should have.
+   */
+  private final int numberOfExamplesPerLeaf;
+  /**
+   * Number of nodes of the tree so far, starting from the root.
+   */
+  private final AtomicInteger numberOfNodes = new AtomicInteger(1);
+  /**
+   * Seed of the attributes drawn at the nodes of the tree.
+   */
+  private final long seed;
+
+  /**
+   * Initializes the learning of a tree on a training set, using the seed of
+   * the configuration.
+   * 
+   * @param config           Limits on the growth of the tree.
+   * @param numberOfExamples Number of examples of the training set.
+   */
+  TrainingRun(TrainingConfig config, double numberOfExamples) {
+    this(config, numberOfExamples, config.getSeed());
+  }
+
+  /**
+   * Initializes the learning of a tree on a training set with its own seed,
+   * such as a tree of a forest.
+   * 
+   * @param config           Limits on the growth of the tree.
+   * @param numberOfExamples Number of examples of the training set.
+   * @param seed             Seed of the attributes drawn at the nodes.
+   */
+  TrainingRun(TrainingConfig config, double numberOfExamples, long seed) {
+    this.config = config;
+    numberOfExamplesPerLeaf = config.getNumberOfExamplesPerLeaf(numberOfExamples);
+    this.seed = seed;
+  }
+
+  /**
+   * Returns the indexes of the attributes to be scored at a node, in
+   * ascending order: all of them, unless the configuration asks for fewer
+   * attributes per node, which are then drawn at random without repetition.
+   * 
+   * @param numberOfAttributes Number of explanatory attributes.
+   * @param begin              Index of the first example covered by the node.
+   * @param depth              Depth of the node.
+   * @return The indexes of the attributes to be scored.
+   */
+  int[] selectAttributes(int numberOfAttributes, int begin, int depth) {
+    int[] attributes = new int[numberOfAttributes];
+    for (int i = 0; i < numberOfAttributes; i++) {
+      attributes[i] = i;
+    }
+    int featuresPerNode = config.getFeaturesPerNode();
+    if (featuresPerNode == 0 || featuresPerNode >= numberOfAttributes) {
+      return attributes;
+    }
+    SplittableRandom random = new SplittableRandom(seed ^ ((long) depth << 32 | begin));
+    for (int i = 0; i < featuresPerNode; i++) {
+      int j = i + random.nextInt(numberOfAttributes - i);
+      int temp = attributes[i];
+      attributes[i] = attributes[j];
+      attributes[j] = temp;
+    }
+    int[] selected = Arrays.copyOf(attributes, featuresPerNode);
+    Arrays.sort(selected);
+    return selected;
+  }
+
+  /**
+   * Returns the number of thresholds drawn at random for a continuous
+   * attribute at each node.
+   * 
+   * @return The number of random thresholds, 0 if all the values of the
+   *         attribute are scored.
+   */
+  int getRandomThresholds() {
+    return config.getRandomThresholds();
+  }
+
+  /**
+   * Returns a new generator of the random thresholds of an attribute at a
+   * node, so that scoring the attribute and instantiating its split draw the
+   * same thresholds.
+   * 
+   * @param begin     Index of the first example covered by the node.
+   * @param depth     Depth of the node.
+   * @param attribute Continuous attribute whose thresholds are drawn.
+   * @return The generator of the thresholds.
+   */
+  SplittableRandom thresholdRandom(int begin, int depth, Attribute attribute) {
+    return new SplittableRandom((seed ^ ((long) depth << 32 | begin))
+        + THRESHOLD_SEED_STEP * (attribute.getIndex() + 1));
+  }
+
+  /**
+   * Checks if the configuration bounds the number of nodes of the tree, in
+   * which case the splits must be accepted in a fixed order for the learnt
+   * tree not to depend on the order the tasks run in.
+   * 
+   * @return True if the number of nodes is bounded.
+   */
+  boolean isNodeCountBounded() {
+    return config.getMaxNodes() != Integer.MAX_VALUE;
+  }
+
+  /**
+   * Checks if a node must be a leaf whatever its best split.
+   * 
+   * @param statistics Statistics of the class values covered by the node.
+   * @param depth      Depth of the node.
+   * @return True if the node must be a leaf.
+   */
+  boolean isLeaf(NodeStatistics statistics, int depth) {
+    return config.isLeaf(statistics, depth, numberOfExamplesPerLeaf);
+  }
+
+  /**
+   * Checks if a node can be split by its best split, that is if the split has
+   * more than one child, reduces the SSE by at least the minimum gain, and its
+   * children fit in the maximum number of nodes. If so, the children are
+   * counted among the nodes of the tree.
+   * 
+   * @param split Best split of a node.
+   * @return True if the node can be split.
+   */
+  boolean acceptSplit(SplitNode split) {
+    int numberOfChildren = split.getNumberOfChildren();
+    if (numberOfChildren < 2 || !config.hasEnoughGain(split)) {
+      return false;
+    }
+    int current;
+    do {
+      current = numberOfNodes.get();
+      if (current + numberOfChildren > config.getMaxNodes()) {
+        return false;
+      }
+    } while (!numberOfNodes.compareAndSet(current, current + numberOfChildren));
+    return true;
+  }
+
+}
@@ -0,0 +1,117 @@
+package data;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of the presorted lists of a Data.
+ * 
+ * @author Fabio
+ *
+ */
+class DataTest {
+
+  /**
+   * Checks that, after presort, every range covered by a node holds the same
+   * rows in the list of each attribute, sorted by that attribute, while the
+   * ranges are split among random children down to a few levels.
+   * 
+   * @throws Exception If the training set can't be written or read.
+   */
+  @Test
+  void splitKeepsEveryChildSorted() throws Exception {
+    Random random = new Random(7);
+    for (int trial = 0; trial < 20; trial++) {
+      Data trainingSet = newTrainingSet(random, 50 + random.nextInt(200));
+      trainingSet.presort();
+      checkSplits(trainingSet, random, 0, trainingSet.getNumberOfExamples() - 1, 0);
+    }
+  }
+
+  /**
+   * Checks the lists in the range [begin,end], then sorts the range by a random
+   * attribute, splits it into random children and checks each child.
+   * 
+   * @param trainingSet Presorted training set.
+   * @param random      Generator of the attributes and of the children.
+   * @param begin       Index of the first example of the range.
+   * @param end         Index of the last example of the range.
+   * @param depth       Depth of the range.
+   */
+  private static void checkSplits(Data trainingSet, Random random, int begin, int end,
+      int depth) {
+    int[] rows = null;
+    for (int a = 0; a < trainingSet.getNumberOfExplanatoryAttributes(); a++) {
+      Attribute attribute = trainingSet.getExplanatoryAttribute(a);
+      int[] sorted = Arrays.copyOfRange(trainingSet.getPresortedRows(attribute), begin,
+          end + 1);
+      for (int i = 1; i < sorted.length; i++) {
+        assertTrue(key(trainingSet, attribute, sorted[i - 1])
+            <= key(trainingSet, attribute, sorted[i]), "list of " + attribute + " not sorted");
+      }
+      Arrays.sort(sorted);
+      if (rows == null) {
+        rows = sorted;
+      } else {
+        assertArrayEquals(rows, sorted);
+      }
+    }
+    if (depth == 4 || end - begin < 2) {
+      return;
+    }
+    trainingSet.sort(trainingSet.getExplanatoryAttribute(
+        random.nextInt(trainingSet.getNumberOfExplanatoryAttributes())), begin, end);
+    int[] childBeginIndexes = {begin, begin + 1 + random.nextInt(end - begin)};
+    trainingSet.split(begin, end, childBeginIndexes);
+    checkSplits(trainingSet, random, begin, childBeginIndexes[1] - 1, depth + 1);
+    checkSplits(trainingSet, random, childBeginIndexes[1], end, depth + 1);
+  }
+
+  /**
+   * Returns the key a row is sorted by for an attribute: its value if the
+   * attribute is continuous, else the code of its value.
+   * 
+   * @param trainingSet Training set holding the row.
+   * @param attribute   Explanatory attribute.
+   * @param row         Row of the training set.
+   * @return The key of the row.
+   */
+  private static double key(Data trainingSet, Attribute attribute, int row) {
+    return attribute instanceof ContinuousAttribute
+        ? trainingSet.getContinuousColumn((ContinuousAttribute) attribute)[row]
+        : trainingSet.getDiscreteColumn((DiscreteAttribute) attribute)[row];
+  }
+
+  /**
+   * Reads a random training set, with a continuous attribute with many
+   * repeated values, one with distinct values, a discrete attribute and the
+   * class attribute, from a temporary CSV file.
+   * 
+   * @param random           Generator of the values.
+   * @param numberOfExamples Number of examples.
+   * @return The training set.
+   * @throws IOException           If the file can't be written.
+   * @throws TrainingDataException If the file can't be read.
+   */
+  private static Data newTrainingSet(Random random, int numberOfExamples)
+      throws IOException, TrainingDataException {
+    StringBuilder csv = new StringBuilder("x,z,colour,y\n");
+    for (int i = 0; i < numberOfExamples; i++) {
+      csv.append(random.nextInt(10)).append(',').append(random.nextDouble()).append(',')
+          .append("c").append(random.nextInt(4)).append(',').append(random.nextDouble())
+          .append('\n');
+    }
+    Path file = Files.createTempFile("data", ".csv");
+    file.toFile().deleteOnExit();
+    Files.writeString(file, csv);
+    return new Data(new FileSource(file, FileSource.DEFAULT_SEPARATOR, 1));
+  }
+
+}
@@ -0,0 +1,104 @@
+package data;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of the parsing of the numbers of a FileSource.
+ * 
+ * @author Fabio
+ *
+ */
+class FileSourceTest {
+  /**
+   * Numbers at the edges of the parsing in place: signs, exponents, the
+   * largest mantissas parsed in place, numbers with more than 18 significant
+   * digits and numbers that only Double.parseDouble can round correctly.
+   */
+  private static final String[] EDGE_CASES = {"0", "-0", "+3.25", ".5", "5.", "0.0", "1e0", "1E5",
+      "1e+3", "1.5e-3", "-2.5E-7", "1e22", "1e-22", "1e23", "1e-23", "123456789012345678",
+      "1234567890123456789", "12345678901234567890123", "0.1234567890123456789012",
+      "000000000000000000001.5", "9007199254740991", "9007199254740993",
+      "123456789012345678e-22", "99999999999999999e22", "4.9e-324", "2.2250738585072014E-308",
+      "1.7976931348623157e308", "1e400", "1e-400", "0.30000000000000004", "3.141592653589793"};
+
+  /**
+   * Checks that every number of a file larger than a chunk, parsed by several
+   * threads, has exactly the value returned by Double.parseDouble.
+   * 
+   * @throws Exception If the file can't be written or read.
+   */
+  @Test
+  void numbersMatchParseDouble() throws Exception {
+    Random random = new Random(3);
+    List<String> numbers = new ArrayList<>(List.of(EDGE_CASES));
+    while (numbers.size() < 120000) {
+      numbers.add(randomNumber(random));
+    }
+    StringBuilder csv = new StringBuilder("x,y\n");
+    for (int i = 0; i < numbers.size(); i += 2) {
+      csv.append(numbers.get(i)).append(',').append(numbers.get(i + 1)).append('\n');
+    }
+    Path file = Files.createTempFile("numbers", ".csv");
+    file.toFile().deleteOnExit();
+    Files.writeString(file, csv);
+    assertTrue(Files.size(file) > 2 << 20, "the file must span several chunks");
+
+    Data trainingSet = new Data(new FileSource(file, FileSource.DEFAULT_SEPARATOR, 4));
+    ContinuousAttribute x = (ContinuousAttribute) trainingSet.getExplanatoryAttribute(0);
+    assertEquals(numbers.size() / 2, trainingSet.getNumberOfExamples());
+    for (int i = 0; i < trainingSet.getNumberOfExamples(); i++) {
+      check(numbers.get(2 * i), trainingSet.getContinuous(i, x));
+      check(numbers.get(2 * i + 1), trainingSet.getClassValue(i));
+    }
+  }
+
+  /**
+   * Checks that a parsed value has the same bits as the one returned by
+   * Double.parseDouble.
+   * 
+   * @param text  Number as written in the file.
+   * @param value Value read by the source.
+   */
+  private static void check(String text, double value) {
+    assertEquals(Double.doubleToLongBits(Double.parseDouble(text)),
+        Double.doubleToLongBits(value), text);
+  }
+
+  /**
+   * Returns a random number, written either as Double.toString does or as a
+   * mantissa of up to 24 digits with a decimal point and an exponent.
+   * 
+   * @param random Generator of the number.
+   * @return The number.
+   */
+  private static String randomNumber(Random random) {
+    if (random.nextInt(4) == 0) {
+      return Double.toString((random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(40) - 20));
+    }
+    StringBuilder number = new StringBuilder();
+    if (random.nextBoolean()) {
+      number.append('-');
+    }
+    int digits = 1 + random.nextInt(24);
+    int point = random.nextInt(digits + 1);
+    for (int i = 0; i < digits; i++) {
+      if (i == point) {
+        number.append('.');
+      }
+      number.append((char) ('0' + random.nextInt(10)));
+    }
+    if (random.nextBoolean()) {
+      number.append(random.nextBoolean() ? 'e' : 'E').append(random.nextInt(61) - 30);
+    }
+    return number.toString();
+  }
+
+}
@@ -0,0 +1,124 @@
+package tree;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import data.ContinuousAttribute;
+import data.Data;
+import data.FileSource;
+import data.TrainingDataException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of the search of the best threshold of a ContinuousNode.
+ * 
+ * @author Fabio
+ *
+ */
+class ContinuousNodeTest {
+
+  /**
+   * Checks that the single prefix-sum sweep picks the same threshold, and
+   * scores it with the same SSE, as scoring every threshold from scratch,
+   * on training sets with many repeated values.
+   * 
+   * @throws Exception If the training set can't be written or read.
+   */
+  @Test
+  void sweepMatchesPerThresholdScan() throws Exception {
+    Random random = new Random(42);
+    for (int trial = 0; trial < 200; trial++) {
+      int numberOfExamples = 2 + random.nextInt(60);
+      double[] x = new double[numberOfExamples];
+      double[] y = new double[numberOfExamples];
+      for (int i = 0; i < numberOfExamples; i++) {
+        x[i] = random.nextInt(1 + trial % 20);
+        y[i] = random.nextDouble() * 100;
+      }
+      Data trainingSet = newTrainingSet(x, y);
+      ContinuousAttribute attribute = (ContinuousAttribute) trainingSet
+          .getExplanatoryAttribute(0);
+      int end = numberOfExamples - 1;
+      NodeStatistics statistics = NodeStatistics.of(trainingSet, 0, end);
+      trainingSet.sort(attribute, 0, end);
+
+      int bestSplitIndex = -1;
+      double bestVariance = 0;
+      for (int i = 1; i <= end; i++) {
+        if (trainingSet.getContinuous(i, attribute) != trainingSet.getContinuous(i - 1,
+            attribute)) {
+          double variance = sse(trainingSet, 0, i - 1) + sse(trainingSet, i, end);
+          if (bestSplitIndex == -1 || variance < bestVariance) {
+            bestSplitIndex = i;
+            bestVariance = variance;
+          }
+        }
+      }
+
+      if (bestSplitIndex == -1) {
+        assertThrows(NoBestExplanatoryValueFoundException.class,
+            () -> ContinuousNode.evaluate(trainingSet, 0, end, attribute, statistics));
+        continue;
+      }
+      double tolerance = 1e-9 * Math.max(1, bestVariance);
+      assertEquals(bestVariance,
+          ContinuousNode.evaluate(trainingSet, 0, end, attribute, statistics), tolerance);
+      ContinuousNode node = new ContinuousNode(trainingSet, 0, end, attribute, statistics);
+      assertEquals(bestSplitIndex - 1, node.getSplitInfo(0).getEndIndex());
+      assertEquals(trainingSet.getContinuous(bestSplitIndex - 1, attribute),
+          node.getSplitInfo(0).getSplitValue());
+      assertEquals(sse(trainingSet, 0, bestSplitIndex - 1),
+          node.getSplitInfo(0).getStatistics().getVariance(), tolerance);
+    }
+  }
+
+  /**
+   * Computes the SSE of the class values in the range [begin,end] from their
+   * mean.
+   * 
+   * @param trainingSet Collection of learning examples.
+   * @param begin       Index of the first example of the range.
+   * @param end         Index of the last example of the range.
+   * @return The SSE of the range.
+   */
+  private static double sse(Data trainingSet, int begin, int end) {
+    double mean = 0;
+    for (int i = begin; i <= end; i++) {
+      mean += trainingSet.getClassValue(i);
+    }
+    mean /= end - begin + 1;
+    double sse = 0;
+    for (int i = begin; i <= end; i++) {
+      double difference = trainingSet.getClassValue(i) - mean;
+      sse += difference * difference;
+    }
+    return sse;
+  }
+
+  /**
+   * Reads a training set with a continuous attribute and the class attribute
+   * from a temporary CSV file.
+   * 
+   * @param x Values of the continuous attribute.
+   * @param y Class values.
+   * @return The training set.
+   * @throws IOException           If the file can't be written.
+   * @throws TrainingDataException If the file can't be read.
+   */
+  private static Data newTrainingSet(double[] x, double[] y)
+      throws IOException, TrainingDataException {
+    StringBuilder csv = new StringBuilder("x,y\n");
+    for (int i = 0; i < x.length; i++) {
+      csv.append(x[i]).append(',').append(y[i]).append('\n');
+    }
+    Path file = Files.createTempFile("continuous", ".csv");
+    file.toFile().deleteOnExit();
+    Files.writeString(file, csv);
+    return new Data(new FileSource(file, FileSource.DEFAULT_SEPARATOR, 1));
+  }
+
+}
@@ -0,0 +1,161 @@
+package tree;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import data.ContinuousAttribute;
+import data.Data;
+import data.FileSource;
+import data.TrainingDataException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of the traversals of a RegressionTree.
+ * 
+ * @author Fabio
+ *
+ */
+class RegressionTreeTest {
+  /**
+   * Depth of the deep tree, far more levels than the default thread stack
+   * could recurse through.
+   */
+  private static final int DEPTH = 50000;
+
+  /**
+   * Checks that a tree much deeper than the thread stack allows to recurse
+   * is serialized and deserialized into the same tree, which still predicts
+   * the class value of its deepest leaf.
+   * 
+   * @throws Exception If the training set can't be written or read, or the tree
+   *                   can't be serialized.
+   */
+  @Test
+  void deepTreeSurvivesSerialization() throws Exception {
+    Path file = Files.createTempFile("deep", ".csv");
+    file.toFile().deleteOnExit();
+    Files.writeString(file, "x,y\n0,0\n" + DEPTH + ",1\n");
+    Data trainingSet = new Data(new FileSource(file, FileSource.DEFAULT_SEPARATOR, 1));
+    ContinuousAttribute x = (ContinuousAttribute) trainingSet.getExplanatoryAttribute(0);
+
+    NodeStatistics statistics = new NodeStatistics(1, DEPTH, (double) DEPTH * DEPTH);
+    RegressionTree tree = new RegressionTree(new LeafNode(DEPTH, DEPTH, statistics), null);
+    for (int i = DEPTH - 1; i >= 0; i--) {
+      NodeStatistics left = new NodeStatistics(1, i, (double) i * i);
+      ContinuousNode root = new ContinuousNode(i, DEPTH, left.add(statistics), x);
+      root.addSplitInfo((double) i, i, i, "<=", left);
+      root.addSplitInfo((double) i, i + 1, DEPTH, ">", statistics);
+      tree = new RegressionTree(root,
+          new RegressionTree[] {new RegressionTree(new LeafNode(i, i, left), null), tree});
+      statistics = left.add(statistics);
+    }
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(tree);
+    }
+    RegressionTree copy;
+    try (ObjectInputStream in = new ObjectInputStream(
+        new ByteArrayInputStream(bytes.toByteArray()))) {
+      copy = (RegressionTree) in.readObject();
+    }
+    assertEquals(tree.toString(), copy.toString());
+    assertEquals(0.0, copy.predict(trainingSet, 0));
+    assertEquals((double) DEPTH, copy.predict(trainingSet, 1));
+  }
+
+  /**
+   * Checks that weighting a row by 2 gives the same statistics and the same
+   * tree as repeating the row, and weighting it by 0 the same as leaving it
+   * out. The values are small integers, so that the sums are exact whatever
+   * the order of the rows.
+   * 
+   * @throws Exception If the training sets can't be written or read.
+   */
+  @Test
+  void weightTwoMatchesDuplicatedRow() throws Exception {
+    Random random = new Random(5);
+    for (int trial = 0; trial < 50; trial++) {
+      int numberOfExamples = 10 + random.nextInt(60);
+      StringBuilder weighted = new StringBuilder();
+      StringBuilder repeated = new StringBuilder();
+      double[] weights = new double[numberOfExamples];
+      for (int i = 0; i < numberOfExamples; i++) {
+        String row = random.nextInt(12) + ",c" + (i < 4 ? i : random.nextInt(4)) + ","
+            + random.nextInt(20) + "\n";
+        weights[i] = i < 4 ? 1 : random.nextInt(3);
+        weighted.append(row);
+        repeated.append(row.repeat((int) weights[i]));
+      }
+      Data weightedSet = newTrainingSet(weighted);
+      weightedSet.setWeights(weights);
+      Data repeatedSet = newTrainingSet(repeated);
+
+      NodeStatistics weightedStatistics = NodeStatistics.of(weightedSet, 0,
+          weightedSet.getNumberOfExamples() - 1);
+      NodeStatistics repeatedStatistics = NodeStatistics.of(repeatedSet, 0,
+          repeatedSet.getNumberOfExamples() - 1);
+      assertEquals(repeatedStatistics.getCount(), weightedStatistics.getCount());
+      assertEquals(repeatedStatistics.getSum(), weightedStatistics.getSum());
+      assertEquals(repeatedStatistics.getSumOfSquares(), weightedStatistics.getSumOfSquares());
+
+      RegressionTree weightedTree = new RegressionTree(weightedSet);
+      RegressionTree repeatedTree = new RegressionTree(repeatedSet);
+      for (int i = 0; i < weightedSet.getNumberOfExamples(); i++) {
+        assertEquals(repeatedTree.predict(weightedSet, i), weightedTree.predict(weightedSet, i),
+            1e-9);
+      }
+    }
+  }
+
+  /**
+   * Checks that an attribute with a single value in a node doesn't make the
+   * node a leaf when another attribute can split it.
+   * 
+   * @throws Exception If the training set can't be written or read.
+   */
+  @Test
+  void constantAttributeIsSkipped() throws Exception {
+    StringBuilder rows = new StringBuilder();
+    for (int i = 0; i < 40; i++) {
+      rows.append("7,c").append(i % 2).append(',').append(i % 2 * 10).append('\n');
+    }
+    for (boolean parallel : new boolean[] {false, true}) {
+      Data trainingSet = newTrainingSet(rows);
+      RegressionTree tree = parallel
+          ? new RegressionTree(trainingSet, new ForkJoinPool(2), 1, new TrainingConfig(
+              new Properties()))
+          : new RegressionTree(trainingSet);
+      for (int i = 0; i < trainingSet.getNumberOfExamples(); i++) {
+        assertEquals(trainingSet.getClassValue(i), tree.predict(trainingSet, i));
+      }
+    }
+  }
+
+  /**
+   * Reads a training set with a continuous attribute, a discrete attribute and
+   * the class attribute from a temporary CSV file.
+   * 
+   * @param rows Rows of the file, without the header.
+   * @return The training set.
+   * @throws IOException           If the file can't be written.
+   * @throws TrainingDataException If the file can't be read.
+   */
+  private static Data newTrainingSet(CharSequence rows)
+      throws IOException, TrainingDataException {
+    Path file = Files.createTempFile("weighted", ".csv");
+    file.toFile().deleteOnExit();
+    Files.writeString(file, "x,colour,y\n" + rows);
+    return new Data(new FileSource(file, FileSource.DEFAULT_SEPARATOR, 1));
+  }
+
+}
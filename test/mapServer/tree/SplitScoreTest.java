@@ -0,0 +1,90 @@
+package tree;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import data.ContinuousAttribute;
+import data.Data;
+import data.DiscreteAttribute;
+import data.FileSource;
+import data.TrainingDataException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests of the scores of the candidate splits, computed without instantiating
+ * the SplitNodes.
+ * 
+ * @author Fabio
+ *
+ */
+class SplitScoreTest {
+
+  /**
+   * Checks that the score of every kind of split is the variance of the
+   * SplitNode instantiated for the same attribute and range.
+   * 
+   * @throws Exception If the training set can't be written or read.
+   */
+  @Test
+  void scoreIsVarianceOfBuiltNode() throws Exception {
+    Random random = new Random(11);
+    for (int trial = 0; trial < 100; trial++) {
+      Data trainingSet = newTrainingSet(random, 2 + random.nextInt(80));
+      ContinuousAttribute x = (ContinuousAttribute) trainingSet.getExplanatoryAttribute(0);
+      DiscreteAttribute colour = (DiscreteAttribute) trainingSet.getExplanatoryAttribute(1);
+      int end = trainingSet.getNumberOfExamples() - 1;
+      NodeStatistics statistics = NodeStatistics.of(trainingSet, 0, end);
+      double tolerance = 1e-9 * Math.max(1, statistics.getVariance());
+
+      try {
+        assertEquals(new DiscreteNode(trainingSet, 0, end, colour, statistics).getVariance(),
+            DiscreteNode.evaluate(trainingSet, 0, end, colour), tolerance);
+      } catch (NoBestExplanatoryValueFoundException e) {
+        // All the examples have the same colour: there is no discrete split.
+      }
+
+      trainingSet.sort(x, 0, end);
+      try {
+        double score = ContinuousNode.evaluate(trainingSet, 0, end, x, statistics);
+        assertEquals(new ContinuousNode(trainingSet, 0, end, x, statistics).getVariance(),
+            score, tolerance);
+        long seed = random.nextLong();
+        score = ContinuousNode.evaluateRandom(trainingSet, 0, end, x, statistics,
+            new SplittableRandom(seed), 3);
+        assertEquals(ContinuousNode.newRandomNode(trainingSet, 0, end, x, statistics,
+            new SplittableRandom(seed), 3).getVariance(), score, tolerance);
+      } catch (NoBestExplanatoryValueFoundException e) {
+        // All the values of x are equal: there is no continuous split to score.
+      }
+    }
+  }
+
+  /**
+   * Reads a random training set, with a continuous attribute with repeated
+   * values, a discrete attribute and the class attribute, from a temporary CSV
+   * file.
+   * 
+   * @param random           Generator of the values.
+   * @param numberOfExamples Number of examples.
+   * @return The training set.
+   * @throws IOException           If the file can't be written.
+   * @throws TrainingDataException If the file can't be read.
+   */
+  private static Data newTrainingSet(Random random, int numberOfExamples)
+      throws IOException, TrainingDataException {
+    StringBuilder csv = new StringBuilder("x,colour,y\n");
+    for (int i = 0; i < numberOfExamples; i++) {
+      csv.append(random.nextInt(8)).append(",c").append(random.nextInt(4)).append(',')
+          .append(random.nextDouble() * 100).append('\n');
+    }
+    Path file = Files.createTempFile("split", ".csv");
+    file.toFile().deleteOnExit();
+    Files.writeString(file, csv);
+    return new Data(new FileSource(file, FileSource.DEFAULT_SEPARATOR, 1));
+  }
+
+}